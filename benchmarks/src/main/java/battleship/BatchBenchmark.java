@@ -0,0 +1,146 @@
+package battleship;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks of playing many standard games to the end, as separate Ocean objects and as
+ * one OceanBatch. Both play the same layouts with the same shots: every game fires at the
+ * cells of the ocean in its own random order until its fleet is sunk. One operation plays
+ * every game, so divide by the number of games for the time per game.
+ *
+ * Run it the same way as EngineBenchmark; its JMH output, with the gc profiler, is in
+ * benchmarks/batch-baseline.txt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    /**
+     * Number of games played at once
+     */
+    @Param({"64", "1024"})
+    int games;
+
+    /**
+     * The games as separate oceans
+     */
+    Ocean[] oceans;
+
+    /**
+     * The same games in one batch
+     */
+    OceanBatch batch;
+
+    /**
+     * Per step and game, the cell fired at
+     */
+    int[][] order;
+
+    /**
+     * Results of one step of the batch
+     */
+    long[] hits;
+    long[] sunk;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        SplittableRandom random = new SplittableRandom(42);
+        this.batch = new OceanBatch(this.games);
+        this.batch.placeAllShipsRandomly(random);
+        this.oceans = new Ocean[this.games];
+        for (int g = 0; g < this.games; g++){
+            this.oceans[g] = new Ocean();
+            this.batch.placeFleetIn(g, this.oceans[g]);
+        }
+
+        // a random order of the 100 cells for every game
+        this.order = new int[100][this.games];
+        for (int g = 0; g < this.games; g++){
+            int[] cells = new int[100];
+            for (int i = 0; i < 100; i++){
+                cells[i] = i;
+            }
+            for (int i = 99; i > 0; i--){
+                int j = random.nextInt(i + 1);
+                int swap = cells[i];
+                cells[i] = cells[j];
+                cells[j] = swap;
+            }
+            for (int step = 0; step < 100; step++){
+                this.order[step][g] = cells[step];
+            }
+        }
+        this.hits = new long[(this.games + 63) / 64];
+        this.sunk = new long[this.hits.length];
+    }
+
+    /**
+     * Puts every game back at its start: same fleet, no shots
+     */
+    @Setup(Level.Invocation)
+    public void restart(){
+        for (int g = 0; g < this.games; g++){
+            this.oceans[g].reset();
+            this.batch.placeFleetIn(g, this.oceans[g]);
+            this.batch.restart(g);
+        }
+    }
+
+    @Benchmark
+    public int oceans(){
+        int shots = 0;
+        for (int g = 0; g < this.games; g++){
+            Ocean ocean = this.oceans[g];
+            for (int step = 0; !ocean.isGameOver(); step++){
+                ocean.shootAt(this.order[step][g] / 10, this.order[step][g] % 10);
+                shots++;
+            }
+        }
+        return shots;
+    }
+
+    @Benchmark
+    public int batch(){
+        int shots = 0;
+
+        // every game is over by the last step, games that are over skip the shots
+        for (int step = 0; step < 100; step++){
+            this.batch.shootAll(this.order[step], this.hits, this.sunk);
+        }
+        for (int g = 0; g < this.games; g++){
+            shots += this.batch.getShotsFired(g);
+        }
+        return shots;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BatchBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
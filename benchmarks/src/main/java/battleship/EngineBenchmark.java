@@ -0,0 +1,259 @@
+package battleship;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for the core game engine: building an Ocean, placing the fleet, checking and
+ * making placements, firing, checking for sinking, printing, and playing a whole game.
+ *
+ * Build the benchmarks module with "mvn -f benchmarks/pom.xml package" and run it with
+ * "java -jar benchmarks/target/benchmarks.jar EngineBenchmark -prof gc"; the gc profiler adds
+ * the allocation rate and bytes allocated per operation (gc.alloc.rate.norm) to each result.
+ * main() does the same from an IDE. Compare results with the JMH output in
+ * benchmarks/engine-baseline.txt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    /**
+     * An ocean with a known fleet: the battleship along the top left, a submarine in the
+     * bottom right corner that has been sunk, and nothing else
+     */
+    @State(Scope.Thread)
+    public static class KnownOcean {
+
+        Ocean ocean;
+        Ship battleship;
+        Ship submarine;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            this.ocean = new Ocean();
+
+            // the battleship covers row 0, columns 0-3
+            this.battleship = new Battleship();
+            this.battleship.placeShipAt(0, 3, true, this.ocean);
+
+            // the submarine is sunk before measuring, so shots at it are repeat shots
+            this.submarine = new Submarine();
+            this.submarine.placeShipAt(9, 9, true, this.ocean);
+            this.ocean.shootAt(9, 9);
+        }
+    }
+
+    /**
+     * The battleship along the top left of an ocean nobody has fired at yet. The ocean is
+     * emptied and the battleship put back before every call, so each shot is a first shot.
+     * JMH times every call on its own at this level, which adds a few nanoseconds to each.
+     */
+    @State(Scope.Thread)
+    public static class FreshOcean {
+
+        Ocean ocean;
+        Ship battleship;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            this.ocean = new Ocean();
+            this.battleship = new Battleship();
+        }
+
+        @Setup(Level.Invocation)
+        public void refill(){
+            this.ocean.reset();
+            this.battleship.resetHits();
+            this.battleship.placeShipAt(0, 3, true, this.ocean);
+        }
+    }
+
+    /**
+     * An empty ocean and a crowded one (a full random fleet), and the cell to try next
+     */
+    @State(Scope.Thread)
+    public static class Placement {
+
+        Ocean empty;
+        Ocean crowded;
+        Ship ship;
+        int cell;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            this.empty = new Ocean();
+            this.crowded = new Ocean();
+            this.crowded.placeAllShipsRandomly();
+            this.ship = new Cruiser();
+        }
+
+        /**
+         * Moves on to the next cell and orientation so every position gets tried
+         */
+        int next(){
+            this.cell = (this.cell + 1) % 200;
+            return this.cell;
+        }
+    }
+
+    /**
+     * An ocean that is reset and refilled for each placement
+     */
+    @State(Scope.Thread)
+    public static class Reusable {
+
+        Ocean ocean;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            this.ocean = new Ocean();
+        }
+    }
+
+    /**
+     * A random fleet and an output stream that throws everything away
+     */
+    @State(Scope.Thread)
+    public static class Printing {
+
+        Ocean ocean;
+        PrintStream original;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            this.ocean = new Ocean();
+            this.ocean.placeAllShipsRandomly();
+
+            // fire at every other cell so print() shows hits, misses and unknown cells
+            for (int row = 0; row < 10; row++){
+                for (int column = row % 2; column < 10; column += 2){
+                    this.ocean.shootAt(row, column);
+                }
+            }
+            this.original = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown(){
+            System.setOut(this.original);
+        }
+    }
+
+    /**
+     * What one simulated game needs, reused from game to game
+     */
+    @State(Scope.Thread)
+    public static class Game {
+
+        Ocean ocean;
+        SeaChart chart;
+        Shooter shooter;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            this.ocean = new Ocean();
+            this.chart = new SeaChart();
+            this.shooter = new DensityShooter();
+        }
+    }
+
+    @Benchmark
+    public Ocean newOcean(){
+        return new Ocean();
+    }
+
+    @Benchmark
+    public Ocean placeAllShipsRandomly(Reusable state){
+        state.ocean.reset();
+        state.ocean.placeAllShipsRandomly();
+        return state.ocean;
+    }
+
+    @Benchmark
+    public boolean okToPlaceShipAtEmpty(Placement state){
+        int cell = state.next();
+        return state.ship.okToPlaceShipAt(cell % 100 / 10, cell % 10, cell < 100, state.empty);
+    }
+
+    @Benchmark
+    public boolean okToPlaceShipAtCrowded(Placement state){
+        int cell = state.next();
+        return state.ship.okToPlaceShipAt(cell % 100 / 10, cell % 10, cell < 100, state.crowded);
+    }
+
+    @Benchmark
+    public boolean shootAtHit(FreshOcean state){
+        return state.ocean.shootAt(0, 1);
+    }
+
+    @Benchmark
+    public boolean shootAtMiss(FreshOcean state){
+        return state.ocean.shootAt(5, 5);
+    }
+
+    @Benchmark
+    public boolean shootAtRepeat(KnownOcean state){
+        // the submarine here is already sunk
+        return state.ocean.shootAt(9, 9);
+    }
+
+    @Benchmark
+    public void isSunk(KnownOcean state, Blackhole blackhole){
+        blackhole.consume(state.battleship.isSunk());
+        blackhole.consume(state.submarine.isSunk());
+    }
+
+    @Benchmark
+    public void print(Printing state){
+        state.ocean.print();
+    }
+
+    @Benchmark
+    public void printWithShips(Printing state){
+        state.ocean.printWithShips();
+    }
+
+    @Benchmark
+    public int fullGame(Game state){
+        state.ocean.reset();
+        state.chart.reset();
+        state.shooter.reset();
+        state.ocean.placeAllShipsRandomly();
+        while (!state.ocean.isGameOver()){
+            state.chart.fireAt(state.ocean, state.shooter.nextShot(state.chart));
+        }
+        return state.ocean.getShotsFired();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,134 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the scalar and Vector API heatmap kernels, on the work of the first move
+ * of a standard game (every footprint of the standard fleet possible), and of a whole
+ * DensityShooter move on a chart part way through a game.
+ *
+ * The forked JVM gets the jdk.incubator.vector module, so both kernels can run; the
+ * benchmarks module compiles this class and VectorHeatmapKernel with it too. Otherwise run it
+ * the same way as EngineBenchmark; its JMH output, with the gc profiler, is in
+ * benchmarks/heatmap-baseline.txt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class HeatmapBenchmark {
+
+    /**
+     * Which kernel to measure
+     */
+    @Param({"scalar", "vector"})
+    String kernel;
+
+    /**
+     * The kernel measured
+     */
+    HeatmapKernel heatmap;
+
+    /**
+     * Every footprint of every length of the standard board, weighted by the number of
+     * ships of that length in the standard fleet
+     */
+    long[] cellsLo;
+    long[] cellsHi;
+    long[] weights;
+    int count;
+
+    /**
+     * Per-cell weights of the first move
+     */
+    long[] density = new long[128];
+
+    /**
+     * A chart with a third of the cells fired upon and a density shooter to play it
+     */
+    SeaChart chart;
+    DensityShooter shooter;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.heatmap = this.kernel.equals("vector") ? HeatmapKernels.vector() : HeatmapKernels.scalar();
+        if (this.heatmap == null){
+            throw new IllegalStateException("The Vector API kernel is not available");
+        }
+
+        PlacementTable table = PlacementTable.STANDARD;
+        int[] ships = {0, 4, 3, 2, 1};
+        int most = 0;
+        for (int length = 1; length <= 4; length++){
+            most += table.footprints(length);
+        }
+        this.cellsLo = new long[most];
+        this.cellsHi = new long[most];
+        this.weights = new long[most];
+        for (int length = 1; length <= 4; length++){
+            for (int f = 0; f < table.footprints(length); f++){
+                this.cellsLo[this.count] = table.cellsLo(length, f);
+                this.cellsHi[this.count] = table.cellsHi(length, f);
+                this.weights[this.count] = ships[length];
+                this.count++;
+            }
+        }
+
+        this.heatmap.accumulate(this.density, this.cellsLo, this.cellsHi, this.weights, this.count);
+
+        // fire at every third cell of a known ocean
+        Ocean ocean = new Ocean();
+        new Battleship().placeShipAt(0, 3, true, ocean);
+        new Cruiser().placeShipAt(4, 9, false, ocean);
+        this.chart = new SeaChart();
+        for (int cell = 0; cell < 100; cell += 3){
+            this.chart.fireAt(ocean, cell);
+        }
+        this.shooter = new DensityShooter(this.heatmap, null);
+    }
+
+    @Benchmark
+    public long[] accumulate(){
+        Arrays.fill(this.density, 0);
+        this.heatmap.accumulate(this.density, this.cellsLo, this.cellsHi, this.weights, this.count);
+        return this.density;
+    }
+
+    @Benchmark
+    public int maskAndArgmax(){
+        this.heatmap.maskShots(this.density, this.chart.shotLo(), this.chart.shotHi());
+        return this.heatmap.argmax(this.density, 100);
+    }
+
+    @Benchmark
+    public int densityShot(){
+        return this.shooter.nextShot(this.chart);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HeatmapBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
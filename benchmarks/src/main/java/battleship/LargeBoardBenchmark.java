@@ -0,0 +1,154 @@
+package battleship;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks of the per-operation cost of placing, firing and checking for the end of
+ * the game on oceans of growing size, each holding one standard fleet per 1,000 cells (10,000
+ * ships on the 1,000 x 1,000 ocean), both dense and sparse. The time of each operation should
+ * not grow with the size.
+ *
+ * Run it the same way as EngineBenchmark; its JMH output, with the gc profiler, is in
+ * benchmarks/large-board-baseline.txt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LargeBoardBenchmark {
+
+    /**
+     * Number of rows and columns of the ocean
+     */
+    @Param({"10", "100", "1000"})
+    int size;
+
+    /**
+     * Whether the ocean keeps its cells in a SparseCellStore
+     */
+    @Param({"false", "true"})
+    boolean sparse;
+
+    /**
+     * An ocean with its fleet placed
+     */
+    Ocean ocean;
+
+    /**
+     * An empty ship used to check placements
+     */
+    Ship ship;
+
+    /**
+     * Random cells to fire at or place on, used in turn
+     */
+    int[] cells;
+
+    /**
+     * Position of the next cell to use
+     */
+    int next;
+
+    /**
+     * A cell holding part of a ship that is not sunk
+     */
+    int hitCell;
+
+    /**
+     * A cell holding no ship
+     */
+    int missCell;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        int fleets = Math.max(1, this.size * this.size / 1000);
+        this.ocean = new Ocean(BoardConfig.withStandardFleets(this.size, this.size, fleets), this.sparse);
+        this.ocean.placeAllShipsRandomly();
+        this.ship = new Cruiser();
+
+        Random random = new Random(42);
+        this.cells = new int[4096];
+        for (int i = 0; i < this.cells.length; i++){
+            this.cells[i] = random.nextInt(this.size * this.size);
+        }
+
+        // find a ship cell and an empty cell for the fixed-cell benchmarks
+        this.hitCell = -1;
+        this.missCell = -1;
+        for (int cell = 0; cell < this.size * this.size; cell++){
+            boolean occupied = this.ocean.isOccupied(cell / this.size, cell % this.size);
+            if (occupied && this.hitCell < 0){
+                this.hitCell = cell;
+            }else if (!occupied && this.missCell < 0){
+                this.missCell = cell;
+            }
+        }
+
+        // hit the ship at the hit cell once, so it is the other parts that keep it afloat
+        this.ocean.shootAt(this.hitCell / this.size, this.hitCell % this.size);
+    }
+
+    /**
+     * Moves on to the next random cell
+     */
+    private int nextCell(){
+        this.next = (this.next + 1) & (this.cells.length - 1);
+        return this.cells[this.next];
+    }
+
+    @Benchmark
+    public boolean okToPlaceShipAt(){
+        int cell = nextCell();
+        return this.ship.okToPlaceShipAt(cell / this.size, cell % this.size, (cell & 1) == 0, this.ocean);
+    }
+
+    @Benchmark
+    public boolean shootAtHit(){
+        return this.ocean.shootAt(this.hitCell / this.size, this.hitCell % this.size);
+    }
+
+    @Benchmark
+    public boolean shootAtMiss(){
+        return this.ocean.shootAt(this.missCell / this.size, this.missCell % this.size);
+    }
+
+    @Benchmark
+    public boolean shootAtRandomCell(){
+        int cell = nextCell();
+        return this.ocean.shootAt(cell / this.size, cell % this.size);
+    }
+
+    @Benchmark
+    public boolean isGameOver(){
+        return this.ocean.isGameOver();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LargeBoardBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,124 @@
+package battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Measures how much heap an ocean with its fleet placed takes, for the three ways an ocean can
+ * hold its cells: a dense ocean whose Ship[][] array has been built (one EmptySea per empty
+ * cell, the original layout), a dense ocean that never built the array (an int per cell), and
+ * a sparse ocean (entries for the ship cells only). Each ocean also has one bit per cell for
+ * the shots fired.
+ *
+ * It then compares the standard game kept in an OffHeapOceanStore: heap per game (close to
+ * 0) and direct memory per game.
+ *
+ * Heap use is read from Runtime after garbage collection, before and after building a number of
+ * identical oceans, so the figures are approximate.
+ *
+ * Usage: OceanMemoryFootprint [size...]
+ * Each size is the number of rows and columns. Every size is measured with one standard fleet
+ * per 1,000 cells, and with a single standard fleet. The standard game is measured last,
+ * whatever the sizes.
+ *
+ * It is packaged with the JMH benchmarks, though it is not one; benchmarks/ocean-memory.txt is
+ * the output of
+ * "java -Xmx2g -cp benchmarks/target/benchmarks.jar battleship.OceanMemoryFootprint 10 100 1000 2000".
+ */
+public class OceanMemoryFootprint {
+
+    /**
+     * Method to get the heap in use after a full garbage collection
+     * @return bytes of heap in use
+     */
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+
+        // collect a few times, since one call does not always finish the job
+        for (int i = 0; i < 5; i++){
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Measures the average heap taken by oceans of one kind
+     * @param config size and fleet of the oceans
+     * @param sparse true for sparse oceans
+     * @param shipArray true to build each ocean's Ship[][] array
+     * @param copies number of oceans to build and average over
+     * @return bytes per ocean
+     */
+    static long bytesPerOcean(BoardConfig config, boolean sparse, boolean shipArray, int copies){
+        Ocean[] oceans = new Ocean[copies];
+        long before = usedHeap();
+        for (int i = 0; i < copies; i++){
+            oceans[i] = new Ocean(config, sparse);
+            oceans[i].placeAllShipsRandomly();
+            if (shipArray){
+                oceans[i].getShipArray();
+            }
+        }
+        long after = usedHeap();
+
+        // keep the oceans reachable until they have been measured
+        if (oceans[copies - 1].getShotsFired() != 0){
+            throw new IllegalStateException();
+        }
+        return (after - before) / copies;
+    }
+
+    /**
+     * Measures the heap and direct memory taken per game by a store of standard games
+     * @param games number of games to add to the store
+     * @return heap bytes per game and direct memory bytes per game
+     */
+    static long[] bytesPerStoredGame(int games){
+        long before = usedHeap();
+        OffHeapOceanStore store = new OffHeapOceanStore();
+        SplittableRandom random = new SplittableRandom(591);
+        for (int i = 0; i < games; i++){
+            store.placeAllShipsRandomly(store.add(), random);
+        }
+        long after = usedHeap();
+
+        // keep the store reachable until it has been measured
+        if (store.size() != games){
+            throw new IllegalStateException();
+        }
+        return new long[]{(after - before) / games, store.offHeapBytes() / games};
+    }
+
+    public static void main(String[] args){
+        String[] sizes = args.length > 0 ? args : new String[]{"100", "1000"};
+
+        System.out.printf("%8s %8s %18s %18s %18s%n", "size", "ships", "Ship[][] array", "dense", "sparse");
+        for (String arg : sizes){
+            int size = Integer.parseInt(arg);
+
+            // a crowded ocean with a fleet per 1,000 cells, and a nearly empty one with a single fleet
+            int[] fleets = {Math.max(1, size * size / 1000), 1};
+            for (int i = 0; i < fleets.length && (i == 0 || fleets[0] > 1); i++){
+                BoardConfig config = BoardConfig.withStandardFleets(size, size, fleets[i]);
+
+                // fewer copies of the large oceans, so they fit in the heap
+                int copies = Math.max(1, 4_000_000 / (size * size));
+                long array = bytesPerOcean(config, false, true, copies);
+                long dense = bytesPerOcean(config, false, false, copies);
+                long sparse = bytesPerOcean(config, true, false, copies);
+
+                System.out.printf("%8d %8d %18d %18d %18d%n", size, config.getFleetSize(), array, dense, sparse);
+            }
+        }
+
+        // the standard game, on the heap and off it
+        int games = 1_000_000;
+        long array = bytesPerOcean(BoardConfig.STANDARD, false, true, 100_000);
+        long[] stored = bytesPerStoredGame(games);
+        System.out.printf("%nstandard game, bytes per game%n%-32s %10d%n%-32s %10d%n%-32s %10d%n",
+                "Ocean with Ship[][] array", array,
+                "OffHeapOceanStore, heap", stored[0],
+                "OffHeapOceanStore, direct", stored[1]);
+    }
+}
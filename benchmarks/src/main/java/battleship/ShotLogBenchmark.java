@@ -0,0 +1,108 @@
+package battleship;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of replaying a shot log: GAMES standard games, each firing at the cells of the
+ * ocean in its own random order until its fleet is sunk, are logged once, and one operation
+ * replays the whole log into a reused Ocean. Divide by the number of shots (about 95 per game)
+ * for the time per event.
+ *
+ * Run it the same way as EngineBenchmark; its JMH output, with the gc profiler, is in
+ * benchmarks/shot-log-baseline.txt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShotLogBenchmark {
+
+    /**
+     * Number of games in the log
+     */
+    static final int GAMES = 1000;
+
+    /**
+     * The log
+     */
+    ByteBuffer log;
+
+    /**
+     * Ocean the games are replayed into
+     */
+    Ocean ocean;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ShotLogWriter writer = new ShotLogWriter(Channels.newChannel(out))){
+            Ocean game = new Ocean();
+            int[] cells = new int[100];
+            for (int g = 0; g < GAMES; g++){
+                game.reset();
+                game.placeAllShipsRandomly();
+                writer.startGame(game);
+
+                // a random order of the 100 cells
+                for (int i = 0; i < 100; i++){
+                    cells[i] = i;
+                }
+                for (int i = 99; i > 0; i--){
+                    int j = random.nextInt(i + 1);
+                    int swap = cells[i];
+                    cells[i] = cells[j];
+                    cells[j] = swap;
+                }
+                for (int i = 0; !game.isGameOver(); i++){
+                    game.shootAt(cells[i] / 10, cells[i] % 10);
+                }
+            }
+        }
+        this.log = ByteBuffer.wrap(out.toByteArray());
+        this.ocean = new Ocean();
+    }
+
+    @Benchmark
+    public int replay(){
+        this.log.rewind();
+        ShotLogReader reader = new ShotLogReader(this.log);
+        int shots = 0;
+        for (int replayed; (replayed = reader.replayGame(this.ocean)) >= 0; ){
+            shots += replayed;
+        }
+        return shots;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ShotLogBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
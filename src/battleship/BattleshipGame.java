@@ -41,7 +41,7 @@ public class BattleshipGame {
             }
 
             // get ship we just shot at
-            Ship ship = ocean.getShipArray()[row][column];
+            Ship ship = ocean.getShipAt(row, column);
             // if it is sunk then print what type was sunk
             if (ship.isSunk() == true) {
                 System.out.println("You just sunk a " + ship.getShipType() + "!");
@@ -53,6 +53,42 @@ public class BattleshipGame {
         System.out.println("Nice job, you won in " + ocean.getShotsFired() + " shots!");
     }
 
+    /**
+     * Lets the computer play a game on its own. It creates a new ocean, places ships, and asks
+     * the shooter where to fire until all ships are sunk, printing each shot.
+     * @param shooter computer player choosing the shots
+     */
+    private static void computerLoop(Shooter shooter) {
+
+        // create a new blank ocean and randomly place ships
+        Ocean ocean = new Ocean();
+        ocean.placeAllShipsRandomly();
+
+        // the shooter only gets to see the results of its shots
+        SeaChart chart = new SeaChart();
+
+        while (!ocean.isGameOver()) {
+
+            // let the computer choose a cell, then fire at it
+            int cell = shooter.nextShot(chart);
+            int row = cell / 10;
+            int column = cell % 10;
+            boolean hit = chart.fireAt(ocean, cell);
+
+            System.out.print("Shot number " + ocean.getShotsFired() + " at " + row + ", " + column + ": ");
+            System.out.println(hit ? "Hit!" : "Miss!");
+
+            // if it is sunk then print what type was sunk
+            Ship ship = ocean.getShipAt(row, column);
+            if (hit && ship.isSunk()) {
+                System.out.println("The computer sunk a " + ship.getShipType() + "!");
+            }
+        }
+        // display final board
+        ocean.print();
+        System.out.println("The computer won in " + ocean.getShotsFired() + " shots!");
+    }
+
     /**
      * Collects user input to determine what coordinates to shoot at.
      * @return int[] representing coordinates with row at index 0 and column at index 1
@@ -115,7 +151,13 @@ public class BattleshipGame {
 
         // print a welcome message and play the game loop
         System.out.println("Welcome to Battleship!");
-        gameLoop();
+
+        // with --computer, watch the computer play instead
+        if (args.length > 0 && args[0].equals("--computer")) {
+            computerLoop(new DensityShooter());
+        } else {
+            gameLoop();
+        }
 
     }
 
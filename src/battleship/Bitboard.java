@@ -0,0 +1,60 @@
+package battleship;
+
+/**
+ * A fixed-size set of ocean cells stored as the bits of an array of longs.
+ * Cell (row, column) of a board with the given number of columns has the index
+ * row * columns + column, so a standard 10 x 10 ocean fits in two longs (128 bits).
+ *
+ * None of the methods below allocate, so a Bitboard can be updated on every shot.
+ */
+final class Bitboard {
+
+    /**
+     * The words holding the bits, cell i lives in bit (i % 64) of word (i / 64)
+     */
+    private final long[] words;
+
+    /**
+     * Creates an empty bitboard large enough to hold the given number of cells
+     * @param cells number of cells on the board
+     */
+    Bitboard(int cells){
+        this.words = new long[(cells + 63) >>> 6];
+    }
+
+    /**
+     * Method to convert a row and column into a cell index
+     * @param row row of the cell
+     * @param column column of the cell
+     * @param columns number of columns on the board
+     * @return the cell index
+     */
+    static int index(int row, int column, int columns){
+        return row * columns + column;
+    }
+
+    /**
+     * Method to check whether a cell is in the set
+     * @param index cell index
+     * @return true if the cell is set, false otherwise
+     */
+    boolean get(int index){
+        return (this.words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Method to add a cell to the set
+     * @param index cell index
+     */
+    void set(int index){
+        this.words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Method to remove a cell from the set
+     * @param index cell index
+     */
+    void clear(int index){
+        this.words[index >>> 6] &= ~(1L << index);
+    }
+}
@@ -0,0 +1,167 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * The size of an ocean and the ships in its fleet. The standard game is a 10 x 10 ocean with
+ * 1 battleship, 2 cruisers, 3 destroyers and 4 submarines; other configurations may have any
+ * number of rows and columns and any number of ships of each of those four types.
+ *
+ * The fleet is kept longest ship first, which is the order the ships are placed in.
+ */
+public final class BoardConfig {
+
+    /**
+     * The standard 10 x 10 ocean with the standard fleet of 10 ships
+     */
+    public static final BoardConfig STANDARD = new BoardConfig(10, 10, Ocean.FLEET_LENGTHS);
+
+    /**
+     * Length of the longest ship type (a battleship)
+     */
+    static final int MAX_SHIP_LENGTH = 4;
+
+    /**
+     * Number of rows in the ocean
+     */
+    private final int rows;
+
+    /**
+     * Number of columns in the ocean
+     */
+    private final int columns;
+
+    /**
+     * Length of every ship in the fleet, longest first
+     */
+    private final int[] fleetLengths;
+
+    /**
+     * Creates a configuration
+     * @param rows number of rows in the ocean
+     * @param columns number of columns in the ocean
+     * @param fleetLengths length of every ship in the fleet, each between 1 and 4, in any order
+     */
+    public BoardConfig(int rows, int columns, int[] fleetLengths){
+        if (rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Unsupported ocean size " + rows + " x " + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+
+        // sort the fleet longest first
+        this.fleetLengths = fleetLengths.clone();
+        Arrays.sort(this.fleetLengths);
+        for (int i = 0, j = this.fleetLengths.length - 1; i < j; i++, j--){
+            int swap = this.fleetLengths[i];
+            this.fleetLengths[i] = this.fleetLengths[j];
+            this.fleetLengths[j] = swap;
+        }
+
+        for (int length : this.fleetLengths){
+            if (length < 1 || length > MAX_SHIP_LENGTH){
+                throw new IllegalArgumentException("No ship type has length " + length);
+            }
+            if (length > rows && length > columns){
+                throw new IllegalArgumentException("A ship of length " + length + " does not fit in the ocean");
+            }
+        }
+    }
+
+    /**
+     * Creates a configuration with the standard fleet repeated a number of times
+     * @param rows number of rows in the ocean
+     * @param columns number of columns in the ocean
+     * @param fleets number of standard fleets
+     * @return the configuration
+     */
+    public static BoardConfig withStandardFleets(int rows, int columns, int fleets){
+        int[] lengths = new int[fleets * Ocean.FLEET_LENGTHS.length];
+        for (int i = 0; i < lengths.length; i++){
+            lengths[i] = Ocean.FLEET_LENGTHS[i % Ocean.FLEET_LENGTHS.length];
+        }
+        return new BoardConfig(rows, columns, lengths);
+    }
+
+    /**
+     * Method to get the number of rows
+     * @return the number of rows in the ocean
+     */
+    public int getRows(){
+        return this.rows;
+    }
+
+    /**
+     * Method to get the number of columns
+     * @return the number of columns in the ocean
+     */
+    public int getColumns(){
+        return this.columns;
+    }
+
+    /**
+     * Method to get the number of cells
+     * @return rows times columns
+     */
+    public int getCells(){
+        return this.rows * this.columns;
+    }
+
+    /**
+     * Method to get the number of ships in the fleet
+     * @return the number of ships
+     */
+    public int getFleetSize(){
+        return this.fleetLengths.length;
+    }
+
+    /**
+     * Method to get the length of one ship of the fleet
+     * @param i position of the ship in the fleet, longest first
+     * @return the ship's length
+     */
+    public int getShipLength(int i){
+        return this.fleetLengths[i];
+    }
+
+    /**
+     * Method to get the lengths of all ships in the fleet
+     * @return a copy of the lengths, longest first
+     */
+    public int[] getFleetLengths(){
+        return this.fleetLengths.clone();
+    }
+
+    /**
+     * Method to check whether this is the standard game
+     * @return true for a 10 x 10 ocean with the standard fleet
+     */
+    public boolean isStandard(){
+        return this.rows == 10 && this.columns == 10 && Arrays.equals(this.fleetLengths, Ocean.FLEET_LENGTHS);
+    }
+
+    /**
+     * Creates a new ship of the type that has the given length
+     * @param length ship length, between 1 and 4
+     * @return a battleship, cruiser, destroyer or submarine
+     */
+    static Ship createShip(int length){
+        switch (length){
+            case 4:
+                return new Battleship();
+            case 3:
+                return new Cruiser();
+            case 2:
+                return new Destroyer();
+            case 1:
+                return new Submarine();
+            default:
+                throw new IllegalArgumentException("No ship type has length " + length);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return this.rows + " x " + this.columns + " ocean with " + this.fleetLengths.length + " ships";
+    }
+}
@@ -0,0 +1,144 @@
+package battleship;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless tool that generates random fleet layouts in bulk, without building Ocean objects.
+ *
+ * Every layout is written as RECORD_BYTES bytes, one per ship of the standard fleet in the
+ * order of Ocean.FLEET_LENGTHS: the low 7 bits hold the bow cell (row * 10 + column) and the
+ * high bit is set if the ship is horizontal.
+ *
+ * Usage: BoardGenerator count [output-file | -] [seed]
+ * With no output file, or "-", layouts go to standard output. The boards-per-second figure
+ * is printed to standard error so it never mixes with the layouts.
+ */
+public class BoardGenerator {
+
+    /**
+     * Number of bytes used to store one layout
+     */
+    static final int RECORD_BYTES = Ocean.FLEET_LENGTHS.length;
+
+    /**
+     * Number of layouts a worker collects before writing them out in one go
+     */
+    private static final int BATCH_BOARDS = 4096;
+
+    /**
+     * Encodes a layout drawn by PlacementTable.drawLayout into its record bytes
+     * @param table table the footprints refer to
+     * @param layout footprint number for each ship of the standard fleet
+     * @param out buffer to write the record to
+     */
+    static void encodeLayout(PlacementTable table, int[] layout, ByteBuffer out){
+        for (int ship = 0; ship < layout.length; ship++){
+            int length = Ocean.FLEET_LENGTHS[ship];
+            int footprint = layout[ship];
+            int bow = Bitboard.index(table.bowRow(length, footprint), table.bowColumn(length, footprint),
+                    table.getColumns());
+            out.put((byte) (table.isHorizontal(length, footprint) ? bow | 0x80 : bow));
+        }
+    }
+
+    /**
+     * Generates layouts on every core and writes them to the given channel.
+     *
+     * Each worker has its own random stream split from the given one, and keeps its own
+     * scratch arrays and output buffer for the whole run, so generating a layout allocates
+     * nothing. Workers only synchronize to hand a full batch to the channel.
+     *
+     * @param count number of layouts to generate
+     * @param random random stream the workers' streams are split from
+     * @param channel where the layouts are written
+     * @param threads number of worker threads
+     * @throws IOException if writing fails
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    static void generate(long count, SplittableRandom random, WritableByteChannel channel, int threads)
+            throws IOException, InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++){
+
+            // split the work evenly, the first workers take one more layout if it doesn't divide
+            long share = count / threads + (t < count % threads ? 1 : 0);
+            SplittableRandom workerRandom = random.split();
+
+            workers.add(pool.submit(() -> {
+                PlacementTable table = PlacementTable.STANDARD;
+                int[] scratch = new int[table.maxFootprints()];
+                int[] layout = new int[Ocean.FLEET_LENGTHS.length];
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_BOARDS * RECORD_BYTES);
+
+                for (long done = 0; done < share; done++){
+                    table.drawLayout(Ocean.FLEET_LENGTHS, workerRandom, scratch, layout);
+                    encodeLayout(table, layout, buffer);
+                    if (!buffer.hasRemaining() || done == share - 1){
+                        buffer.flip();
+                        synchronized (channel){
+                            while (buffer.hasRemaining()){
+                                channel.write(buffer);
+                            }
+                        }
+                        buffer.clear();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        pool.shutdown();
+        try {
+            for (Future<?> worker : workers){
+                worker.get();
+            }
+        }catch (ExecutionException e){
+            // pass on the worker's own failure
+            if (e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        if (args.length < 1){
+            System.err.println("Usage: BoardGenerator count [output-file | -] [seed]");
+            return;
+        }
+
+        long count = Long.parseLong(args[0]);
+        boolean toStdout = args.length < 2 || args[1].equals("-");
+        SplittableRandom random = args.length < 3 ? new SplittableRandom() : new SplittableRandom(Long.parseLong(args[2]));
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        try (WritableByteChannel channel = toStdout
+                ? Channels.newChannel(System.out)
+                : new FileOutputStream(args[1]).getChannel()){
+            generate(count, random, channel, threads);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // report throughput on standard error so it doesn't end up in the layout stream
+        System.err.printf("Generated %d boards on %d threads in %.3f s (%.0f boards/s)%n",
+                count, threads, seconds, count / seconds);
+    }
+}
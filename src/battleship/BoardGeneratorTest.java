@@ -0,0 +1,80 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class BoardGeneratorTest {
+
+    /**
+     * Decodes one record and places its ships, one by one, in an empty ocean, checking each
+     * one is a legal placement there (inside the ocean, not touching the ships before it)
+     * @param records the records
+     * @param offset where the record starts
+     */
+    private void assertLegalFleet(byte[] records, int offset){
+        Ocean ocean = new Ocean();
+        for (int i = 0; i < BoardGenerator.RECORD_BYTES; i++){
+            int bow = records[offset + i] & 0x7F;
+            boolean horizontal = (records[offset + i] & 0x80) != 0;
+            Ship ship = BoardConfig.createShip(Ocean.FLEET_LENGTHS[i]);
+            assertTrue(bow < 100, "bow outside the ocean: " + bow);
+            assertTrue(ship.okToPlaceShipAt(bow / 10, bow % 10, horizontal, ocean),
+                    "ship " + i + " at " + bow + (horizontal ? " horizontal" : " vertical") + " cannot go there");
+            ship.placeShipAt(bow / 10, bow % 10, horizontal, ocean);
+        }
+
+        // ten ships covering twenty cells
+        int occupied = 0;
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                occupied += ocean.isOccupied(r, c) ? 1 : 0;
+            }
+        }
+        assertEquals(20, occupied);
+    }
+
+    @Test
+    void testEncodedLayoutsAreLegalFleets() {
+
+        PlacementTable table = PlacementTable.STANDARD;
+        SplittableRandom random = new SplittableRandom(591);
+        int[] scratch = new int[table.maxFootprints()];
+        int[] layout = new int[Ocean.FLEET_LENGTHS.length];
+        ByteBuffer buffer = ByteBuffer.allocate(BoardGenerator.RECORD_BYTES);
+
+        for (int board = 0; board < 2000; board++){
+            table.drawLayout(Ocean.FLEET_LENGTHS, random, scratch, layout);
+            buffer.clear();
+            BoardGenerator.encodeLayout(table, layout, buffer);
+            assertFalse(buffer.hasRemaining());
+            assertLegalFleet(buffer.array(), 0);
+        }
+    }
+
+    @Test
+    void testGeneratedLayoutsAreLegalFleets() throws IOException, InterruptedException {
+
+        // two workers, each writing more than one batch
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = 10_001;
+        BoardGenerator.generate(count, new SplittableRandom(7), Channels.newChannel(out), 2);
+        byte[] records = out.toByteArray();
+        assertEquals(count * BoardGenerator.RECORD_BYTES, records.length);
+
+        Set<ByteBuffer> distinct = new HashSet<>();
+        for (int offset = 0; offset < records.length; offset += BoardGenerator.RECORD_BYTES){
+            assertLegalFleet(records, offset);
+            distinct.add(ByteBuffer.wrap(records, offset, BoardGenerator.RECORD_BYTES));
+        }
+        assertTrue(distinct.size() > count * 99 / 100, distinct.size() + " distinct layouts");
+    }
+}
@@ -0,0 +1,48 @@
+package battleship;
+
+/**
+ * Where an Ocean keeps what it knows about each cell: which ship, if any, occupies it, and
+ * whether it has been fired upon. Cells are numbered row * columns + column and ships by their
+ * position in the ocean's fleet.
+ *
+ * DenseCellStore keeps an entry for every cell, which is fastest on small oceans;
+ * SparseCellStore keeps entries only for the cells ships occupy, so an empty cell costs one bit
+ * for its shots, which is what large, mostly empty oceans need; TiledCellStore splits the ocean
+ * into tiles that exist only once something happens in them, and can move cold tiles out of
+ * the heap, for maps too large for even a bit per cell.
+ */
+interface CellStore {
+
+    /**
+     * Method to get the ship occupying a cell
+     * @param cell cell index
+     * @return the ship's position in the fleet, or -1 if the cell is empty
+     */
+    int shipAt(int cell);
+
+    /**
+     * Records that a ship occupies a cell
+     * @param cell cell index
+     * @param ship the ship's position in the fleet
+     */
+    void put(int cell, int ship);
+
+    /**
+     * Method to check whether a cell has been fired upon
+     * @param cell cell index
+     * @return true if the cell has been fired upon at least once
+     */
+    boolean isShot(int cell);
+
+    /**
+     * Records that a cell has been fired upon
+     * @param cell cell index
+     */
+    void shoot(int cell);
+
+    /**
+     * Forgets every ship and every shot, so the store can be used for a new game, in time that
+     * depends on the cells used since the last clear() and not on the size of the ocean
+     */
+    void clear();
+}
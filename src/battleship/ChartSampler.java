@@ -0,0 +1,131 @@
+package battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws layouts of the ships still afloat that agree with a SeaChart, for the shooters that
+ * reason over sampled layouts.
+ *
+ * A sample places the remaining ships with the rules of Ship.okToPlaceShipAt (the fleet of
+ * Ocean.placeAllShipsRandomly minus the ships already sunk): first a ship through every hit
+ * that isn't explained yet, then the rest wherever they fit. Ships never cover a miss, a sunk
+ * ship or the cells around a sunk ship, and a ship through a hit always has a cell not shot
+ * yet, as one hit in full would have been sunk. A sample that gets stuck is thrown away.
+ *
+ * A sampler has its own random stream and scratch arrays, so give each thread its own.
+ */
+final class ChartSampler {
+
+    /**
+     * Footprints of the standard board
+     */
+    private final PlacementTable table = PlacementTable.STANDARD;
+
+    /**
+     * Source of randomness
+     */
+    private SplittableRandom random;
+
+    /**
+     * Per ship length, the ships still to place in the current sample
+     */
+    private final int[] left = new int[5];
+
+    /**
+     * Footprints a ship may take through an unexplained hit: length and footprint
+     */
+    private final int[] candidateLength;
+    private final int[] candidateFootprint;
+
+    /**
+     * Creates a sampler
+     * @param random source of randomness, used by this sampler only
+     */
+    ChartSampler(SplittableRandom random){
+        this.random = random;
+        int most = 4 * this.table.maxFootprints();
+        this.candidateLength = new int[most];
+        this.candidateFootprint = new int[most];
+    }
+
+    /**
+     * Method to replace the sampler's source of randomness, to reseed it
+     * @param random source of randomness, used by this sampler only
+     */
+    void setRandom(SplittableRandom random){
+        this.random = random;
+    }
+
+    /**
+     * Draws one layout of the remaining ships
+     * @param chart what is known about the ocean
+     * @param lengths receives the length of every ship placed, at least chart.shipsLeft() long
+     * @param footprints receives the footprint (in PlacementTable.STANDARD) of every ship placed
+     * @return the number of ships placed, chart.shipsLeft(), or -1 if the attempt got stuck
+     */
+    int draw(SeaChart chart, int[] lengths, int[] footprints){
+        long blockedLo = chart.blockedLo();
+        long blockedHi = chart.blockedHi();
+        long uncoveredLo = chart.hitLo();
+        long uncoveredHi = chart.hitHi();
+        for (int length = 1; length <= 4; length++){
+            this.left[length] = chart.remaining(length);
+        }
+        int placed = 0;
+
+        // first put a ship through every hit that no ship covers yet
+        while ((uncoveredLo | uncoveredHi) != 0){
+            int hit = uncoveredLo != 0 ? Long.numberOfTrailingZeros(uncoveredLo)
+                    : 64 + Long.numberOfTrailingZeros(uncoveredHi);
+            int candidates = 0;
+            for (int length = 1; length <= 4; length++){
+                if (this.left[length] == 0){
+                    continue;
+                }
+                for (int f : this.table.footprintsThrough(length, hit)){
+                    long lo = this.table.cellsLo(length, f);
+                    long hi = this.table.cellsHi(length, f);
+
+                    // a ship whose every cell is hit would have been sunk already
+                    if ((lo & blockedLo) == 0 && (hi & blockedHi) == 0
+                            && ((lo & ~chart.shotLo()) | (hi & ~chart.shotHi())) != 0){
+                        this.candidateLength[candidates] = length;
+                        this.candidateFootprint[candidates] = f;
+                        candidates++;
+                    }
+                }
+            }
+            if (candidates == 0){
+                return -1;
+            }
+            int pick = this.random.nextInt(candidates);
+            int length = this.candidateLength[pick];
+            int f = this.candidateFootprint[pick];
+            blockedLo |= this.table.haloLo(length, f);
+            blockedHi |= this.table.haloHi(length, f);
+            uncoveredLo &= ~this.table.cellsLo(length, f);
+            uncoveredHi &= ~this.table.cellsHi(length, f);
+            this.left[length]--;
+            lengths[placed] = length;
+            footprints[placed] = f;
+            placed++;
+        }
+
+        // then the other ships, largest first, anywhere they fit
+        for (int length = 4; length >= 1; length--){
+            for (; this.left[length] > 0; this.left[length]--){
+                int candidates = this.table.fitting(length, blockedLo, blockedHi, this.candidateFootprint);
+                if (candidates == 0){
+                    return -1;
+                }
+                int f = this.candidateFootprint[this.random.nextInt(candidates)];
+                blockedLo |= this.table.haloLo(length, f);
+                blockedHi |= this.table.haloHi(length, f);
+                lengths[placed] = length;
+                footprints[placed] = f;
+                placed++;
+            }
+        }
+        return placed;
+    }
+}
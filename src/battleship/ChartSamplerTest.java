@@ -0,0 +1,93 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class ChartSamplerTest {
+
+    /**
+     * Draws samples for a chart and checks every one could be the fleet: the ships still
+     * afloat, not touching each other, covering every hit and nothing blocked, and none of
+     * them hit in full
+     * @return the number of samples drawn
+     */
+    private int checkSamples(SeaChart chart, int attempts, long seed){
+        PlacementTable table = PlacementTable.STANDARD;
+        ChartSampler sampler = new ChartSampler(new SplittableRandom(seed));
+        int[] lengths = new int[10];
+        int[] footprints = new int[10];
+        int drawn = 0;
+        for (int attempt = 0; attempt < attempts; attempt++){
+            int ships = sampler.draw(chart, lengths, footprints);
+            if (ships < 0){
+                continue;
+            }
+            drawn++;
+            assertEquals(chart.shipsLeft(), ships);
+            int[] left = new int[5];
+            long coveredLo = 0;
+            long coveredHi = 0;
+            long haloLo = 0;
+            long haloHi = 0;
+            for (int i = 0; i < ships; i++){
+                int length = lengths[i];
+                long lo = table.cellsLo(length, footprints[i]);
+                long hi = table.cellsHi(length, footprints[i]);
+                left[length]++;
+                assertEquals(0, (lo & (chart.blockedLo() | haloLo)) | (hi & (chart.blockedHi() | haloHi)));
+                assertTrue(((lo & ~chart.shotLo()) | (hi & ~chart.shotHi())) != 0, "a ship is hit in full");
+                coveredLo |= lo;
+                coveredHi |= hi;
+                haloLo |= table.haloLo(length, footprints[i]);
+                haloHi |= table.haloHi(length, footprints[i]);
+            }
+            assertEquals(0, (chart.hitLo() & ~coveredLo) | (chart.hitHi() & ~coveredHi));
+            for (int length = 1; length <= 4; length++){
+                assertEquals(chart.remaining(length), left[length]);
+            }
+        }
+        return drawn;
+    }
+
+    @Test
+    void testNoShipIsHitInFull() {
+
+        // a lone hit: no submarine may sit on it, as it would have been sunk
+        Ocean ocean = new Ocean();
+        new Cruiser().placeShipAt(4, 2, false, ocean);
+        SeaChart chart = new SeaChart();
+        chart.fireAt(ocean, 32);
+        assertTrue(checkSamples(chart, 20_000, 591) > 0);
+
+        // two hits side by side: no destroyer may cover just those two
+        ocean = new Ocean();
+        new Battleship().placeShipAt(5, 7, true, ocean);
+        chart = new SeaChart();
+        chart.fireAt(ocean, 54);
+        chart.fireAt(ocean, 55);
+        assertTrue(checkSamples(chart, 20_000, 7) > 0);
+    }
+
+    @Test
+    void testSamplesAgreeWithPlayedCharts() {
+
+        // charts part way through random games, with misses, hits and sunk ships
+        SplittableRandom random = new SplittableRandom(42);
+        for (int game = 0; game < 20; game++){
+            Ocean ocean = new Ocean();
+            ocean.placeAllShipsRandomly(random);
+            SeaChart chart = new SeaChart();
+            int shots = 20 + random.nextInt(50);
+            for (int i = 0; i < shots; i++){
+                int cell = random.nextInt(100);
+                if (!chart.isShot(cell)){
+                    chart.fireAt(ocean, cell);
+                }
+            }
+            checkSamples(chart, 500, game);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package battleship;
+
+/**
+ * A CellStore with one int per cell for the ships and a bit per cell for the shots, for oceans
+ * where that is affordable. It also lists the cells it has used, so clear() only visits those.
+ */
+final class DenseCellStore implements CellStore {
+
+    /**
+     * For every cell, one more than the position in the fleet of the ship occupying it, or 0
+     * if the cell is empty
+     */
+    private final int[] ships;
+
+    /**
+     * Cells that have been fired upon at least once
+     */
+    private final Bitboard shots;
+
+    /**
+     * Cells given a ship or fired upon since the last clear(), each at most once, so clear()
+     * only visits those
+     */
+    private final int[] touched;
+    private int touchedCount;
+
+    /**
+     * Creates a store in which every cell is empty
+     * @param cells number of cells in the ocean
+     */
+    DenseCellStore(int cells){
+        this.ships = new int[cells];
+        this.shots = new Bitboard(cells);
+        this.touched = new int[cells];
+    }
+
+    @Override
+    public int shipAt(int cell){
+        return this.ships[cell] - 1;
+    }
+
+    @Override
+    public void put(int cell, int ship){
+        if (this.ships[cell] == 0 && !this.shots.get(cell)){
+            this.touched[this.touchedCount++] = cell;
+        }
+        this.ships[cell] = ship + 1;
+    }
+
+    @Override
+    public boolean isShot(int cell){
+        return this.shots.get(cell);
+    }
+
+    @Override
+    public void shoot(int cell){
+        if (!this.shots.get(cell)){
+            if (this.ships[cell] == 0){
+                this.touched[this.touchedCount++] = cell;
+            }
+            this.shots.set(cell);
+        }
+    }
+
+    @Override
+    public void clear(){
+        for (int i = 0; i < this.touchedCount; i++){
+            this.ships[this.touched[i]] = 0;
+            this.shots.clear(this.touched[i]);
+        }
+        this.touchedCount = 0;
+    }
+}
@@ -0,0 +1,213 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * Computer shooter that fires at the cell most likely to hold a ship.
+ *
+ * For every ship length still afloat it counts the footprints from PlacementTable that are
+ * consistent with the chart: they cover no miss and no sunk ship or its halo, and they do not
+ * touch a hit they don't cover (that hit would belong to a ship touching this one). While some
+ * hit ship is not sunk yet, only footprints through the hits are counted, weighted heavily by
+ * the number of hits they explain. Each counted footprint adds its weight to every cell it
+ * covers, and the unshot cell with the highest total is chosen.
+ *
+ * The counted footprints are gathered first and added up by a HeatmapKernel, which also rules
+ * out the shot cells and finds the highest total.
+ *
+ * The choice depends only on what the chart shows, so shooters may share a TranspositionTable
+ * of the shots already chosen, looked up by the chart's Zobrist hash.
+ *
+ * Misses and sinkings only ever rule footprints out, so the shooter keeps per-length lists of
+ * the footprints still possible and shortens them when the chart's blocked cells change,
+ * rather than scanning the whole table on every move.
+ */
+final class DensityShooter implements Shooter {
+
+    /**
+     * Weight multiplier for each hit a footprint covers while targeting
+     */
+    private static final int HIT_WEIGHT_SHIFT = 4;
+
+    /**
+     * Footprints of the standard board
+     */
+    private final PlacementTable table = PlacementTable.STANDARD;
+
+    /**
+     * Per ship length, the footprints not yet ruled out by blocked cells
+     */
+    private final int[][] possible = new int[5][];
+
+    /**
+     * Per ship length, how many entries of possible are in use
+     */
+    private final int[] possibleCount = new int[5];
+
+    /**
+     * The blocked cells 0-63 possible was last filtered with
+     */
+    private long filteredLo;
+
+    /**
+     * The blocked cells 64-127 possible was last filtered with
+     */
+    private long filteredHi;
+
+    /**
+     * Accumulated weight of every cell, reused between moves
+     */
+    private final long[] density = new long[128];
+
+    /**
+     * Adds up the footprints and finds the best cell
+     */
+    private final HeatmapKernel kernel;
+
+    /**
+     * Shots already chosen for charts, by state hash, or null to work out every shot
+     */
+    private final TranspositionTable<Integer> cache;
+
+    /**
+     * The footprints counted in the current move: cells 0-63, cells 64-127 and weight
+     */
+    private final long[] countedLo;
+    private final long[] countedHi;
+    private final long[] countedWeight;
+
+    /**
+     * Creates a shooter for a new game, using the kernel chosen at start-up
+     */
+    DensityShooter(){
+        this(HeatmapKernels.selected(), null);
+    }
+
+    /**
+     * Creates a shooter for a new game that shares the shots it chooses with other shooters,
+     * using the kernel chosen at start-up
+     * @param cache table of shots chosen so far, which may be shared between threads
+     */
+    DensityShooter(TranspositionTable<Integer> cache){
+        this(HeatmapKernels.selected(), cache);
+    }
+
+    /**
+     * Creates a shooter for a new game
+     * @param kernel kernel that adds up the footprints
+     * @param cache table of shots chosen so far, or null
+     */
+    DensityShooter(HeatmapKernel kernel, TranspositionTable<Integer> cache){
+        this.kernel = kernel;
+        this.cache = cache;
+        int most = 0;
+        for (int length = 1; length <= 4; length++){
+            most += this.table.footprints(length);
+        }
+        this.countedLo = new long[most];
+        this.countedHi = new long[most];
+        this.countedWeight = new long[most];
+        for (int length = 1; length <= 4; length++){
+            this.possible[length] = new int[this.table.footprints(length)];
+        }
+        reset();
+    }
+
+    @Override
+    public void reset(){
+
+        // every footprint is possible again
+        for (int length = 1; length <= 4; length++){
+            int count = this.possible[length].length;
+            for (int f = 0; f < count; f++){
+                this.possible[length][f] = f;
+            }
+            this.possibleCount[length] = count;
+        }
+        this.filteredLo = 0;
+        this.filteredHi = 0;
+    }
+
+    @Override
+    public int nextShot(SeaChart chart){
+
+        // the same chart was seen before, by this shooter or another (checking the cell is
+        // unshot guards against two charts sharing a hash)
+        long hash = chart.getStateHash();
+        if (this.cache != null){
+            Integer cached = this.cache.get(hash);
+            if (cached != null && !chart.isShot(cached)){
+                return cached;
+            }
+        }
+
+        refresh(chart.blockedLo(), chart.blockedHi());
+
+        long hitLo = chart.hitLo();
+        long hitHi = chart.hitHi();
+        boolean targeting = (hitLo | hitHi) != 0;
+
+        int counted = 0;
+        for (int length = 1; length <= 4; length++){
+            int ships = chart.remaining(length);
+            if (ships == 0){
+                continue;
+            }
+            int[] footprints = this.possible[length];
+            for (int i = 0; i < this.possibleCount[length]; i++){
+                int f = footprints[i];
+                long cellsLo = this.table.cellsLo(length, f);
+                long cellsHi = this.table.cellsHi(length, f);
+
+                // a footprint touching a hit it doesn't cover would touch another ship
+                if ((this.table.haloLo(length, f) & hitLo & ~cellsLo) != 0
+                        || (this.table.haloHi(length, f) & hitHi & ~cellsHi) != 0){
+                    continue;
+                }
+
+                int covered = Long.bitCount(cellsLo & hitLo) + Long.bitCount(cellsHi & hitHi);
+                if (targeting && covered == 0){
+                    continue;
+                }
+                this.countedLo[counted] = cellsLo;
+                this.countedHi[counted] = cellsHi;
+                this.countedWeight[counted] = (long) ships << (HIT_WEIGHT_SHIFT * covered);
+                counted++;
+            }
+        }
+
+        // add up the footprints and take the unshot cell with the highest weight, or the first
+        // unshot cell if all weigh nothing
+        Arrays.fill(this.density, 0);
+        this.kernel.accumulate(this.density, this.countedLo, this.countedHi, this.countedWeight, counted);
+        this.kernel.maskShots(this.density, chart.shotLo(), chart.shotHi());
+        int best = this.kernel.argmax(this.density, SeaChart.SIZE * SeaChart.SIZE);
+        if (this.cache != null){
+            this.cache.put(hash, best, counted);
+        }
+        return best;
+    }
+
+    /**
+     * Drops the footprints that cover a blocked cell, if the blocked cells changed since last time
+     */
+    private void refresh(long blockedLo, long blockedHi){
+        if (blockedLo == this.filteredLo && blockedHi == this.filteredHi){
+            return;
+        }
+        for (int length = 1; length <= 4; length++){
+            int[] footprints = this.possible[length];
+            int kept = 0;
+            for (int i = 0; i < this.possibleCount[length]; i++){
+                int f = footprints[i];
+                if ((this.table.cellsLo(length, f) & blockedLo) == 0
+                        && (this.table.cellsHi(length, f) & blockedHi) == 0){
+                    footprints[kept++] = f;
+                }
+            }
+            this.possibleCount[length] = kept;
+        }
+        this.filteredLo = blockedLo;
+        this.filteredHi = blockedHi;
+    }
+}
@@ -0,0 +1,101 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DensityShooterTest {
+
+    Ocean ocean;
+    SeaChart chart;
+    DensityShooter shooter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ocean = new Ocean();
+        chart = new SeaChart();
+        shooter = new DensityShooter();
+    }
+
+    @Test
+    void testFirstShotIsNearTheCentre() {
+
+        // on an empty chart the middle of the board fits the most ships
+        int cell = shooter.nextShot(chart);
+        int row = cell / 10;
+        int column = cell % 10;
+        assertTrue(row >= 3 && row <= 6 && column >= 3 && column <= 6, "first shot at " + row + ", " + column);
+    }
+
+    @Test
+    void testFinishesAHitShip() {
+
+        // a lone horizontal destroyer with its bow at (5, 5)
+        Destroyer destroyer = new Destroyer();
+        destroyer.placeShipAt(5, 5, true, ocean);
+
+        // after hitting the bow, the next shots should stay next to the hit until the ship sinks
+        assertTrue(chart.fireAt(ocean, 55));
+        for (int shots = 0; shots < 4 && !destroyer.isSunk(); shots++){
+            int cell = shooter.nextShot(chart);
+            assertEquals(1, Math.abs(cell / 10 - 5) + Math.abs(cell % 10 - 5), "shot at " + cell + " is not next to the hit");
+            chart.fireAt(ocean, cell);
+        }
+        assertTrue(destroyer.isSunk());
+        assertEquals(2, chart.remaining(2));
+    }
+
+    @Test
+    void testPlaysFullGames() {
+
+        int totalShots = 0;
+        int games = 50;
+        for (int game = 0; game < games; game++){
+            Ocean testOcean = new Ocean();
+            testOcean.placeAllShipsRandomly();
+            SeaChart testChart = new SeaChart();
+            DensityShooter testShooter = new DensityShooter();
+
+            while (!testOcean.isGameOver()){
+                int cell = testShooter.nextShot(testChart);
+                assertFalse(testChart.isShot(cell), "fired twice at " + cell);
+                testChart.fireAt(testOcean, cell);
+            }
+            assertEquals(0, testChart.shipsLeft());
+            totalShots += testOcean.getShotsFired();
+        }
+
+        // random firing needs about 95 shots on average, a density shooter far fewer
+        assertTrue(totalShots / games < 70, "average of " + totalShots / games + " shots");
+    }
+
+    @Test
+    void testCacheTellsApartWhereShipsSank() {
+
+        // chart A: a destroyer sunk at cells 0-1 and a battleship hit at 50-51
+        Ocean first = new Ocean();
+        new Destroyer().placeShipAt(0, 1, true, first);
+        new Battleship().placeShipAt(5, 3, true, first);
+        SeaChart sunkAbove = new SeaChart();
+        for (int cell : new int[]{0, 1, 50, 51}){
+            sunkAbove.fireAt(first, cell);
+        }
+
+        // chart B: the same shots, with the destroyer sunk at 50-51 and the battleship hit at 0-1
+        Ocean second = new Ocean();
+        new Battleship().placeShipAt(0, 3, true, second);
+        new Destroyer().placeShipAt(5, 1, true, second);
+        SeaChart sunkBelow = new SeaChart();
+        for (int cell : new int[]{0, 1, 50, 51}){
+            sunkBelow.fireAt(second, cell);
+        }
+        assertNotEquals(sunkAbove.getStateHash(), sunkBelow.getStateHash());
+
+        // a shared table gives each chart the shot a shooter without one would choose
+        TranspositionTable<Integer> cache = new TranspositionTable<>(1 << 10);
+        assertEquals(new DensityShooter().nextShot(sunkAbove), new DensityShooter(cache).nextShot(sunkAbove));
+        assertEquals(new DensityShooter().nextShot(sunkBelow), new DensityShooter(cache).nextShot(sunkBelow));
+    }
+
+}
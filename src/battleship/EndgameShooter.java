@@ -0,0 +1,517 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * Computer shooter that plays the end of a game exactly. Once few enough ships are left, it
+ * lists every layout of the remaining ships that fits the chart and searches the game tree
+ * (expectimax) for the shot that finishes the game in the fewest shots on average, every
+ * layout counting as equally likely. Before that, or whenever the layouts are too many or
+ * the search runs out of time, it fires where a DensityShooter would.
+ *
+ * The search works on compact state only: a layout is the two-long masks of its ships, and a
+ * position is the list of layouts still possible plus the mask of cells fired upon. A shot
+ * splits the layouts by what the player would see (a miss, a hit, or the sinking of a ship
+ * in a given place). To keep the search small:
+ *   - only cells some layout covers are tried, and a cell every layout covers is fired at
+ *     at once, since it must be fired at eventually and knowing the answer sooner never hurts;
+ *   - cells are tried most likely hit first, so a good shot is found early;
+ *   - a shot is dropped as soon as its expectation cannot beat the best so far, using lower
+ *     bounds on the shots a position still needs;
+ *   - results, exact or lower bounds, are remembered by the hash of the position for the
+ *     rest of the game.
+ *
+ * Only the standard board is supported, like SeaChart.
+ */
+final class EndgameShooter implements Shooter {
+
+    /**
+     * Number of ships left at which the search starts by default, i.e. once 8 of the 10
+     * ships of the standard fleet are sunk
+     */
+    static final int DEFAULT_MAX_SHIPS_LEFT = 2;
+
+    /**
+     * Default time the search may take per move, in nanoseconds
+     */
+    static final long DEFAULT_TIME_BUDGET_NANOS = 50_000_000L;
+
+    /**
+     * Most layouts the search takes on; with more, the move is left to the fallback
+     */
+    static final int MAX_LAYOUTS = 4096;
+
+    /**
+     * How many positions are searched between looks at the clock
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    /**
+     * Thrown inside the search when the time budget is spent; made once, with no stack trace
+     */
+    private static final OutOfTime OUT_OF_TIME = new OutOfTime();
+
+    /**
+     * Footprints of the standard board
+     */
+    private final PlacementTable table = PlacementTable.STANDARD;
+
+    /**
+     * Shooter used before the endgame and when the search gives up
+     */
+    private final Shooter fallback;
+
+    /**
+     * Number of ships left at which the search starts
+     */
+    private final int maxShipsLeft;
+
+    /**
+     * Longest time to search per move in nanoseconds
+     */
+    private final long timeBudgetNanos;
+
+    /**
+     * Expected shots to finish from positions already solved, by position hash, stored as
+     * the bits of the double
+     */
+    private final LongLongHashMap solved = new LongLongHashMap(1024);
+
+    /**
+     * Lower bounds on the expected shots to finish from positions not solved exactly, because
+     * the search showed they could not beat the bound it had, stored the same way
+     */
+    private final LongLongHashMap bounded = new LongLongHashMap(1024);
+
+    /**
+     * Lengths of the ships left, longest first
+     */
+    private int[] lengths = new int[0];
+
+    /**
+     * Per layout and ship, the cells 0-63 and 64-127 of the ship, and its footprint
+     */
+    private long[] shipLo = new long[0];
+    private long[] shipHi = new long[0];
+    private int[] shipFootprint = new int[0];
+
+    /**
+     * Per layout, all cells its ships cover
+     */
+    private long[] unionLo = new long[0];
+    private long[] unionHi = new long[0];
+
+    /**
+     * Per layout, a hash of its ships' footprints that does not depend on the order layouts
+     * were listed in, so positions can be remembered from one move to the next
+     */
+    private long[] layoutKey = new long[0];
+
+    /**
+     * Number of layouts found for the current move
+     */
+    private int layouts;
+
+    /**
+     * When the current move must be decided by
+     */
+    private long deadline;
+
+    /**
+     * Positions searched in the current move
+     */
+    private long nodes;
+
+    /**
+     * Expected shots to finish found for the last move, or NaN if the last move was not searched
+     */
+    private double lastExpected = Double.NaN;
+
+    /**
+     * Creates a shooter that searches once 2 ships are left, for at most 50 ms per move
+     */
+    EndgameShooter(){
+        this(DEFAULT_MAX_SHIPS_LEFT, DEFAULT_TIME_BUDGET_NANOS, new DensityShooter());
+    }
+
+    /**
+     * Creates a shooter
+     * @param maxShipsLeft number of ships left at which the search starts
+     * @param timeBudgetNanos longest time to search per move, in nanoseconds
+     * @param fallback shooter used before the endgame and when the search gives up
+     */
+    EndgameShooter(int maxShipsLeft, long timeBudgetNanos, Shooter fallback){
+        this.maxShipsLeft = maxShipsLeft;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Method to get the result of the search for the last move
+     * @return the expected number of shots to finish the game, counting the last move, or NaN
+     *         if the last move was left to the fallback
+     */
+    double getLastExpected(){
+        return this.lastExpected;
+    }
+
+    /**
+     * Method to get the number of layouts found for the last move
+     * @return the number of layouts, or 0 if none were listed
+     */
+    int getLayoutCount(){
+        return this.layouts;
+    }
+
+    @Override
+    public void reset(){
+        this.fallback.reset();
+        this.solved.clear();
+        this.bounded.clear();
+        this.lastExpected = Double.NaN;
+    }
+
+    @Override
+    public int nextShot(SeaChart chart){
+        this.lastExpected = Double.NaN;
+        if (chart.shipsLeft() > this.maxShipsLeft || !listLayouts(chart)){
+            return this.fallback.nextShot(chart);
+        }
+
+        // no layout fits: the chart is not one the fleet can explain, or the game is over
+        if (this.layouts == 0){
+            return this.fallback.nextShot(chart);
+        }
+
+        int[] all = new int[this.layouts];
+        for (int i = 0; i < all.length; i++){
+            all[i] = i;
+        }
+        this.deadline = System.nanoTime() + this.timeBudgetNanos;
+        this.nodes = 0;
+        int[] best = new int[1];
+        try {
+            this.lastExpected = search(all, all.length, chart.shotLo(), chart.shotHi(), Double.POSITIVE_INFINITY, best);
+        }catch (OutOfTime e){
+            return this.fallback.nextShot(chart);
+        }
+        return best[0];
+    }
+
+    /**
+     * Lists the layouts of the ships left that fit the chart: no ship on a blocked cell, no two
+     * ships touching, every hit covered, and no ship with all of its cells already hit
+     * @return false if there are more than MAX_LAYOUTS
+     */
+    private boolean listLayouts(SeaChart chart){
+        int ships = chart.shipsLeft();
+        this.lengths = new int[ships];
+        int next = 0;
+        for (int length = 4; length >= 1; length--){
+            for (int i = 0; i < chart.remaining(length); i++){
+                this.lengths[next++] = length;
+            }
+        }
+        if (this.shipLo.length < MAX_LAYOUTS * ships){
+            this.shipLo = new long[MAX_LAYOUTS * ships];
+            this.shipHi = new long[MAX_LAYOUTS * ships];
+            this.shipFootprint = new int[MAX_LAYOUTS * ships];
+        }
+        if (this.unionLo.length < MAX_LAYOUTS){
+            this.unionLo = new long[MAX_LAYOUTS];
+            this.unionHi = new long[MAX_LAYOUTS];
+            this.layoutKey = new long[MAX_LAYOUTS];
+        }
+        this.layouts = 0;
+        return place(chart, 0, 0, new int[ships], 0, 0, 0, 0);
+    }
+
+    /**
+     * Places ship number ship and the ones after it in every way that fits
+     * @param firstFootprint lowest footprint the ship may take, so ships of the same length
+     *                       are only listed in one order
+     * @param chosen footprints chosen for the ships before
+     * @return false if there turned out to be more than MAX_LAYOUTS layouts
+     */
+    private boolean place(SeaChart chart, int ship, int firstFootprint, int[] chosen,
+                          long cellsLo, long cellsHi, long haloLo, long haloHi){
+        if (ship == this.lengths.length){
+            if ((chart.hitLo() & ~cellsLo) != 0 || (chart.hitHi() & ~cellsHi) != 0){
+                return true;
+            }
+            if (this.layouts == MAX_LAYOUTS){
+                return false;
+            }
+            int base = this.layouts * this.lengths.length;
+            long key = 0;
+            for (int s = 0; s < this.lengths.length; s++){
+                key += mix((long) this.lengths[s] << 32 | chosen[s]);
+                this.shipLo[base + s] = this.table.cellsLo(this.lengths[s], chosen[s]);
+                this.shipHi[base + s] = this.table.cellsHi(this.lengths[s], chosen[s]);
+                this.shipFootprint[base + s] = chosen[s];
+            }
+            this.unionLo[this.layouts] = cellsLo;
+            this.unionHi[this.layouts] = cellsHi;
+            this.layoutKey[this.layouts] = mix(key);
+            this.layouts++;
+            return true;
+        }
+
+        int length = this.lengths[ship];
+        int start = ship > 0 && this.lengths[ship - 1] == length ? firstFootprint : 0;
+        for (int f = start; f < this.table.footprints(length); f++){
+            long lo = this.table.cellsLo(length, f);
+            long hi = this.table.cellsHi(length, f);
+
+            // not on a blocked cell, not touching the ships before, and not already all hit
+            if ((lo & (chart.blockedLo() | haloLo)) != 0 || (hi & (chart.blockedHi() | haloHi)) != 0
+                    || ((lo & ~chart.shotLo()) | (hi & ~chart.shotHi())) == 0){
+                continue;
+            }
+            chosen[ship] = f;
+            if (!place(chart, ship + 1, f + 1, chosen, cellsLo | lo, cellsHi | hi,
+                    haloLo | this.table.haloLo(length, f), haloHi | this.table.haloHi(length, f))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the expected number of shots to finish the game from a position, playing the best
+     * shot every time. What the player saw so far is all in which layouts are still possible
+     * and which of their cells were fired upon.
+     *
+     * @param ids the layouts still possible, in ids[0] to ids[count - 1]
+     * @param count number of layouts still possible
+     * @param shotLo cells 0-63 fired upon
+     * @param shotHi cells 64-127 fired upon
+     * @param bound the caller has no use for a result of bound or more
+     * @param best if not null, receives the best cell
+     * @return the expected number of shots if it is less than bound, otherwise some number
+     *         that is at least bound
+     */
+    private double search(int[] ids, int count, long shotLo, long shotHi, double bound, int[] best){
+
+        // the layouts still possible agree on what was sunk, so if one is all sunk they all are
+        if ((this.unionLo[ids[0]] & ~shotLo | this.unionHi[ids[0]] & ~shotHi) == 0){
+            return 0;
+        }
+        if (++this.nodes % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > this.deadline){
+            throw OUT_OF_TIME;
+        }
+
+        // how many layouts cover each unshot cell, and how many unshot cells each layout has
+        int[] covering = new int[128];
+        long unshot = 0;
+        int fewest = Integer.MAX_VALUE;
+        long layoutSum = 0;
+        long coverLo = 0;
+        long coverHi = 0;
+        for (int i = 0; i < count; i++){
+            int layout = ids[i];
+            long lo = this.unionLo[layout] & ~shotLo;
+            long hi = this.unionHi[layout] & ~shotHi;
+            int cells = Long.bitCount(lo) + Long.bitCount(hi);
+            unshot += cells;
+            fewest = Math.min(fewest, cells);
+            layoutSum += this.layoutKey[layout];
+            coverLo |= this.unionLo[layout];
+            coverHi |= this.unionHi[layout];
+            for (; lo != 0; lo &= lo - 1){
+                covering[Long.numberOfTrailingZeros(lo)]++;
+            }
+            for (; hi != 0; hi &= hi - 1){
+                covering[64 + Long.numberOfTrailingZeros(hi)]++;
+            }
+        }
+
+        // whatever the strategy, each layout takes a shot at every one of its unshot cells
+        double lower = (double) unshot / count;
+        if (lower >= bound){
+            return lower;
+        }
+
+        // a position seen before, unless the caller needs the cell; shots at cells no layout
+        // covers make no difference
+        long key = positionKey(layoutSum, shotLo & coverLo, shotHi & coverHi);
+        if (best == null){
+            long known = this.solved.get(key, -1);
+            if (known != -1){
+                return Double.longBitsToDouble(known);
+            }
+            long atLeast = this.bounded.get(key, -1);
+            if (atLeast != -1){
+                lower = Math.max(lower, Double.longBitsToDouble(atLeast));
+                if (lower >= bound){
+                    return lower;
+                }
+            }
+        }
+
+        // the cells worth trying, most often covered first
+        int[] cells = new int[128];
+        int candidates = 0;
+        for (int cell = 0; cell < 128; cell++){
+            if (covering[cell] > 0){
+                cells[candidates++] = cell;
+            }
+        }
+        sortByCovering(cells, candidates, covering);
+
+        // and a second bound: after t shots a layout is finished only if its unshot cells are
+        // among them, so the layouts finished number at most the coverage of the t most
+        // covered cells over the fewest unshot cells of a layout; the expectation is the sum
+        // over t of the chance the game lasts beyond t shots
+        double lasting = 0;
+        long topCoverage = 0;
+        for (int t = 0; topCoverage / fewest < count; t++){
+            lasting += 1 - (double) (topCoverage / fewest) / count;
+            topCoverage += covering[cells[t]];
+        }
+        lower = Math.max(lower, lasting);
+        if (lower >= bound){
+            return lower;
+        }
+
+        // a cell every layout covers must be fired at sooner or later, and firing at it first
+        // never costs a shot
+        if (covering[cells[0]] == count){
+            candidates = 1;
+        }
+
+        double bestValue = bound;
+        int bestCell = -1;
+        long[] outcomes = new long[count];
+        for (int c = 0; c < candidates; c++){
+            double value = shoot(ids, count, cells[c], outcomes, shotLo, shotHi, bestValue);
+            if (value < bestValue){
+                bestValue = value;
+                bestCell = cells[c];
+            }
+        }
+
+        if (best != null){
+            best[0] = bestCell >= 0 ? bestCell : cells[0];
+        }
+        if (bestCell >= 0){
+            this.solved.put(key, Double.doubleToLongBits(bestValue));
+        }else {
+            this.bounded.put(key, Double.doubleToLongBits(bestValue));
+        }
+        return bestValue;
+    }
+
+    /**
+     * Finds the expected number of shots to finish the game when firing at a cell first
+     * @param outcomes scratch space, at least count long
+     * @return the expected number of shots if it is less than bound, otherwise some number
+     *         that is at least bound
+     */
+    private double shoot(int[] ids, int count, int cell, long[] outcomes, long shotLo, long shotHi, double bound){
+        long bitLo = cell < 64 ? 1L << cell : 0;
+        long bitHi = cell < 64 ? 0 : 1L << cell;
+        long nextShotLo = shotLo | bitLo;
+        long nextShotHi = shotHi | bitHi;
+
+        // what the player would see for each layout: a miss (0), a hit (1), or the sinking of a
+        // ship, told apart by where it was; and the shots the layouts still need at least
+        int ships = this.lengths.length;
+        double lowerRest = 0;
+        for (int i = 0; i < count; i++){
+            int layout = ids[i];
+            long outcome = 0;
+            for (int s = 0; s < ships; s++){
+                long lo = this.shipLo[layout * ships + s];
+                long hi = this.shipHi[layout * ships + s];
+                if ((lo & bitLo | hi & bitHi) != 0){
+                    boolean sunk = (lo & ~nextShotLo | hi & ~nextShotHi) == 0;
+                    outcome = sunk ? 2 + (long) this.lengths[s] * 1024 + this.shipFootprint[layout * ships + s] : 1;
+                    break;
+                }
+            }
+            outcomes[i] = outcome << 32 | layout;
+            lowerRest += Long.bitCount(this.unionLo[layout] & ~nextShotLo) + Long.bitCount(this.unionHi[layout] & ~nextShotHi);
+        }
+        lowerRest /= count;
+        Arrays.sort(outcomes, 0, count);
+
+        // each group of layouts with the same outcome is a position of its own
+        double expected = 1;
+        if (expected + lowerRest >= bound){
+            return expected + lowerRest;
+        }
+        int[] child = new int[count];
+        for (int from = 0; from < count; ){
+            long outcome = outcomes[from] >>> 32;
+            int size = 0;
+            for (; from + size < count && outcomes[from + size] >>> 32 == outcome; size++){
+                child[size] = (int) outcomes[from + size];
+            }
+            from += size;
+            double probability = (double) size / count;
+            for (int i = 0; i < size; i++){
+                lowerRest -= (double) (Long.bitCount(this.unionLo[child[i]] & ~nextShotLo)
+                        + Long.bitCount(this.unionHi[child[i]] & ~nextShotHi)) / count;
+            }
+
+            // the most this group may need for the shot to still beat the bound
+            double childBound = (bound - expected - lowerRest) / probability;
+            double value = search(child, size, nextShotLo, nextShotHi, childBound, null);
+            expected += probability * value;
+            if (value >= childBound){
+                return Math.max(bound, expected + lowerRest);
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Sorts cells by the number of layouts covering them, most first
+     */
+    private static void sortByCovering(int[] cells, int count, int[] covering){
+        for (int i = 1; i < count; i++){
+            int cell = cells[i];
+            int j = i - 1;
+            for (; j >= 0 && covering[cells[j]] < covering[cell]; j--){
+                cells[j + 1] = cells[j];
+            }
+            cells[j + 1] = cell;
+        }
+    }
+
+    /**
+     * Method to get the key a position is remembered by
+     * @param layouts sum of the keys of the layouts still possible
+     * @return a hash of the position, never 0 or -1
+     */
+    private static long positionKey(long layouts, long shotLo, long shotHi){
+        long hash = mix(mix(layouts) + shotLo) + shotHi;
+        hash = mix(hash);
+        return hash == 0 || hash == -1 ? 1 : hash;
+    }
+
+    /**
+     * Scrambles the bits of a long (the SplitMix64 finalizer)
+     */
+    private static long mix(long x){
+        x = (x ^ (x >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Signals that the search ran out of time
+     */
+    private static final class OutOfTime extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates the exception, without a stack trace since it is only ever caught
+         */
+        OutOfTime(){
+            super("out of time", null, false, false);
+        }
+    }
+}
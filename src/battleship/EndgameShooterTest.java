@@ -0,0 +1,131 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EndgameShooterTest {
+
+    Ocean ocean;
+    SeaChart chart;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ocean = new Ocean();
+        chart = new SeaChart();
+    }
+
+    /**
+     * Places a ship, checking the spot is legal, and returns it
+     */
+    private Ship place(Ship ship, int row, int column, boolean horizontal){
+        assertTrue(ship.okToPlaceShipAt(row, column, horizontal, ocean), ship.getShipType() + " at " + row + ", " + column);
+        ship.placeShipAt(row, column, horizontal, ocean);
+        return ship;
+    }
+
+    /**
+     * Fires at every cell of a ship
+     */
+    private void sink(Ship ship){
+        for (int i = 0; i < ship.getLength(); i++){
+            int row = ship.getBowRow() + (ship.isHorizontal() ? 0 : -i);
+            int column = ship.getBowColumn() + (ship.isHorizontal() ? -i : 0);
+            chart.fireAt(ocean, row * 10 + column);
+        }
+        assertTrue(ship.isSunk());
+    }
+
+    @Test
+    void testFinishesTheLastDestroyerOptimally() {
+
+        // every ship but one destroyer is found and sunk
+        sink(place(new Battleship(), 0, 3, true));
+        sink(place(new Cruiser(), 0, 7, true));
+        sink(place(new Cruiser(), 2, 2, true));
+        sink(place(new Destroyer(), 1, 9, false));
+        sink(place(new Destroyer(), 2, 5, true));
+        sink(place(new Submarine(), 3, 7, true));
+        sink(place(new Submarine(), 4, 0, true));
+        sink(place(new Submarine(), 4, 2, true));
+        sink(place(new Submarine(), 4, 9, true));
+        Ship last = place(new Destroyer(), 6, 5, true);
+
+        // after a hit at (6, 5) the rest of the destroyer is one of its 4 neighbours, so the
+        // best any shooter can do is try them in turn, needing (1 + 2 + 3 + 4) / 4 shots
+        assertTrue(chart.fireAt(ocean, 65));
+        EndgameShooter shooter = new EndgameShooter();
+        int shots = 0;
+        while (!last.isSunk()){
+            int cell = shooter.nextShot(chart);
+            if (shots == 0){
+                assertEquals(2.5, shooter.getLastExpected(), 1e-9);
+            }
+            assertEquals(1, Math.abs(cell / 10 - 6) + Math.abs(cell % 10 - 5), "shot at " + cell + " is not next to the hit");
+            chart.fireAt(ocean, cell);
+            shots++;
+        }
+        assertTrue(shots <= 4);
+        assertTrue(ocean.isGameOver());
+    }
+
+    @Test
+    void testPlaysFullGames() {
+
+        for (long budget : new long[]{EndgameShooter.DEFAULT_TIME_BUDGET_NANOS, 0}){
+            for (int game = 0; game < 20; game++){
+                Ocean testOcean = new Ocean();
+                testOcean.placeAllShipsRandomly();
+                SeaChart testChart = new SeaChart();
+                EndgameShooter shooter = new EndgameShooter(EndgameShooter.DEFAULT_MAX_SHIPS_LEFT, budget, new DensityShooter());
+
+                boolean searched = false;
+                while (!testOcean.isGameOver()){
+                    int cell = shooter.nextShot(testChart);
+                    assertFalse(testChart.isShot(cell), "fired twice at " + cell);
+                    searched |= !Double.isNaN(shooter.getLastExpected());
+                    testChart.fireAt(testOcean, cell);
+                }
+                assertEquals(0, testChart.shipsLeft());
+
+                // near the end few layouts are left, and searching them takes less than a clock check
+                assertTrue(searched);
+            }
+        }
+    }
+
+    @Test
+    void testFallsBackWhenNoLayoutFits() {
+
+        // nine ships sunk, and a miss everywhere but one cell, with a destroyer still to find
+        sink(place(new Battleship(), 0, 3, true));
+        sink(place(new Cruiser(), 0, 7, true));
+        sink(place(new Cruiser(), 2, 2, true));
+        sink(place(new Destroyer(), 1, 9, false));
+        sink(place(new Destroyer(), 2, 5, true));
+        sink(place(new Submarine(), 3, 7, true));
+        sink(place(new Submarine(), 4, 0, true));
+        sink(place(new Submarine(), 4, 2, true));
+        sink(place(new Submarine(), 4, 9, true));
+        for (int cell = 0; cell < 99; cell++){
+            if (!chart.isShot(cell)){
+                chart.fireAt(ocean, cell);
+            }
+        }
+        EndgameShooter shooter = new EndgameShooter();
+        assertEquals(99, shooter.nextShot(chart));
+        assertEquals(0, shooter.getLayoutCount());
+        assertTrue(Double.isNaN(shooter.getLastExpected()));
+
+        // a game already over: the fallback still answers with a cell of the ocean
+        Ocean over = new Ocean();
+        over.placeAllShipsRandomly();
+        SeaChart overChart = new SeaChart();
+        for (int cell = 0; !over.isGameOver(); cell++){
+            overChart.fireAt(over, cell);
+        }
+        int cell = shooter.nextShot(overChart);
+        assertTrue(cell >= 0 && cell < 100, "shot at " + cell);
+    }
+}
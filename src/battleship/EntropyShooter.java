@@ -0,0 +1,374 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computer shooter that fires where it expects to learn the most. It keeps a pool of sampled
+ * fleet layouts that agree with the chart, and scores every unshot cell by the entropy of what
+ * a shot there would show: a miss, a hit, or the sinking of a ship in a given place (what
+ * Ocean.shootAt and Ship.isSunk tell the player). With the samples equally likely, that entropy
+ * is the expected drop in entropy over the layouts, i.e. the information the shot gains.
+ * Information alone undervalues finishing ships, so the chance of a hit is added to the score.
+ *
+ * The pool is kept from move to move: after each shot only the samples the new result rules
+ * out are dropped, and new ones are drawn (by a ChartSampler) to make up the numbers. Every
+ * cell is scored against the same samples.
+ *
+ * The pool is split between workers that run in a ForkJoinPool, like MonteCarloShooter. Each
+ * worker filters, tops up and tallies its own share; the tallies are added up once every
+ * worker is done and the entropies worked out from the totals. With a time budget the workers
+ * stop drawing at the deadline, and the samples they have are used.
+ */
+final class EntropyShooter implements Shooter {
+
+    /**
+     * How many samples a worker draws between looks at the clock
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    /**
+     * Score, in bits, of a certain hit; added to the information a shot gains so that between
+     * about equally informative cells the likelier hit wins
+     */
+    private static final double HIT_WEIGHT = 1;
+
+    /**
+     * Number of ships in the standard fleet, the most a sample holds
+     */
+    private static final int FLEET_SIZE = BoardConfig.STANDARD.getFleetSize();
+
+    /**
+     * Pool the workers run in
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The workers, kept for the whole game with their share of the samples
+     */
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * Longest time to spend drawing samples per move in nanoseconds, or 0 for no limit
+     */
+    private final long timeBudgetNanos;
+
+    /**
+     * Shooter used when no sample could be drawn in time
+     */
+    private final DensityShooter fallback = new DensityShooter();
+
+    /**
+     * Samples the last move was scored against, across all workers
+     */
+    private long lastSampleCount;
+
+    /**
+     * Of those, the samples kept from the moves before
+     */
+    private long lastKeptCount;
+
+    /**
+     * Creates a shooter
+     * @param samples number of samples to keep in the pool
+     * @param timeBudgetNanos longest time to spend drawing samples per move in nanoseconds, or 0 for no limit
+     * @param random random stream the workers' streams are split from
+     * @param pool pool to run the workers in; its parallelism decides the number of workers
+     */
+    EntropyShooter(int samples, long timeBudgetNanos, SplittableRandom random, ForkJoinPool pool){
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.pool = pool;
+        int count = pool.getParallelism();
+        for (int i = 0; i < count; i++){
+            this.workers.add(new Worker(random.split(), samples / count + (i < samples % count ? 1 : 0)));
+        }
+    }
+
+    /**
+     * Creates a shooter with no time limit that samples on every core
+     * @param samples number of samples to keep in the pool
+     */
+    EntropyShooter(int samples){
+        this(samples, 0, new SplittableRandom(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Method to get the number of samples the last move was scored against
+     * @return the number of samples used to choose the last shot
+     */
+    long getLastSampleCount(){
+        return this.lastSampleCount;
+    }
+
+    /**
+     * Method to get the number of samples the last move kept from the moves before
+     * @return the number of samples that were not drawn for the last move
+     */
+    long getLastKeptCount(){
+        return this.lastKeptCount;
+    }
+
+    @Override
+    public void reset(){
+        this.fallback.reset();
+        for (Worker worker : this.workers){
+            worker.size = 0;
+        }
+    }
+
+    @Override
+    public void reset(long seed){
+        reset();
+
+        // the workers' streams are split from the seed in order, as the constructor does
+        SplittableRandom random = new SplittableRandom(seed);
+        for (Worker worker : this.workers){
+            worker.sampler.setRandom(random.split());
+        }
+    }
+
+    @Override
+    public int nextShot(SeaChart chart){
+
+        // every worker brings its samples up to date and tallies them
+        long deadline = this.timeBudgetNanos > 0 ? System.nanoTime() + this.timeBudgetNanos : Long.MAX_VALUE;
+        for (Worker worker : this.workers){
+            worker.prepare(chart, deadline);
+        }
+        this.pool.invokeAll(this.workers);
+
+        // add up the tallies
+        long samples = 0;
+        long kept = 0;
+        long[] hits = new long[128];
+        int sinkings = 0;
+        for (Worker worker : this.workers){
+            samples += worker.size;
+            kept += worker.kept;
+            sinkings += worker.sinkCount;
+            for (int cell = 0; cell < 128; cell++){
+                hits[cell] += worker.hits[cell];
+            }
+        }
+        this.lastSampleCount = samples;
+        this.lastKeptCount = kept;
+        if (samples == 0){
+            return this.fallback.nextShot(chart);
+        }
+
+        // the sinkings, sorted by cell and then by the ship sunk
+        long[] sinks = new long[sinkings];
+        int next = 0;
+        for (Worker worker : this.workers){
+            System.arraycopy(worker.sinks, 0, sinks, next, worker.sinkCount);
+            next += worker.sinkCount;
+        }
+        Arrays.sort(sinks);
+
+        // the entropy of each unshot cell's outcome plus the weighted chance of a hit, taking
+        // the highest
+        double[] score = new double[128];
+        long[] covered = hits.clone();
+        for (int i = 0; i < sinks.length; ){
+            int j = i;
+            for (; j < sinks.length && sinks[j] == sinks[i]; j++){
+            }
+            int cell = (int) (sinks[i] >>> 32);
+            score[cell] += plogp(j - i, samples);
+            covered[cell] += j - i;
+            i = j;
+        }
+        int best = -1;
+        for (int cell = 0; cell < SeaChart.SIZE * SeaChart.SIZE; cell++){
+            if (chart.isShot(cell)){
+                continue;
+            }
+            score[cell] += plogp(hits[cell], samples) + plogp(samples - covered[cell], samples)
+                    + HIT_WEIGHT * covered[cell] / samples;
+            if (best < 0 || score[cell] > score[best]){
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Method to get one outcome's term of the entropy
+     * @param count number of samples with the outcome
+     * @param samples number of samples
+     * @return -p log2 p for p = count / samples, 0 when count is 0
+     */
+    private static double plogp(long count, long samples){
+        if (count == 0){
+            return 0;
+        }
+        double p = (double) count / samples;
+        return -p * Math.log(p) / Math.log(2);
+    }
+
+    /**
+     * Keeps a share of the samples and tallies them for each move
+     */
+    private static final class Worker implements Callable<Void> {
+
+        private final PlacementTable table = PlacementTable.STANDARD;
+        private final ChartSampler sampler;
+        private final int capacity;
+
+        // the samples, per sample and ship: length and footprint
+        private final int[] shipLength;
+        private final int[] shipFootprint;
+        private final int[] shipCount;
+        private int size;
+
+        // scratch for one draw
+        private final int[] lengths = new int[FLEET_SIZE];
+        private final int[] footprints = new int[FLEET_SIZE];
+
+        // per cell, the samples in which a shot there hits without sinking, and the sinkings
+        // as (cell << 32 | length << 16 | footprint)
+        private final long[] hits = new long[128];
+        private final long[] sinks;
+        private int sinkCount;
+
+        // what the current move asks for
+        private SeaChart chart;
+        private long deadline;
+        private int kept;
+
+        Worker(SplittableRandom random, int capacity){
+            this.sampler = new ChartSampler(random);
+            this.capacity = capacity;
+            this.shipLength = new int[capacity * FLEET_SIZE];
+            this.shipFootprint = new int[capacity * FLEET_SIZE];
+            this.shipCount = new int[capacity];
+            this.sinks = new long[capacity * FLEET_SIZE];
+        }
+
+        void prepare(SeaChart chart, long deadline){
+            this.chart = chart;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Void call(){
+
+            // drop the samples the chart now rules out
+            int kept = 0;
+            for (int s = 0; s < this.size; s++){
+                if (agrees(s)){
+                    copy(s, kept++);
+                }
+            }
+            this.size = kept;
+            this.kept = kept;
+
+            // and draw new ones in their place
+            for (int attempt = 0; this.size < this.capacity; attempt++){
+                if (attempt % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > this.deadline){
+                    break;
+                }
+                int ships = this.sampler.draw(this.chart, this.lengths, this.footprints);
+                if (ships >= 0){
+                    int base = this.size * FLEET_SIZE;
+                    System.arraycopy(this.lengths, 0, this.shipLength, base, ships);
+                    System.arraycopy(this.footprints, 0, this.shipFootprint, base, ships);
+                    this.shipCount[this.size] = ships;
+
+                    // new samples pass the same check as the kept ones before they are tallied
+                    if (agrees(this.size)){
+                        this.size++;
+                    }
+                }
+            }
+
+            tally();
+            return null;
+        }
+
+        /**
+         * Checks a sample against the chart: its ships shot in full must be exactly the ships
+         * sunk since it was drawn, and the rest must cover every hit and nothing blocked
+         * @param s index of the sample
+         * @return true if the sample could still be the fleet
+         */
+        private boolean agrees(int s){
+            SeaChart chart = this.chart;
+            long coveredLo = 0;
+            long coveredHi = 0;
+            int sunk = 0;
+            int base = s * FLEET_SIZE;
+            for (int i = 0; i < this.shipCount[s]; i++){
+                int length = this.shipLength[base + i];
+                int f = this.shipFootprint[base + i];
+                long lo = this.table.cellsLo(length, f);
+                long hi = this.table.cellsHi(length, f);
+                if ((lo & ~chart.shotLo() | hi & ~chart.shotHi()) == 0){
+
+                    // a sunk ship's halo holds no other sunk cell, as ships never touch
+                    if ((this.table.haloLo(length, f) & chart.sunkLo()) != lo
+                            || (this.table.haloHi(length, f) & chart.sunkHi()) != hi){
+                        return false;
+                    }
+                    sunk++;
+                }else {
+                    if ((lo & chart.blockedLo() | hi & chart.blockedHi()) != 0){
+                        return false;
+                    }
+                    coveredLo |= lo;
+                    coveredHi |= hi;
+                }
+            }
+            return (chart.hitLo() & ~coveredLo | chart.hitHi() & ~coveredHi) == 0
+                    && this.shipCount[s] - sunk == chart.shipsLeft();
+        }
+
+        /**
+         * Moves a sample to another index
+         */
+        private void copy(int from, int to){
+            if (from != to){
+                System.arraycopy(this.shipLength, from * FLEET_SIZE, this.shipLength, to * FLEET_SIZE, this.shipCount[from]);
+                System.arraycopy(this.shipFootprint, from * FLEET_SIZE, this.shipFootprint, to * FLEET_SIZE, this.shipCount[from]);
+                this.shipCount[to] = this.shipCount[from];
+            }
+        }
+
+        /**
+         * Tallies, for every unshot cell, what a shot there would show in each sample
+         */
+        private void tally(){
+            Arrays.fill(this.hits, 0);
+            this.sinkCount = 0;
+            long shotLo = this.chart.shotLo();
+            long shotHi = this.chart.shotHi();
+            for (int s = 0; s < this.size; s++){
+                int base = s * FLEET_SIZE;
+                for (int i = 0; i < this.shipCount[s]; i++){
+                    int length = this.shipLength[base + i];
+                    int f = this.shipFootprint[base + i];
+                    long lo = this.table.cellsLo(length, f) & ~shotLo;
+                    long hi = this.table.cellsHi(length, f) & ~shotHi;
+                    int unshot = Long.bitCount(lo) + Long.bitCount(hi);
+                    if (unshot == 1){
+
+                        // the last part of the ship: a shot there sinks it
+                        int cell = lo != 0 ? Long.numberOfTrailingZeros(lo) : 64 + Long.numberOfTrailingZeros(hi);
+                        this.sinks[this.sinkCount++] = (long) cell << 32 | length << 16 | f;
+                        continue;
+                    }
+                    for (; lo != 0; lo &= lo - 1){
+                        this.hits[Long.numberOfTrailingZeros(lo)]++;
+                    }
+                    for (; hi != 0; hi &= hi - 1){
+                        this.hits[64 + Long.numberOfTrailingZeros(hi)]++;
+                    }
+                }
+            }
+        }
+    }
+}
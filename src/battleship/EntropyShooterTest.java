@@ -0,0 +1,52 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class EntropyShooterTest {
+
+    @Test
+    void testPlaysFullGameKeepingSamples() {
+
+        Ocean ocean = new Ocean();
+        ocean.placeAllShipsRandomly();
+        SeaChart chart = new SeaChart();
+        EntropyShooter shooter = new EntropyShooter(500, 0, new SplittableRandom(591), ForkJoinPool.commonPool());
+
+        long kept = 0;
+        while (!ocean.isGameOver()){
+            int cell = shooter.nextShot(chart);
+            assertFalse(chart.isShot(cell), "fired twice at " + cell);
+            assertTrue(shooter.getLastSampleCount() > 0);
+            kept += shooter.getLastKeptCount();
+            chart.fireAt(ocean, cell);
+        }
+        assertTrue(ocean.getShotsFired() < 100);
+
+        // most shots are misses, which leave most samples standing
+        assertTrue(kept > 0);
+    }
+
+    @Test
+    void testDropsSamplesTheChartRulesOut() {
+
+        // a lone vertical cruiser with its bow at (4, 2), hit in the middle
+        Ocean ocean = new Ocean();
+        Cruiser cruiser = new Cruiser();
+        cruiser.placeShipAt(4, 2, false, ocean);
+        SeaChart chart = new SeaChart();
+        EntropyShooter shooter = new EntropyShooter(2000, 0, new SplittableRandom(7), ForkJoinPool.commonPool());
+        shooter.nextShot(chart);
+        chart.fireAt(ocean, 32);
+
+        // the samples without a ship through the hit are gone, so the next shot is next to it
+        int cell = shooter.nextShot(chart);
+        assertTrue(shooter.getLastKeptCount() < 2000);
+        assertEquals(1, Math.abs(cell / 10 - 3) + Math.abs(cell % 10 - 2), "shot at " + cell + " is not next to the hit");
+    }
+
+}
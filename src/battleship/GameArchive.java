@@ -0,0 +1,307 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only archive of finished games, written by a GameArchiveWriter and read through
+ * memory-mapped files, so that millions of games can be looked up or scanned without being
+ * read into the heap: the operating system pages in the parts that are used.
+ *
+ * The archive is two files. The record file starts with a header of HEADER_BYTES giving the
+ * board and its fleet, then holds one record per game:
+ *
+ *   shot count     2 bytes
+ *   fleet          a byte per ship, in the configuration's fleet order: its bow's cell times
+ *                  two, plus one if it is horizontal
+ *   shots          a byte per shot, the cell fired at, in order
+ *
+ * The record file is mapped in segments of the size given in the header, and a record never
+ * crosses from one segment to the next. The index file next to it (see indexPath()) holds the
+ * offset of each game's record as 8 bytes, so a game is found by its id, its position in the
+ * archive, in constant time.
+ *
+ * A Cursor reads records where they lie in the mapped files, so scanning the whole archive
+ * creates no objects per game. toOcean() rebuilds a game when one is needed. An archive may
+ * be read from many threads, each with its own Cursor. The files are closed once mapped; the
+ * mappings last as long as the archive is reachable.
+ */
+final class GameArchive {
+
+    /**
+     * First 4 bytes of the record file
+     */
+    static final int MAGIC = 0x42534741;
+
+    /**
+     * Version of the archive format
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the header at the start of the record file
+     */
+    static final int HEADER_BYTES = 256;
+
+    /**
+     * Default size of a mapped segment of the record file
+     */
+    static final int DEFAULT_SEGMENT_BYTES = 1 << 30;
+
+    /**
+     * Number of index entries in each mapped segment of the index file
+     */
+    private static final int INDEX_ENTRIES = 1 << 27;
+
+    /**
+     * Size of the games and their fleet
+     */
+    private final BoardConfig config;
+
+    /**
+     * Size of a mapped segment of the record file
+     */
+    private final int segmentBytes;
+
+    /**
+     * The record file, a mapping per segment
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The index file, a mapping per INDEX_ENTRIES games
+     */
+    private final LongBuffer[] index;
+
+    /**
+     * Number of games in the archive
+     */
+    private final long games;
+
+    /**
+     * Opens an archive written by a GameArchiveWriter that was closed
+     * @param path the record file
+     * @throws IllegalArgumentException if the files are not a game archive
+     */
+    GameArchive(Path path){
+        try (FileChannel records = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel indexFile = FileChannel.open(indexPath(path), StandardOpenOption.READ)){
+
+            // the header
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()){
+                if (records.read(header) < 0){
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC){
+                throw new IllegalArgumentException(path + " is not a game archive");
+            }
+            if (header.get() != VERSION){
+                throw new IllegalArgumentException(path + " is a game archive of another version");
+            }
+            int rows = header.get() & 0xFF;
+            int columns = header.get() & 0xFF;
+            int[] lengths = new int[header.get() & 0xFF];
+            this.segmentBytes = header.getInt();
+            for (int i = 0; i < lengths.length; i++){
+                lengths[i] = header.get();
+            }
+            BoardConfig config = new BoardConfig(rows, columns, lengths);
+            this.config = config.isStandard() ? BoardConfig.STANDARD : config;
+
+            // the segments of both files, mapped now; they are paged in as they are used
+            long size = records.size();
+            this.segments = new MappedByteBuffer[(int) ((size + this.segmentBytes - 1) / this.segmentBytes)];
+            for (int i = 0; i < this.segments.length; i++){
+                long start = (long) i * this.segmentBytes;
+                this.segments[i] = records.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(this.segmentBytes, size - start));
+            }
+            this.games = indexFile.size() / Long.BYTES;
+            this.index = new LongBuffer[(int) ((this.games + INDEX_ENTRIES - 1) / INDEX_ENTRIES)];
+            for (int i = 0; i < this.index.length; i++){
+                long first = (long) i * INDEX_ENTRIES;
+                this.index[i] = indexFile.map(FileChannel.MapMode.READ_ONLY, first * Long.BYTES,
+                        Math.min(INDEX_ENTRIES, this.games - first) * Long.BYTES).asLongBuffer();
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to get the index file of an archive
+     * @param path the record file
+     * @return the index file, next to the record file with ".index" added to its name
+     */
+    static Path indexPath(Path path){
+        return path.resolveSibling(path.getFileName() + ".index");
+    }
+
+    /**
+     * Method to get the size of a record
+     * @param fleetSize number of ships
+     * @param shots number of shots
+     * @return the number of bytes the record takes
+     */
+    static int recordBytes(int fleetSize, int shots){
+        return 2 + fleetSize + shots;
+    }
+
+    /**
+     * Method to get the size of the games and their fleet
+     * @return the configuration the games were played with
+     */
+    BoardConfig getConfig(){
+        return this.config;
+    }
+
+    /**
+     * Method to get the number of games
+     * @return the number of games; their ids are 0 up to this number
+     */
+    long size(){
+        return this.games;
+    }
+
+    /**
+     * Method to get a new cursor, on no game until it is moved
+     * @return a cursor over this archive
+     */
+    Cursor cursor(){
+        return new Cursor();
+    }
+
+    /**
+     * Rebuilds a game as it was when it finished
+     * @param game the game's id
+     * @return a new ocean with the game's fleet placed and its shots fired
+     */
+    Ocean toOcean(long game){
+        Ocean ocean = new Ocean(this.config);
+        toOcean(game, ocean);
+        return ocean;
+    }
+
+    /**
+     * Rebuilds a game as it was when it finished, in a given ocean
+     * @param game the game's id
+     * @param ocean ocean of the archive's configuration; it is reset first
+     */
+    void toOcean(long game, Ocean ocean){
+        Cursor cursor = cursor();
+        cursor.seek(game);
+        ocean.reset();
+        int columns = this.config.getColumns();
+        for (int i = 0; i < this.config.getFleetSize(); i++){
+            int position = cursor.getPosition(i);
+            int cell = position >>> 1;
+            Ship ship = BoardConfig.createShip(this.config.getShipLength(i));
+            if (!ship.okToPlaceShipAt(cell / columns, cell % columns, (position & 1) != 0, ocean)){
+                throw new IllegalArgumentException("Ship " + i + " of game " + game + " does not fit");
+            }
+            ship.placeShipAt(cell / columns, cell % columns, (position & 1) != 0, ocean);
+        }
+        for (int i = 0; i < cursor.getShotCount(); i++){
+            int cell = cursor.getShot(i);
+            ocean.shootAt(cell / columns, cell % columns);
+        }
+    }
+
+    /**
+     * Reads one game's record at a time, in place in the mapped record file. A cursor is
+     * reused from game to game, so it creates nothing as it moves; it is used by one thread.
+     */
+    final class Cursor {
+
+        /**
+         * Id of the game the cursor is on, -1 before the first
+         */
+        private long game = -1;
+
+        /**
+         * Segment holding the game's record
+         */
+        private ByteBuffer segment;
+
+        /**
+         * Start of the record in its segment
+         */
+        private int start;
+
+        /**
+         * Number of shots of the game
+         */
+        private int shotCount;
+
+        /**
+         * Moves to a game
+         * @param game the game's id
+         * @throws IndexOutOfBoundsException if there is no such game
+         */
+        void seek(long game){
+            if (game < 0 || game >= GameArchive.this.games){
+                throw new IndexOutOfBoundsException("Game " + game + " of " + GameArchive.this.games);
+            }
+            long offset = GameArchive.this.index[(int) (game / INDEX_ENTRIES)].get((int) (game % INDEX_ENTRIES));
+            this.game = game;
+            this.segment = GameArchive.this.segments[(int) (offset / GameArchive.this.segmentBytes)];
+            this.start = (int) (offset % GameArchive.this.segmentBytes);
+            this.shotCount = this.segment.getShort(this.start) & 0xFFFF;
+        }
+
+        /**
+         * Moves to the next game
+         * @return false if the cursor was on the last game
+         */
+        boolean next(){
+            if (this.game + 1 >= GameArchive.this.games){
+                return false;
+            }
+            seek(this.game + 1);
+            return true;
+        }
+
+        /**
+         * Method to get the game the cursor is on
+         * @return the game's id
+         */
+        long getGame(){
+            return this.game;
+        }
+
+        /**
+         * Method to get the number of shots of the game
+         * @return the number of shots fired
+         */
+        int getShotCount(){
+            return this.shotCount;
+        }
+
+        /**
+         * Method to get where a ship of the game was
+         * @param ship position of the ship in the fleet
+         * @return its bow's cell times two, plus one if it is horizontal
+         */
+        int getPosition(int ship){
+            return this.segment.get(this.start + 2 + ship) & 0xFF;
+        }
+
+        /**
+         * Method to get a shot of the game
+         * @param shot number of the shot, from 0
+         * @return the cell fired at
+         */
+        int getShot(int shot){
+            return this.segment.get(this.start + 2 + GameArchive.this.config.getFleetSize() + shot) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GameArchiveTest {
+
+    /**
+     * Plays games with random shots, repeats included, archiving them in segments of 1 KB so
+     * the archive spans several segments
+     * @return the archive's record file
+     */
+    private Path playAndArchive(Ocean[] games, Random random) throws IOException {
+        Path path = Files.createTempFile("games", ".archive");
+        path.toFile().deleteOnExit();
+        GameArchive.indexPath(path).toFile().deleteOnExit();
+        try (GameArchiveWriter writer = new GameArchiveWriter(path, BoardConfig.STANDARD, 1024)){
+            for (int i = 0; i < games.length; i++){
+                games[i] = new Ocean();
+                games[i].placeAllShipsRandomly();
+                writer.startGame(games[i]);
+                while (!games[i].isGameOver()){
+                    games[i].shootAt(random.nextInt(10), random.nextInt(10));
+                }
+                assertEquals(i, writer.finishGame());
+            }
+            assertEquals(games.length, writer.size());
+        }
+        return path;
+    }
+
+    @Test
+    void testLooksUpGamesById() throws IOException {
+
+        Ocean[] games = new Ocean[50];
+        GameArchive archive = new GameArchive(playAndArchive(games, new Random(591)));
+        assertEquals(games.length, archive.size());
+        assertSame(BoardConfig.STANDARD, archive.getConfig());
+
+        // out of order, so every lookup goes through the index
+        Ocean replayed = new Ocean();
+        for (int i = games.length - 1; i >= 0; i -= 3){
+            archive.toOcean(i, replayed);
+            assertEquals(games[i].getShotsFired(), replayed.getShotsFired());
+            assertEquals(games[i].getHitCount(), replayed.getHitCount());
+            assertEquals(games[i].getStateHash(), replayed.getStateHash());
+            assertTrue(replayed.isGameOver());
+            for (int r = 0; r < 10; r++){
+                for (int c = 0; c < 10; c++){
+                    assertEquals(games[i].isOccupied(r, c), replayed.isOccupied(r, c));
+                }
+            }
+        }
+        assertEquals(games[7].getStateHash(), archive.toOcean(7).getStateHash());
+        assertThrows(IndexOutOfBoundsException.class, () -> archive.toOcean(games.length));
+    }
+
+    @Test
+    void testScansEveryGame() throws IOException {
+
+        Ocean[] games = new Ocean[30];
+        GameArchive archive = new GameArchive(playAndArchive(games, new Random(7)));
+
+        GameArchive.Cursor cursor = archive.cursor();
+        int count = 0;
+        while (cursor.next()){
+            assertEquals(count, cursor.getGame());
+            assertEquals(games[count].getShotsFired(), cursor.getShotCount());
+
+            // every ship's bow is where the game had it
+            for (int i = 0; i < archive.getConfig().getFleetSize(); i++){
+                int cell = cursor.getPosition(i) >>> 1;
+                Ship ship = games[count].getShipAt(cell / 10, cell % 10);
+                assertEquals(archive.getConfig().getShipLength(i), ship.getLength());
+                assertEquals(cell, ship.getBowRow() * 10 + ship.getBowColumn());
+            }
+            int last = cursor.getShot(cursor.getShotCount() - 1);
+            assertTrue(games[count].getShipAt(last / 10, last % 10).isSunk());
+            count++;
+        }
+        assertEquals(games.length, count);
+    }
+
+    @Test
+    void testFinishedGameIsNoLongerRecorded() throws IOException {
+
+        Path path = Files.createTempFile("games", ".archive");
+        path.toFile().deleteOnExit();
+        GameArchive.indexPath(path).toFile().deleteOnExit();
+        try (GameArchiveWriter writer = new GameArchiveWriter(path, BoardConfig.STANDARD)){
+            Ocean ocean = new Ocean();
+            ocean.placeAllShipsRandomly();
+            writer.startGame(ocean);
+            ocean.shootAt(0, 0);
+            ocean.shootAt(0, 1);
+            writer.finishGame();
+            assertThrows(IllegalStateException.class, writer::finishGame);
+
+            // shots after the game is finished go nowhere, and the next game starts empty
+            ocean.shootAt(0, 2);
+            Ocean next = new Ocean();
+            next.placeAllShipsRandomly();
+            writer.startGame(next);
+            ocean.shootAt(0, 3);
+            next.shootAt(9, 9);
+            writer.finishGame();
+        }
+
+        GameArchive.Cursor cursor = new GameArchive(path).cursor();
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.getShotCount());
+        assertEquals(1, cursor.getShot(1));
+        assertTrue(cursor.next());
+        assertEquals(1, cursor.getShotCount());
+        assertEquals(99, cursor.getShot(0));
+        assertFalse(cursor.next());
+    }
+}
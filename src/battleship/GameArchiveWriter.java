@@ -0,0 +1,276 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes finished games to a GameArchive, one record per game: the fleet's layout and the
+ * cells fired at, in order. Games are given record by record with append(), or recorded as
+ * they are played: startGame() listens to an ocean's shots and finishGame() appends them.
+ *
+ * Records and index entries are gathered in buffers and written to their files a batch at a
+ * time. The archive is readable once the writer is closed. A writer is not thread safe.
+ */
+final class GameArchiveWriter implements ShotListener, AutoCloseable {
+
+    /**
+     * Size of each of the two buffers
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Size of the games and their fleet
+     */
+    private final BoardConfig config;
+
+    /**
+     * Size of a mapped segment of the archive; records never cross from one to the next
+     */
+    private final int segmentBytes;
+
+    /**
+     * The record file and the index file
+     */
+    private final FileChannel records;
+    private final FileChannel index;
+
+    /**
+     * Records and index entries not written yet
+     */
+    private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /**
+     * Where the next record goes in the record file
+     */
+    private long offset = GameArchive.HEADER_BYTES;
+
+    /**
+     * Number of games appended
+     */
+    private long games;
+
+    /**
+     * The game being recorded by startGame(): its fleet's positions and the cells fired at
+     */
+    private final byte[] positions;
+    private byte[] shots = new byte[128];
+    private int shotCount;
+
+    /**
+     * Ocean of the game being recorded, or null between games
+     */
+    private Ocean ocean;
+
+    /**
+     * Creates an archive, replacing any file at the path, with 1 GB segments
+     * @param path the record file; the index goes next to it, see GameArchive.indexPath()
+     * @param config size of the games and their fleet, the ocean having at most 128 cells
+     */
+    GameArchiveWriter(Path path, BoardConfig config){
+        this(path, config, GameArchive.DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Creates an archive, replacing any file at the path
+     * @param path the record file; the index goes next to it, see GameArchive.indexPath()
+     * @param config size of the games and their fleet, the ocean having at most 128 cells
+     * @param segmentBytes size of a mapped segment, at least large enough for the longest record
+     */
+    GameArchiveWriter(Path path, BoardConfig config, int segmentBytes){
+        if (config.getCells() > PlacementTable.MAX_CELLS){
+            throw new IllegalArgumentException("An archive only covers oceans of up to 128 cells");
+        }
+        if (segmentBytes < GameArchive.HEADER_BYTES + GameArchive.recordBytes(config.getFleetSize(), 0)){
+            throw new IllegalArgumentException("Segments of " + segmentBytes + " bytes are too small");
+        }
+        this.config = config;
+        this.segmentBytes = segmentBytes;
+        this.positions = new byte[config.getFleetSize()];
+        try {
+            this.records = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.index = FileChannel.open(GameArchive.indexPath(path), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+            // the header: what the games are and how the file is cut into segments
+            ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_BYTES);
+            header.putInt(GameArchive.MAGIC);
+            header.put((byte) GameArchive.VERSION);
+            header.put((byte) config.getRows());
+            header.put((byte) config.getColumns());
+            header.put((byte) config.getFleetSize());
+            header.putInt(segmentBytes);
+            for (int length : config.getFleetLengths()){
+                header.put((byte) length);
+            }
+            header.clear();
+            while (header.hasRemaining()){
+                this.records.write(header);
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to get the number of games appended
+     * @return the number of games, the id the next game will get
+     */
+    long size(){
+        return this.games;
+    }
+
+    /**
+     * Starts recording a game: notes where its fleet is and listens to every shot fired in the
+     * ocean until finishGame()
+     * @param ocean ocean of the game, with its fleet placed and no shots fired
+     */
+    void startGame(Ocean ocean){
+        int[] nextShip = new int[BoardConfig.MAX_SHIP_LENGTH + 1];
+        Arrays.fill(nextShip, -1);
+        int[] lengths = this.config.getFleetLengths();
+        for (int i = lengths.length - 1; i >= 0; i--){
+            nextShip[lengths[i]] = i;
+        }
+
+        // ships of each length go to that length's entries in the fleet, found at their bows
+        int columns = this.config.getColumns();
+        int placed = 0;
+        for (int cell = 0; cell < this.config.getCells(); cell++){
+            int row = cell / columns;
+            int column = cell % columns;
+            if (!ocean.isOccupied(row, column)){
+                continue;
+            }
+            Ship ship = ocean.getShipAt(row, column);
+            if (row != ship.getBowRow() || column != ship.getBowColumn()){
+                continue;
+            }
+            int i = nextShip[ship.getLength()]++;
+            if (i < 0 || i >= lengths.length || lengths[i] != ship.getLength()){
+                throw new IllegalArgumentException("The ocean's fleet does not match " + this.config);
+            }
+            this.positions[i] = (byte) (cell * 2 + (ship.isHorizontal() ? 1 : 0));
+            placed++;
+        }
+        if (placed != lengths.length){
+            throw new IllegalArgumentException("The ocean's fleet is not all placed");
+        }
+        this.shotCount = 0;
+        this.ocean = ocean;
+        ocean.setShotListener(this);
+    }
+
+    @Override
+    public void shotFired(int cell, boolean hit, int sunkLength){
+        if (this.shotCount == this.shots.length){
+            this.shots = Arrays.copyOf(this.shots, this.shots.length * 2);
+        }
+        this.shots[this.shotCount++] = (byte) cell;
+    }
+
+    /**
+     * Appends the game recorded since startGame(), and stops listening to its ocean, so shots
+     * fired after this are not recorded
+     * @return the game's id
+     */
+    long finishGame(){
+        if (this.ocean == null){
+            throw new IllegalStateException("No game has been started");
+        }
+        this.ocean.setShotListener(null);
+        this.ocean = null;
+        return append(this.positions, this.shots, this.shotCount);
+    }
+
+    /**
+     * Appends a game
+     * @param positions position of every ship, in the configuration's fleet order: its bow's
+     *                  cell times two, plus one if it is horizontal
+     * @param shots cells fired at, in order
+     * @param shotCount number of shots, at most 65,535
+     * @return the game's id
+     */
+    long append(byte[] positions, byte[] shots, int shotCount){
+        int bytes = GameArchive.recordBytes(positions.length, shotCount);
+        if (shotCount > 0xFFFF || bytes > this.segmentBytes){
+            throw new IllegalArgumentException("A game of " + shotCount + " shots is too long for the archive");
+        }
+
+        // a record that would cross into the next segment starts that segment instead
+        long segmentEnd = (this.offset / this.segmentBytes + 1) * this.segmentBytes;
+        if (this.offset + bytes > segmentEnd){
+            pad((int) (segmentEnd - this.offset));
+        }
+        room(this.recordBuffer, bytes);
+        room(this.indexBuffer, 8);
+        this.indexBuffer.putLong(this.offset);
+
+        ByteBuffer out = this.recordBuffer;
+        out.putShort((short) shotCount);
+        out.put(positions);
+        out.put(shots, 0, shotCount);
+        this.offset += bytes;
+        return this.games++;
+    }
+
+    /**
+     * Writes everything buffered and closes the files
+     */
+    @Override
+    public void close(){
+        try {
+            flush(this.recordBuffer, this.records);
+            flush(this.indexBuffer, this.index);
+            this.records.close();
+            this.index.close();
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes zeros up to the start of the next segment
+     */
+    private void pad(int bytes){
+        this.offset += bytes;
+        while (bytes > 0){
+            room(this.recordBuffer, 1);
+            int now = Math.min(bytes, this.recordBuffer.remaining());
+            for (int i = 0; i < now; i++){
+                this.recordBuffer.put((byte) 0);
+            }
+            bytes -= now;
+        }
+    }
+
+    /**
+     * Makes sure a buffer has room, writing it out to its file if not
+     */
+    private void room(ByteBuffer buffer, int bytes){
+        if (buffer.remaining() < bytes){
+            try {
+                flush(buffer, buffer == this.recordBuffer ? this.records : this.index);
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes a buffer out to its file
+     */
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,443 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server hosting many games at once, one session per game, each with its own
+ * Ocean filled by placeAllShipsRandomly. Players create a game, fire shots at it and are told
+ * what each shot did, as BattleshipGame tells a player at the console:
+ *
+ *   POST   /games                          starts a game; ?seed=n places a reproducible fleet
+ *   POST   /games/{id}/shots?row=r&column=c fires a shot: hit, miss or sunk, and game over
+ *   GET    /games/{id}                     the game's counts so far
+ *   DELETE /games/{id}                     ends the session
+ *   GET    /metrics                        number of requests and their latency, per route
+ *
+ * Replies are small JSON objects. Connections are accepted by the HttpServer's selector, so an
+ * idle connection holds no thread; each request is handled on a thread of its own, a virtual
+ * thread where the Java runtime has them and a pooled platform thread where it does not, so
+ * requests that wait on a busy game never hold up the others.
+ *
+ * Sessions share nothing but the table that finds them by id. A shot locks only its own
+ * game's ocean, so games are played in parallel, and shots at the same game are taken one at
+ * a time, in the order they arrive.
+ *
+ * Usage: GameServer [port] [max sessions]
+ */
+public class GameServer {
+
+    /**
+     * Default port to listen on
+     */
+    static final int DEFAULT_PORT = 8591;
+
+    /**
+     * Default largest number of games hosted at once
+     */
+    static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    /**
+     * The HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * Runs the requests, one thread per request
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Largest number of games hosted at once
+     */
+    private final int maxSessions;
+
+    /**
+     * The games being played, by id
+     */
+    private final ConcurrentHashMap<Long, Ocean> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Number of games hosted or being created, so a game takes its place before it is added
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    /**
+     * Id of the next game
+     */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Latency of every route
+     */
+    private final Latency creates = new Latency();
+    private final Latency shots = new Latency();
+    private final Latency lookups = new Latency();
+    private final Latency deletes = new Latency();
+
+    /**
+     * Creates a server, not yet started
+     * @param port port to listen on, 0 for any free port
+     * @param maxSessions largest number of games hosted at once
+     * @throws IOException if the port cannot be bound
+     */
+    GameServer(int port, int maxSessions) throws IOException {
+        this.maxSessions = maxSessions;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newThreadPerTaskExecutor();
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/games", this::games);
+        this.server.createContext("/metrics", this::metrics);
+    }
+
+    /**
+     * Method to get the port the server listens on
+     * @return the port, the one chosen by the system if the server was created with port 0
+     */
+    int getPort(){
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Method to get the number of games hosted
+     * @return the number of sessions not ended
+     */
+    int getSessionCount(){
+        return this.sessionCount.get();
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    void start(){
+        this.server.start();
+    }
+
+    /**
+     * Stops the server, letting requests being handled finish for up to a second
+     */
+    void stop(){
+        this.server.stop(1);
+        this.executor.shutdown();
+    }
+
+    /**
+     * Method to get an executor that runs every task on a new virtual thread, or, on a Java
+     * runtime without virtual threads, on a pooled platform thread
+     * @return the executor
+     */
+    static ExecutorService newThreadPerTaskExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch (ReflectiveOperationException e){
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Handles every request under /games
+     */
+    private void games(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String[] parts = exchange.getRequestURI().getPath().split("/");
+        Latency latency = null;
+        try {
+
+            // parts are "", "games", then the id and "shots" if given; the context matches any
+            // path that starts with /games, /gamesXYZ included
+            if (parts.length < 2 || !parts[1].equals("games")){
+                reply(exchange, 404, error("No such route"));
+            }else if (parts.length == 2 && method.equals("POST")){
+                latency = this.creates;
+                create(exchange);
+            }else if (parts.length == 4 && parts[3].equals("shots") && method.equals("POST")){
+                latency = this.shots;
+                shoot(exchange, parseId(parts[2]));
+            }else if (parts.length == 3 && method.equals("GET")){
+                latency = this.lookups;
+                status(exchange, parseId(parts[2]));
+            }else if (parts.length == 3 && method.equals("DELETE")){
+                latency = this.deletes;
+                if (this.sessions.remove(parseId(parts[2])) == null){
+                    reply(exchange, 404, error("No such game"));
+                }else {
+                    this.sessionCount.decrementAndGet();
+                    reply(exchange, 200, "{}");
+                }
+            }else {
+                reply(exchange, 404, error("No such route"));
+            }
+        }finally {
+            exchange.close();
+            if (latency != null){
+                latency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Starts a game
+     */
+    private void create(HttpExchange exchange) throws IOException {
+        String seed = query(exchange, "seed");
+        SplittableRandom random;
+        try {
+            random = seed == null ? null : new SplittableRandom(Long.parseLong(seed));
+        }catch (NumberFormatException e){
+            reply(exchange, 400, error("The seed is not a number"));
+            return;
+        }
+
+        // take a place first, so games created at the same time cannot go over the limit
+        if (this.sessionCount.incrementAndGet() > this.maxSessions){
+            this.sessionCount.decrementAndGet();
+            reply(exchange, 503, error("Too many games"));
+            return;
+        }
+        Ocean ocean = new Ocean();
+        if (random == null){
+            ocean.placeAllShipsRandomly();
+        }else {
+            ocean.placeAllShipsRandomly(random);
+        }
+        long id = this.nextId.getAndIncrement();
+        this.sessions.put(id, ocean);
+        reply(exchange, 201, "{\"id\":" + id + "}");
+    }
+
+    /**
+     * Fires a shot at a game
+     */
+    private void shoot(HttpExchange exchange, long id) throws IOException {
+        Ocean ocean = this.sessions.get(id);
+        if (ocean == null){
+            reply(exchange, 404, error("No such game"));
+            return;
+        }
+        int row;
+        int column;
+        try {
+            row = Integer.parseInt(String.valueOf(query(exchange, "row")));
+            column = Integer.parseInt(String.valueOf(query(exchange, "column")));
+        }catch (NumberFormatException e){
+            reply(exchange, 400, error("Give the row and column to fire at"));
+            return;
+        }
+        if (row < 0 || row >= ocean.getRows() || column < 0 || column >= ocean.getColumns()){
+            reply(exchange, 400, error("The shot is off the board"));
+            return;
+        }
+
+        // one shot at a time per game
+        String result;
+        synchronized (ocean){
+            int sunkBefore = ocean.getShipsSunk();
+            boolean hit = ocean.shootAt(row, column);
+            if (ocean.getShipsSunk() != sunkBefore){
+                result = "\"result\":\"sunk\",\"ship\":\""
+                        + ocean.getShipAt(row, column).getShipType().toLowerCase() + "\"";
+            }else {
+                result = hit ? "\"result\":\"hit\"" : "\"result\":\"miss\"";
+            }
+            result = "{" + result + ",\"gameOver\":" + ocean.isGameOver() + ",\"shots\":" + ocean.getShotsFired() + "}";
+        }
+        reply(exchange, 200, result);
+    }
+
+    /**
+     * Tells a game's counts so far
+     */
+    private void status(HttpExchange exchange, long id) throws IOException {
+        Ocean ocean = this.sessions.get(id);
+        if (ocean == null){
+            reply(exchange, 404, error("No such game"));
+            return;
+        }
+        String body;
+        synchronized (ocean){
+            body = "{\"shots\":" + ocean.getShotsFired() + ",\"hits\":" + ocean.getHitCount()
+                    + ",\"shipsSunk\":" + ocean.getShipsSunk() + ",\"gameOver\":" + ocean.isGameOver() + "}";
+        }
+        reply(exchange, 200, body);
+    }
+
+    /**
+     * Tells the number of requests and their latency, per route
+     */
+    private void metrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals("/metrics")){
+                reply(exchange, 404, error("No such route"));
+                return;
+            }
+            reply(exchange, 200, "{\"sessions\":" + getSessionCount()
+                    + ",\"create\":" + this.creates + ",\"shot\":" + this.shots
+                    + ",\"status\":" + this.lookups + ",\"delete\":" + this.deletes + "}");
+        }finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method to get the id of a game from its part of the path
+     * @return the id, or -1 if it is not a number
+     */
+    private static long parseId(String part){
+        try {
+            return Long.parseLong(part);
+        }catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    /**
+     * Method to get a parameter of the request's query
+     * @return the parameter's value, or null if it is not given
+     */
+    private static String query(HttpExchange exchange, String name){
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null){
+            return null;
+        }
+        for (String pair : query.split("&")){
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)){
+                return pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method to get the reply to a request that failed
+     * @return a JSON object holding the message
+     */
+    private static String error(String message){
+        return "{\"error\":\"" + message + "\"}";
+    }
+
+    /**
+     * Sends a reply
+     */
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Counts the requests to a route and how long they took, in buckets of powers of two
+     * nanoseconds. Requests on any number of threads record into it without locking.
+     */
+    static final class Latency {
+
+        /**
+         * Number of requests that took less than 2 to the power of each bucket's index
+         * nanoseconds, and at least half that
+         */
+        private final LongAdder[] buckets = new LongAdder[64];
+
+        /**
+         * Total time of all requests, in nanoseconds
+         */
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * Creates an empty record
+         */
+        Latency(){
+            for (int i = 0; i < this.buckets.length; i++){
+                this.buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records a request
+         * @param nanos how long it took
+         */
+        void record(long nanos){
+            this.buckets[64 - Long.numberOfLeadingZeros(Math.max(nanos, 0))].increment();
+            this.total.add(nanos);
+        }
+
+        /**
+         * Method to get the number of requests recorded
+         * @return the number of requests
+         */
+        long getCount(){
+            long count = 0;
+            for (LongAdder bucket : this.buckets){
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Method to get a percentile of the latency
+         * @param fraction the fraction of requests, 0.5 for the median
+         * @return the time, in nanoseconds, that at least that fraction of the requests took
+         *         no longer than, rounded up to a power of two; 0 if none were recorded
+         */
+        long getPercentile(double fraction){
+            long[] counts = new long[this.buckets.length];
+            long count = 0;
+            for (int i = 0; i < counts.length; i++){
+                counts[i] = this.buckets[i].sum();
+                count += counts[i];
+            }
+            long wanted = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++){
+                seen += counts[i];
+                if (seen >= wanted && seen > 0){
+                    return i == 0 ? 0 : 1L << Math.min(i, 62);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Method to get the latency as a JSON object
+         * @return the number of requests, the mean and the percentiles, in microseconds
+         */
+        @Override
+        public String toString(){
+            long count = getCount();
+            double mean = count == 0 ? 0 : this.total.sum() / 1e3 / count;
+            return String.format(Locale.ROOT, "{\"count\":%d,\"meanMicros\":%.1f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,\"p999Micros\":%.1f}",
+                    count, mean, getPercentile(0.5) / 1e3, getPercentile(0.99) / 1e3, getPercentile(0.999) / 1e3);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        // replies are small, so without this each one can wait for a delayed ACK (about 40 ms);
+        // the HttpServer reads the setting once, when the first server is created, so it has
+        // to be set before that
+        if (System.getProperty("sun.net.httpserver.nodelay") == null){
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length < 1 ? DEFAULT_PORT : Integer.parseInt(args[0]);
+        int maxSessions = args.length < 2 ? DEFAULT_MAX_SESSIONS : Integer.parseInt(args[1]);
+        GameServer server = new GameServer(port, maxSessions);
+        server.start();
+        System.out.println("Hosting games on port " + server.getPort());
+    }
+}
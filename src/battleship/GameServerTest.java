@@ -0,0 +1,183 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Value of sun.net.httpserver.nodelay before the test, or null if it was not set
+     */
+    private String nodelay;
+
+    @BeforeEach
+    void setUp(){
+
+        // as GameServer.main() does, so replies are not held back by delayed ACKs
+        this.nodelay = System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @AfterEach
+    void tearDown(){
+        if (this.nodelay == null){
+            System.clearProperty("sun.net.httpserver.nodelay");
+        }else {
+            System.setProperty("sun.net.httpserver.nodelay", this.nodelay);
+        }
+    }
+
+    /**
+     * Sends a request to the server
+     * @return the reply's status and body, as "status body"
+     */
+    private String send(GameServer server, String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() + " " + response.body();
+    }
+
+    /**
+     * Method to get the id of a game from the reply that created it
+     */
+    private static long id(String reply){
+        assertTrue(reply.startsWith("201 {\"id\":"), reply);
+        return Long.parseLong(reply.substring("201 {\"id\":".length(), reply.length() - 1));
+    }
+
+    @Test
+    void testPlaysSeededGame() throws Exception {
+
+        GameServer server = new GameServer(0, 10);
+        server.start();
+        try {
+            long id = id(send(server, "POST", "/games?seed=591"));
+
+            // the same seed places the same fleet as an ocean here, so every answer is known
+            Ocean ocean = new Ocean();
+            ocean.placeAllShipsRandomly(new SplittableRandom(591));
+            for (int cell = 0; !ocean.isGameOver(); cell++){
+                int row = cell / 10;
+                int column = cell % 10;
+                int sunkBefore = ocean.getShipsSunk();
+                boolean hit = ocean.shootAt(row, column);
+                String result = ocean.getShipsSunk() != sunkBefore
+                        ? "sunk\",\"ship\":\"" + ocean.getShipAt(row, column).getShipType().toLowerCase()
+                        : hit ? "hit" : "miss";
+                assertEquals("200 {\"result\":\"" + result + "\",\"gameOver\":" + ocean.isGameOver()
+                        + ",\"shots\":" + ocean.getShotsFired() + "}",
+                        send(server, "POST", "/games/" + id + "/shots?row=" + row + "&column=" + column));
+            }
+            assertEquals("200 {\"shots\":" + ocean.getShotsFired() + ",\"hits\":20,\"shipsSunk\":10,\"gameOver\":true}",
+                    send(server, "GET", "/games/" + id));
+
+            // bad requests, then the end of the session
+            assertTrue(send(server, "POST", "/games/" + id + "/shots?row=10&column=0").startsWith("400"));
+            assertTrue(send(server, "POST", "/games/" + id + "/shots?row=1").startsWith("400"));
+            assertTrue(send(server, "GET", "/games/" + (id + 1)).startsWith("404"));
+            assertTrue(send(server, "POST", "/gamesXYZ").startsWith("404"));
+            assertTrue(send(server, "GET", "/metricsXYZ").startsWith("404"));
+            assertEquals("200 {}", send(server, "DELETE", "/games/" + id));
+            assertTrue(send(server, "POST", "/games/" + id + "/shots?row=0&column=0").startsWith("404"));
+            assertEquals(0, server.getSessionCount());
+
+            String metrics = send(server, "GET", "/metrics");
+            assertTrue(metrics.contains("\"shot\":{\"count\":" + (ocean.getShotsFired() + 3) + ","), metrics);
+        }finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testPlaysManyGamesAtOnce() throws Exception {
+
+        GameServer server = new GameServer(0, 1000);
+        server.start();
+        ExecutorService clients = GameServer.newThreadPerTaskExecutor();
+        try {
+
+            // every client plays a whole game, firing at every cell in turn
+            List<Future<String>> games = new ArrayList<>();
+            for (int i = 0; i < 20; i++){
+                games.add(clients.submit(() -> {
+                    long id = id(send(server, "POST", "/games"));
+                    String reply = "";
+                    for (int cell = 0; cell < 100 && !reply.contains("\"gameOver\":true"); cell++){
+                        reply = send(server, "POST", "/games/" + id + "/shots?row=" + cell / 10 + "&column=" + cell % 10);
+                    }
+                    return reply;
+                }));
+            }
+            for (Future<String> game : games){
+                assertTrue(game.get().contains("\"result\":\"sunk\",\"ship\":"), game.get());
+                assertTrue(game.get().contains("\"gameOver\":true"), game.get());
+            }
+            assertEquals(20, server.getSessionCount());
+
+            // a full server turns new games away
+            GameServer full = new GameServer(0, 0);
+            full.start();
+            try {
+                assertTrue(send(full, "POST", "/games").startsWith("503"));
+            }finally {
+                full.stop();
+            }
+        }finally {
+            clients.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    void testNeverHostsMoreThanMaxSessions() throws Exception {
+
+        GameServer server = new GameServer(0, 5);
+        server.start();
+        ExecutorService clients = GameServer.newThreadPerTaskExecutor();
+        try {
+
+            // many games asked for at once: only as many as there is room for are created
+            List<Future<String>> replies = new ArrayList<>();
+            for (int i = 0; i < 40; i++){
+                replies.add(clients.submit(() -> send(server, "POST", "/games")));
+            }
+            int created = 0;
+            for (Future<String> reply : replies){
+                if (reply.get().startsWith("201")){
+                    created++;
+                }else {
+                    assertTrue(reply.get().startsWith("503"), reply.get());
+                }
+            }
+            assertEquals(5, created);
+            assertEquals(5, server.getSessionCount());
+
+            // ending a game makes room for one more, and a bad seed takes no room
+            assertTrue(send(server, "POST", "/games?seed=x").startsWith("400"));
+            assertEquals("200 {}", send(server, "DELETE", "/games/1"));
+            assertEquals(4, server.getSessionCount());
+            id(send(server, "POST", "/games"));
+            assertTrue(send(server, "POST", "/games").startsWith("503"));
+        }finally {
+            clients.shutdown();
+            server.stop();
+        }
+    }
+}
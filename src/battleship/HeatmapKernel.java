@@ -0,0 +1,47 @@
+package battleship;
+
+/**
+ * The inner loops of the probability shooters, over per-cell weights of the standard board
+ * kept in a long[128] indexed like the two-long masks (cells 0-63, then 64-127): adding the
+ * weight of each possible footprint to its cells, ruling out the cells already fired upon,
+ * and finding the cell with the highest weight.
+ *
+ * HeatmapKernels picks an implementation once, when it is first used: one written with the
+ * incubating Vector API when that module is available, the plain Java one otherwise. Both
+ * give exactly the same results.
+ */
+interface HeatmapKernel {
+
+    /**
+     * Adds the weight of each footprint to every cell it covers
+     * @param density per-cell weights, 128 long
+     * @param cellsLo per footprint, cells 0-63 it covers
+     * @param cellsHi per footprint, cells 64-127 it covers
+     * @param weights per footprint, the weight to add
+     * @param count number of footprints
+     */
+    void accumulate(long[] density, long[] cellsLo, long[] cellsHi, long[] weights, int count);
+
+    /**
+     * Adds one set of per-cell weights to another
+     * @param total per-cell weights to add to, 128 long
+     * @param tally per-cell weights to add, 128 long
+     */
+    void add(long[] total, long[] tally);
+
+    /**
+     * Sets the weight of every cell fired upon to -1, so it can never be chosen
+     * @param density per-cell weights, 128 long
+     * @param shotLo cells 0-63 fired upon
+     * @param shotHi cells 64-127 fired upon
+     */
+    void maskShots(long[] density, long shotLo, long shotHi);
+
+    /**
+     * Finds the first cell with the highest weight
+     * @param density per-cell weights
+     * @param cells number of cells to look at, from cell 0
+     * @return the cell, or -1 if every weight is negative
+     */
+    int argmax(long[] density, int cells);
+}
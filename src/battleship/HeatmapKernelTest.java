@@ -0,0 +1,69 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class HeatmapKernelTest {
+
+    @Test
+    void testScalarKernel() {
+        HeatmapKernel kernel = HeatmapKernels.scalar();
+        long[] density = new long[128];
+
+        // two footprints sharing cell 5, one of them also on cell 70
+        kernel.accumulate(density, new long[]{0b110000, 0b100000}, new long[]{0, 1L << 6}, new long[]{2, 3}, 2);
+        assertEquals(2, density[4]);
+        assertEquals(5, density[5]);
+        assertEquals(3, density[70]);
+        assertEquals(5, kernel.argmax(density, 100));
+
+        // once cell 5 is shot the tie between 70 and nothing else goes to 70
+        kernel.maskShots(density, 1L << 5, 0);
+        assertEquals(-1, density[5]);
+        assertEquals(70, kernel.argmax(density, 100));
+
+        // with nothing left but shot cells there is no best cell
+        kernel.maskShots(density, -1L, -1L);
+        assertEquals(-1, kernel.argmax(density, 100));
+    }
+
+    @Test
+    void testKernelsAgree() {
+        HeatmapKernel scalar = HeatmapKernels.scalar();
+        HeatmapKernel selected = HeatmapKernels.selected();
+        PlacementTable table = PlacementTable.STANDARD;
+        SplittableRandom random = new SplittableRandom(591);
+
+        for (int round = 0; round < 200; round++){
+
+            // a random selection of footprints of every length with random weights
+            long[] lo = new long[400];
+            long[] hi = new long[400];
+            long[] weights = new long[400];
+            int count = random.nextInt(lo.length);
+            for (int i = 0; i < count; i++){
+                int length = 1 + random.nextInt(4);
+                int f = random.nextInt(table.footprints(length));
+                lo[i] = table.cellsLo(length, f);
+                hi[i] = table.cellsHi(length, f);
+                weights[i] = random.nextInt(1000);
+            }
+            long shotLo = random.nextLong() & random.nextLong();
+            long shotHi = random.nextLong() & random.nextLong() & ((1L << 36) - 1);
+
+            long[] expected = new long[128];
+            long[] actual = new long[128];
+            scalar.accumulate(expected, lo, hi, weights, count);
+            selected.accumulate(actual, lo, hi, weights, count);
+            scalar.add(expected, expected);
+            selected.add(actual, actual);
+            scalar.maskShots(expected, shotLo, shotHi);
+            selected.maskShots(actual, shotLo, shotHi);
+            assertArrayEquals(expected, actual);
+            assertEquals(scalar.argmax(expected, 100), selected.argmax(actual, 100));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package battleship;
+
+/**
+ * Chooses the HeatmapKernel the shooters use, once, when it is first needed. The Vector API
+ * kernel is used when the jdk.incubator.vector module was added at start-up (java --add-modules
+ * jdk.incubator.vector) and works on this machine; the scalar kernel otherwise. The system
+ * property battleship.heatmap=scalar forces the scalar kernel.
+ */
+final class HeatmapKernels {
+
+    /**
+     * The plain Java kernel
+     */
+    private static final HeatmapKernel SCALAR = new ScalarHeatmapKernel();
+
+    /**
+     * The Vector API kernel, or null if it is not available
+     */
+    private static final HeatmapKernel VECTOR = loadVector();
+
+    /**
+     * The kernel chosen at start-up
+     */
+    private static final HeatmapKernel SELECTED =
+            VECTOR != null && !"scalar".equals(System.getProperty("battleship.heatmap")) ? VECTOR : SCALAR;
+
+    private HeatmapKernels(){
+    }
+
+    /**
+     * Method to get the kernel chosen at start-up
+     * @return the Vector API kernel if it is available, the scalar kernel otherwise
+     */
+    static HeatmapKernel selected(){
+        return SELECTED;
+    }
+
+    /**
+     * Method to get the plain Java kernel
+     * @return the scalar kernel
+     */
+    static HeatmapKernel scalar(){
+        return SCALAR;
+    }
+
+    /**
+     * Method to get the Vector API kernel
+     * @return the Vector API kernel, or null if it is not available
+     */
+    static HeatmapKernel vector(){
+        return VECTOR;
+    }
+
+    /**
+     * Loads the Vector API kernel by name, so this class never refers to it when the module
+     * is missing, and checks it on a small example
+     * @return the kernel, or null if the module is missing or the kernel does not work
+     */
+    private static HeatmapKernel loadVector(){
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()){
+            return null;
+        }
+        try {
+            HeatmapKernel kernel = (HeatmapKernel) Class.forName("battleship.VectorHeatmapKernel")
+                    .getDeclaredConstructor().newInstance();
+            long[] density = new long[128];
+            kernel.accumulate(density, new long[]{1L << 3}, new long[]{1L << 5}, new long[]{7}, 1);
+            return density[3] == 7 && density[69] == 7 && kernel.argmax(density, 128) == 3 ? kernel : null;
+        }catch (ReflectiveOperationException | LinkageError | RuntimeException e){
+            return null;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * Counts the ways to complete a partly built fleet layout, for UniformLayoutSampler and
+ * LayoutEnumerator.
+ *
+ * The cells are visited in row-major order and at each free cell one of the remaining ships may
+ * have its top-left cell there, or none does. Every layout corresponds to exactly one sequence of
+ * such decisions, with ships of the same length treated as interchangeable, so no layout is
+ * counted twice. The counts are memoised on the cell, the ships still to place and the blocked
+ * cells (ships plus their no-touch halos) from that cell on.
+ *
+ * Counting fills the memo, so a counter must not be used by several threads at once unless
+ * every state they ask about has already been counted.
+ */
+final class LayoutCounter {
+
+    /**
+     * Footprints the layouts are built from
+     */
+    private final PlacementTable table;
+
+    /**
+     * Lengths of the ships to place, in the order layouts are reported in
+     */
+    private final int[] fleetLengths;
+
+    /**
+     * Length of the longest ship
+     */
+    private final int maxLength;
+
+    /**
+     * Number of cells on the board
+     */
+    private final int cells;
+
+    /**
+     * The ships still to place are encoded as one number, with a digit per ship length.
+     * unit[length] is the value of one ship of that length.
+     */
+    private final int[] unit;
+
+    /**
+     * The encoding of the whole fleet
+     */
+    private final int fullFleet;
+
+    /**
+     * Number of different encodings of ships still to place
+     */
+    private final int fleetStates;
+
+    /**
+     * For every ship length and cell, the (up to two) footprints whose top-left cell it is, or -1
+     */
+    private final int[][] startingAt;
+
+    /**
+     * Number of layouts that complete each state counted so far
+     */
+    private final LongLongHashMap completions = new LongLongHashMap(1 << 16);
+
+    /**
+     * Creates a counter with an empty memo
+     * @param table footprints of the board
+     * @param fleetLengths lengths of the ships in the fleet
+     */
+    LayoutCounter(PlacementTable table, int[] fleetLengths){
+        this.table = table;
+        this.fleetLengths = fleetLengths.clone();
+        this.cells = table.getRows() * table.getColumns();
+
+        int longest = 0;
+        for (int length : fleetLengths){
+            longest = Math.max(longest, length);
+        }
+        this.maxLength = longest;
+
+        // one digit per ship length, each digit runs from 0 to the number of ships of that length
+        this.unit = new int[longest + 1];
+        int states = 1;
+        for (int length = 1; length <= longest; length++){
+            int ofLength = 0;
+            for (int l : fleetLengths){
+                if (l == length){
+                    ofLength++;
+                }
+            }
+            this.unit[length] = states;
+            states *= ofLength + 1;
+        }
+        this.fleetStates = states;
+        this.fullFleet = states - 1;
+
+        // the blocked cells that matter are those from the current cell up to one row
+        // below the longest vertical ship that could have started before it
+        int windowBits = longest * table.getColumns() + 2;
+        if (fleetLengths.length > 64 || windowBits + bits(states) + bits(this.cells) > 63){
+            throw new IllegalArgumentException("board and fleet too large for exact counting");
+        }
+
+        // index the footprints by their top-left cell, which is the lowest cell index they cover
+        this.startingAt = new int[longest + 1][];
+        for (int length = 1; length <= longest; length++){
+            int[] starts = new int[2 * this.cells];
+            Arrays.fill(starts, -1);
+            for (int f = 0; f < table.footprints(length); f++){
+                long lo = table.cellsLo(length, f);
+                int topLeft = lo != 0 ? Long.numberOfTrailingZeros(lo)
+                        : 64 + Long.numberOfTrailingZeros(table.cellsHi(length, f));
+                int slot = starts[2 * topLeft] < 0 ? 2 * topLeft : 2 * topLeft + 1;
+                starts[slot] = f;
+            }
+            this.startingAt[length] = starts;
+        }
+
+    }
+
+    /**
+     * Number of bits needed to store values from 0 to n - 1
+     */
+    private static int bits(int n){
+        return 32 - Integer.numberOfLeadingZeros(n - 1);
+    }
+
+    /**
+     * Method to get the encoding of the whole fleet, before any ship is placed
+     * @return the encoding of the whole fleet
+     */
+    int fullFleet(){
+        return this.fullFleet;
+    }
+
+    /**
+     * Method to get the value one ship of the given length adds to a fleet encoding
+     * @param length ship length
+     * @return the value of one ship of that length
+     */
+    int unit(int length){
+        return this.unit[length];
+    }
+
+    /**
+     * Method to get the length of the longest ship in the fleet
+     * @return the longest ship length
+     */
+    int maxLength(){
+        return this.maxLength;
+    }
+
+    /**
+     * Method to get the number of cells on the board
+     * @return the number of cells
+     */
+    int cells(){
+        return this.cells;
+    }
+
+    /**
+     * Method to get the placement table the footprints refer to
+     * @return the placement table
+     */
+    PlacementTable table(){
+        return this.table;
+    }
+
+    /**
+     * Method to get a footprint whose top-left cell is the given cell
+     * @param length ship length
+     * @param cell cell index
+     * @param k 0 or 1, a cell is the top-left cell of at most two footprints of a length
+     * @return the footprint number, or -1 if there is none
+     */
+    int startingAt(int length, int cell, int k){
+        return this.startingAt[length][2 * cell + k];
+    }
+
+    /**
+     * Records a chosen footprint in a layout, against the first ship of that length
+     * that has not been given a footprint yet
+     * @param length ship length
+     * @param footprint footprint number
+     * @param filled bit i set if layout[i] is already filled in
+     * @param layout footprint number for each ship, in the order of the fleet lengths
+     * @return filled with the newly filled entry added
+     */
+    long assign(int length, int footprint, long filled, int[] layout){
+        for (int ship = 0; ship < this.fleetLengths.length; ship++){
+            if (this.fleetLengths[ship] == length && (filled & (1L << ship)) == 0){
+                layout[ship] = footprint;
+                return filled | (1L << ship);
+            }
+        }
+        throw new IllegalArgumentException("no ship of length " + length + " left to place");
+    }
+
+    /**
+     * Method to check whether a cell is in a two-long mask
+     * @param cell cell index
+     * @param lo cells 0-63
+     * @param hi cells 64-127
+     * @return true if the cell is set
+     */
+    static boolean isSet(int cell, long lo, long hi){
+        return cell < 64 ? (lo & (1L << cell)) != 0 : (hi & (1L << cell)) != 0;
+    }
+
+    /**
+     * Number of layouts that complete a state: every cell before the given one has been decided,
+     * the given ships are still to place, and the given cells are taken by ships or their halos.
+     *
+     * @param cell first cell not decided yet
+     * @param fleet encoding of the ships still to place
+     * @param blockedLo cells 0-63 taken by placed ships or their halos
+     * @param blockedHi cells 64-127 taken by placed ships or their halos
+     * @return the number of ways to place the remaining ships
+     */
+    long count(int cell, int fleet, long blockedLo, long blockedHi){
+
+        // nothing left to place, this is one complete layout
+        if (fleet == 0){
+            return 1;
+        }
+
+        // no ship can start on a blocked cell
+        while (cell < this.cells && isSet(cell, blockedLo, blockedHi)){
+            cell++;
+        }
+        if (cell == this.cells){
+            return 0;
+        }
+
+        long key = key(cell, fleet, blockedLo, blockedHi);
+        long known = this.completions.get(key, -1);
+        if (known >= 0){
+            return known;
+        }
+
+        // either no ship starts here, or one of the remaining ships does
+        long total = count(cell + 1, fleet, blockedLo, blockedHi);
+        for (int length = 1; length <= this.maxLength; length++){
+            if (remaining(fleet, length) == 0){
+                continue;
+            }
+            for (int k = 0; k < 2; k++){
+                int footprint = this.startingAt[length][2 * cell + k];
+                if (footprint >= 0 && fits(length, footprint, blockedLo, blockedHi)){
+                    total = Math.addExact(total, count(cell + 1, fleet - this.unit[length],
+                            blockedLo | this.table.haloLo(length, footprint),
+                            blockedHi | this.table.haloHi(length, footprint)));
+                }
+            }
+        }
+
+        this.completions.put(key, total);
+        return total;
+    }
+
+    /**
+     * Method to get the number of ships of the given length still to place
+     * @param fleet encoding of the ships still to place
+     * @param length ship length
+     * @return the number of ships of that length in the encoding
+     */
+    int remaining(int fleet, int length){
+        int digits = length < this.maxLength ? this.unit[length + 1] : this.fleetStates;
+        return (fleet % digits) / this.unit[length];
+    }
+
+    /**
+     * Method to check whether a footprint avoids every blocked cell
+     * @param length ship length
+     * @param footprint footprint number in the placement table
+     * @param blockedLo blocked cells 0-63
+     * @param blockedHi blocked cells 64-127
+     * @return true if the ship fits, false otherwise
+     */
+    boolean fits(int length, int footprint, long blockedLo, long blockedHi){
+        return (this.table.cellsLo(length, footprint) & blockedLo) == 0
+                && (this.table.cellsHi(length, footprint) & blockedHi) == 0;
+    }
+
+    /**
+     * Packs a counting state into a single long: the blocked cells from the current cell on,
+     * the ships still to place and the current cell. Never 0, because some ship is left.
+     */
+    private long key(int cell, int fleet, long blockedLo, long blockedHi){
+        long window;
+        if (cell == 0){
+            window = blockedLo;
+        }else if (cell < 64){
+            window = (blockedLo >>> cell) | (blockedHi << (64 - cell));
+        }else {
+            window = blockedHi >>> (cell - 64);
+        }
+        return (window * this.fleetStates + fleet) * this.cells + cell;
+    }
+}
@@ -0,0 +1,323 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts or enumerates every legal layout of a fleet, splitting the work across cores with
+ * fork-join. Layouts follow the rules of Ship.okToPlaceShipAt and ships of the same length are
+ * interchangeable, so each layout is found exactly once (see LayoutCounter).
+ *
+ * The search places ships in order of their top-left cell. The first few ships are split into
+ * separate fork-join tasks; each task then finishes its subtree on its own thread, either by
+ * counting it with that thread's LayoutCounter or by walking every layout in it. While walking,
+ * subtrees whose count is 0 are skipped without being entered. The counters, and the memos
+ * they filled, are dropped when the search is over, so the pool's threads do not keep them.
+ *
+ * Usage: LayoutEnumerator [--enumerate] [rows columns length...]
+ * Without a board and fleet, the standard fleet on the standard 10 x 10 ocean is counted.
+ */
+public class LayoutEnumerator {
+
+    /**
+     * Receives every layout found by enumerate()
+     */
+    interface LayoutVisitor {
+
+        /**
+         * Called once per layout, from the worker thread that found it. The array is reused
+         * for the next layout, so copy it if it has to be kept.
+         *
+         * @param layout footprint number of each ship, in the order of the fleet lengths
+         */
+        void visit(int[] layout);
+    }
+
+    /**
+     * Footprints of the board
+     */
+    private final PlacementTable table;
+
+    /**
+     * Lengths of the ships in the fleet
+     */
+    private final int[] fleetLengths;
+
+    /**
+     * Number of ships placed before a subtree is no longer split into more tasks
+     */
+    private final int splitShips;
+
+    /**
+     * One counter (and memo) per worker thread during a search, so workers never share
+     * mutable state
+     */
+    private final ConcurrentHashMap<Thread, LayoutCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Number of tasks created so far, for progress reports
+     */
+    private final LongAdder tasksCreated = new LongAdder();
+
+    /**
+     * Number of tasks finished so far, for progress reports
+     */
+    private final LongAdder tasksDone = new LongAdder();
+
+    /**
+     * Number of layouts counted or visited by finished tasks
+     */
+    private final LongAdder layoutsFound = new LongAdder();
+
+    /**
+     * Creates an enumerator
+     * @param table footprints of the board
+     * @param fleetLengths lengths of the ships in the fleet
+     * @param splitShips number of ships placed before subtrees stop being split into tasks
+     */
+    LayoutEnumerator(PlacementTable table, int[] fleetLengths, int splitShips){
+        this.table = table;
+        this.fleetLengths = fleetLengths.clone();
+        this.splitShips = splitShips;
+    }
+
+    /**
+     * Counts every legal layout of the fleet
+     * @param pool pool to run the tasks in
+     * @return the number of layouts
+     */
+    long count(ForkJoinPool pool){
+        return run(pool, null);
+    }
+
+    /**
+     * Visits every legal layout of the fleet. The visitor is called from several threads at once.
+     * @param pool pool to run the tasks in
+     * @param visitor receives each layout
+     * @return the number of layouts visited
+     */
+    long enumerate(ForkJoinPool pool, LayoutVisitor visitor){
+        return run(pool, visitor);
+    }
+
+    /**
+     * Method to get the number of layouts found by the tasks that have finished so far
+     * @return the number of layouts found so far
+     */
+    long layoutsFound(){
+        return this.layoutsFound.sum();
+    }
+
+    /**
+     * Method to get the fraction of tasks finished so far. Tasks are created as the search
+     * goes, so this only becomes accurate once the splitting is done.
+     * @return finished tasks divided by created tasks
+     */
+    double progress(){
+        long created = this.tasksCreated.sum();
+        return created == 0 ? 0 : (double) this.tasksDone.sum() / created;
+    }
+
+    /**
+     * Runs the search from the empty board, then drops the workers' counters
+     */
+    private long run(ForkJoinPool pool, LayoutVisitor visitor){
+        LayoutCounter any = new LayoutCounter(this.table, this.fleetLengths);
+        this.tasksCreated.increment();
+        try {
+            return pool.invoke(new Subtree(0, any.fullFleet(), 0, 0, 0,
+                    new int[this.fleetLengths.length], 0, visitor));
+        }finally {
+            this.counters.clear();
+        }
+    }
+
+    /**
+     * Method to get the number of worker threads holding a counter
+     * @return the number of counters, 0 once a search is over
+     */
+    int counterCount(){
+        return this.counters.size();
+    }
+
+    /**
+     * All layouts that extend a partial layout: ships placed so far, cells before the given
+     * one decided, and the cells taken by those ships or their halos.
+     */
+    private final class Subtree extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        // state of the partial layout, as in LayoutCounter.count()
+        private final int cell;
+        private final int fleet;
+        private final long blockedLo;
+        private final long blockedHi;
+
+        // number of ships placed, and their footprints so far (entries set in filled)
+        private final int placed;
+        private final int[] layout;
+        private final long filled;
+
+        // receives the layouts, or null to only count them
+        private final LayoutVisitor visitor;
+
+        Subtree(int cell, int fleet, long blockedLo, long blockedHi, int placed,
+                int[] layout, long filled, LayoutVisitor visitor){
+            this.cell = cell;
+            this.fleet = fleet;
+            this.blockedLo = blockedLo;
+            this.blockedHi = blockedHi;
+            this.placed = placed;
+            this.layout = layout;
+            this.filled = filled;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected Long compute(){
+            LayoutCounter counter = counters.computeIfAbsent(Thread.currentThread(),
+                    thread -> new LayoutCounter(table, fleetLengths));
+
+            // deep enough: finish the whole subtree on this thread
+            if (this.placed >= splitShips || this.fleet == 0){
+                long found = this.visitor == null
+                        ? counter.count(this.cell, this.fleet, this.blockedLo, this.blockedHi)
+                        : walk(counter, this.cell, this.fleet, this.blockedLo, this.blockedHi,
+                                this.layout, this.filled, this.visitor);
+                layoutsFound.add(found);
+                tasksDone.increment();
+                return found;
+            }
+
+            // otherwise make one task for every choice of the next ship and its position
+            List<Subtree> children = new ArrayList<>();
+            for (int c = this.cell; c < counter.cells(); c++){
+                if (LayoutCounter.isSet(c, this.blockedLo, this.blockedHi)){
+                    continue;
+                }
+                for (int length = 1; length <= counter.maxLength(); length++){
+                    if (counter.remaining(this.fleet, length) == 0){
+                        continue;
+                    }
+                    for (int k = 0; k < 2; k++){
+                        int footprint = counter.startingAt(length, c, k);
+                        if (footprint < 0 || !counter.fits(length, footprint, this.blockedLo, this.blockedHi)){
+                            continue;
+                        }
+                        int[] childLayout = this.layout.clone();
+                        long childFilled = counter.assign(length, footprint, this.filled, childLayout);
+                        children.add(new Subtree(c + 1, this.fleet - counter.unit(length),
+                                this.blockedLo | table.haloLo(length, footprint),
+                                this.blockedHi | table.haloHi(length, footprint),
+                                this.placed + 1, childLayout, childFilled, this.visitor));
+                    }
+                }
+            }
+            tasksCreated.add(children.size());
+            tasksDone.increment();
+
+            long total = 0;
+            for (Subtree child : invokeAll(children)){
+                total += child.join();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Visits every layout in a subtree, depth first, on the calling thread
+     * @return the number of layouts visited
+     */
+    private long walk(LayoutCounter counter, int cell, int fleet, long blockedLo, long blockedHi,
+                      int[] layout, long filled, LayoutVisitor visitor){
+
+        if (fleet == 0){
+            visitor.visit(layout);
+            return 1;
+        }
+
+        long found = 0;
+        for (int c = cell; c < counter.cells(); c++){
+            if (LayoutCounter.isSet(c, blockedLo, blockedHi)){
+                continue;
+            }
+            for (int length = 1; length <= counter.maxLength(); length++){
+                if (counter.remaining(fleet, length) == 0){
+                    continue;
+                }
+                for (int k = 0; k < 2; k++){
+                    int footprint = counter.startingAt(length, c, k);
+                    if (footprint < 0 || !counter.fits(length, footprint, blockedLo, blockedHi)){
+                        continue;
+                    }
+                    int nextFleet = fleet - counter.unit(length);
+                    long nextLo = blockedLo | this.table.haloLo(length, footprint);
+                    long nextHi = blockedHi | this.table.haloHi(length, footprint);
+
+                    // don't go into subtrees where the remaining ships no longer fit
+                    if (counter.count(c + 1, nextFleet, nextLo, nextHi) == 0){
+                        continue;
+                    }
+                    long nextFilled = counter.assign(length, footprint, filled, layout);
+                    found += walk(counter, c + 1, nextFleet, nextLo, nextHi, layout, nextFilled, visitor);
+                }
+            }
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        // read the options: --enumerate, then optionally a board size and fleet
+        boolean enumerate = args.length > 0 && args[0].equals("--enumerate");
+        int first = enumerate ? 1 : 0;
+        PlacementTable table = PlacementTable.STANDARD;
+        int[] fleet = Ocean.FLEET_LENGTHS;
+        if (args.length - first >= 3){
+            int rows = Integer.parseInt(args[first]);
+            int columns = Integer.parseInt(args[first + 1]);
+            fleet = new int[args.length - first - 2];
+            int longest = 0;
+            for (int i = 0; i < fleet.length; i++){
+                fleet[i] = Integer.parseInt(args[first + 2 + i]);
+                longest = Math.max(longest, fleet[i]);
+            }
+            table = new PlacementTable(rows, columns, longest);
+        }
+
+        LayoutEnumerator enumerator = new LayoutEnumerator(table, fleet, 2);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+
+        // report progress once a second while the search runs
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%5.1f%% of tasks done, %d layouts, %.0f layouts/s%n",
+                    100 * enumerator.progress(), enumerator.layoutsFound(),
+                    enumerator.layoutsFound() / seconds);
+        }, 1, 1, TimeUnit.SECONDS);
+
+        long layouts;
+        try {
+            layouts = enumerate
+                    ? enumerator.enumerate(pool, layout -> { })
+                    : enumerator.count(pool);
+        }finally {
+            reporter.shutdownNow();
+            reporter.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d layouts in %.3f s on %d threads (%.0f layouts/s)%n",
+                layouts, seconds, pool.getParallelism(), layouts / seconds);
+    }
+}
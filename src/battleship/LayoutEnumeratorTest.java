@@ -0,0 +1,161 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+class LayoutEnumeratorTest {
+
+    /**
+     * Counts layouts the slow way: every ship in turn tried at every position and direction
+     * of a plain grid, kept off the cells of the ships before it and their neighbours, and the
+     * total divided by the ways to reorder ships of the same length
+     */
+    private static long bruteForce(int rows, int columns, int[] fleet){
+        long ordered = place(new boolean[rows][columns], fleet, 0);
+        for (int length = 1; length <= 4; length++){
+            int same = 0;
+            for (int ship : fleet){
+                same += ship == length ? 1 : 0;
+            }
+            for (int k = 2; k <= same; k++){
+                ordered /= k;
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Method to count the ordered ways to place the ships from the given one on
+     */
+    private static long place(boolean[][] taken, int[] fleet, int ship){
+        if (ship == fleet.length){
+            return 1;
+        }
+        int rows = taken.length;
+        int columns = taken[0].length;
+        int length = fleet[ship];
+        long found = 0;
+        for (int row = 0; row < rows; row++){
+            for (int column = 0; column < columns; column++){
+                for (int horizontal = 0; horizontal < (length == 1 ? 1 : 2); horizontal++){
+                    int lastRow = row + (horizontal == 0 ? length - 1 : 0);
+                    int lastColumn = column + (horizontal == 1 ? length - 1 : 0);
+                    if (lastRow >= rows || lastColumn >= columns || touches(taken, row, column, lastRow, lastColumn)){
+                        continue;
+                    }
+                    for (int r = row; r <= lastRow; r++){
+                        for (int c = column; c <= lastColumn; c++){
+                            taken[r][c] = true;
+                        }
+                    }
+                    found += place(taken, fleet, ship + 1);
+                    for (int r = row; r <= lastRow; r++){
+                        for (int c = column; c <= lastColumn; c++){
+                            taken[r][c] = false;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to check whether any cell of a ship, or next to it, is taken
+     */
+    private static boolean touches(boolean[][] taken, int row, int column, int lastRow, int lastColumn){
+        for (int r = Math.max(row - 1, 0); r <= Math.min(lastRow + 1, taken.length - 1); r++){
+            for (int c = Math.max(column - 1, 0); c <= Math.min(lastColumn + 1, taken[0].length - 1); c++){
+                if (taken[r][c]){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void testBruteForceCounts() {
+
+        // the brute force itself, against the counts worked out by hand in UniformLayoutSamplerTest
+        assertEquals(16, bruteForce(3, 3, new int[]{1, 1}));
+        assertEquals(12, bruteForce(3, 3, new int[]{3, 1}));
+        assertEquals(8712, bruteForce(5, 5, new int[]{3, 2, 1, 1}));
+        assertEquals(317374, bruteForce(6, 7, new int[]{3, 3, 2, 1}));
+    }
+
+    @Test
+    void testCountMatchesBruteForce() {
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertCount(pool, 5, 5, new int[]{3, 2, 1, 1}, 8712);
+            assertCount(pool, 6, 6, new int[]{3, 2, 2, 1, 1}, 618552);
+            assertCount(pool, 7, 7, new int[]{4, 3, 2, 2, 1, 1}, 33422520);
+            assertCount(pool, 6, 7, new int[]{3, 3, 2, 1}, 317374);
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks the enumerator's count of a fleet's layouts and the sampler's, and that the
+     * workers' counters are dropped once the count is done
+     */
+    private void assertCount(ForkJoinPool pool, int rows, int columns, int[] fleet, long expected){
+        PlacementTable table = new PlacementTable(rows, columns, 4);
+        LayoutEnumerator enumerator = new LayoutEnumerator(table, fleet, 2);
+        assertEquals(expected, enumerator.count(pool), rows + " x " + columns + " " + Arrays.toString(fleet));
+        assertEquals(0, enumerator.counterCount());
+        assertEquals(expected, new UniformLayoutSampler(table, fleet).layoutCount());
+    }
+
+    @Test
+    void testEnumerateVisitsEveryLayoutOnce() {
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+
+            // every layout of the smaller boards, each one different
+            assertEnumerated(pool, 5, 5, new int[]{3, 2, 1, 1}, 8712);
+            assertEnumerated(pool, 6, 6, new int[]{3, 2, 2, 1, 1}, 618552);
+            assertEnumerated(pool, 6, 7, new int[]{3, 3, 2, 1}, 317374);
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Enumerates a fleet's layouts and checks there are as many as expected, all different,
+     * and as many as count() finds
+     */
+    private void assertEnumerated(ForkJoinPool pool, int rows, int columns, int[] fleet, long expected){
+        PlacementTable table = new PlacementTable(rows, columns, 4);
+        LayoutEnumerator enumerator = new LayoutEnumerator(table, fleet, 2);
+        LongAdder visited = new LongAdder();
+        Set<String> layouts = ConcurrentHashMap.newKeySet();
+        long found = enumerator.enumerate(pool, layout -> {
+            visited.increment();
+
+            // the cells of every ship, so reordering ships of the same length changes nothing
+            String[] ships = new String[layout.length];
+            for (int i = 0; i < layout.length; i++){
+                ships[i] = table.cellsLo(fleet[i], layout[i]) + ":" + table.cellsHi(fleet[i], layout[i]);
+            }
+            Arrays.sort(ships);
+            layouts.add(Arrays.toString(ships));
+        });
+        assertEquals(expected, found);
+        assertEquals(expected, visited.sum());
+        assertEquals(expected, layouts.size());
+        assertEquals(enumerator.count(pool), found);
+        assertEquals(0, enumerator.counterCount());
+    }
+}
@@ -0,0 +1,158 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to long values that stores both in plain arrays (open addressing
+ * with linear probing), so neither lookups nor inserts create objects. Key 0 is reserved to
+ * mark empty slots and cannot be stored.
+ */
+final class LongLongHashMap {
+
+    /**
+     * Keys of the table, 0 for an empty slot
+     */
+    private long[] keys;
+
+    /**
+     * Values of the table, at the same position as their key
+     */
+    private long[] values;
+
+    /**
+     * Number of keys stored
+     */
+    private int size;
+
+    /**
+     * Creates an empty map
+     * @param expectedSize number of keys the map should hold before it has to grow
+     */
+    LongLongHashMap(int expectedSize){
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Spreads the bits of a key so nearby keys land in different slots
+     */
+    private static int hash(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Method to look up a key
+     * @param key key to look up, must not be 0
+     * @param missing value to return if the key is not in the map
+     * @return the value stored for the key, or missing
+     */
+    long get(long key, long missing){
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask){
+            long current = this.keys[slot];
+            if (current == key){
+                return this.values[slot];
+            }
+            if (current == 0){
+                return missing;
+            }
+        }
+    }
+
+    /**
+     * Method to store a value for a key, replacing any value already stored
+     * @param key key to store, must not be 0
+     * @param value value to store
+     */
+    void put(long key, long value){
+        if (key == 0){
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != 0 && this.keys[slot] != key){
+            slot = (slot + 1) & mask;
+        }
+        if (this.keys[slot] == 0){
+            this.keys[slot] = key;
+            this.size += 1;
+        }
+        this.values[slot] = value;
+
+        // keep the table at most half full so probe sequences stay short
+        if (this.size * 2 > this.keys.length){
+            grow();
+        }
+    }
+
+    /**
+     * Method to remove a key. The keys after it in its probe sequence are moved back so that
+     * no slot is left as a tombstone.
+     * @param key key to remove, must not be 0
+     * @return true if the key was in the map
+     */
+    boolean remove(long key){
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != key){
+            if (this.keys[slot] == 0){
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // close the gap: move back every following key whose home slot is at or before it
+        int gap = slot;
+        for (int next = (gap + 1) & mask; this.keys[next] != 0; next = (next + 1) & mask){
+            int home = hash(this.keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)){
+                this.keys[gap] = this.keys[next];
+                this.values[gap] = this.values[next];
+                gap = next;
+            }
+        }
+        this.keys[gap] = 0;
+        this.values[gap] = 0;
+        this.size -= 1;
+        return true;
+    }
+
+    /**
+     * Removes every key, keeping the table's current capacity
+     */
+    void clear(){
+        Arrays.fill(this.keys, 0);
+        this.size = 0;
+    }
+
+    /**
+     * Method to get the number of keys stored
+     * @return the number of keys
+     */
+    int size(){
+        return this.size;
+    }
+
+    /**
+     * Doubles the table and puts every key back in
+     */
+    private void grow(){
+        long[] oldKeys = this.keys;
+        long[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new long[oldValues.length * 2];
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++){
+            if (oldKeys[i] != 0){
+                int slot = hash(oldKeys[i]) & mask;
+                while (this.keys[slot] != 0){
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongLongHashMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        map.put(7, 70);
+        map.put(8, 80);
+        assertEquals(70, map.get(7, -1));
+        assertEquals(-1, map.get(9, -1));
+
+        assertTrue(map.remove(7));
+        assertFalse(map.remove(7));
+        assertEquals(-1, map.get(7, -1));
+        assertEquals(80, map.get(8, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testMatchesHashMap() {
+
+        // a small key range makes long probe sequences, so removals have to move keys back
+        Random random = new Random(591);
+        LongLongHashMap map = new LongLongHashMap(16);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++){
+            long key = 1 + random.nextInt(200);
+            if (random.nextBoolean()){
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }else {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 200; key++){
+            assertEquals(expected.getOrDefault(key, -1L).longValue(), map.get(key, -1));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computer shooter that samples whole fleet layouts consistent with the chart, counts how often
+ * each cell is covered by a ship across the samples, and fires at the unshot cell covered most.
+ *
+ * The samples are drawn by a ChartSampler.
+ *
+ * Sampling is split between workers that run in a ForkJoinPool. Each worker has its own random
+ * stream, scratch arrays and tally, so they share nothing while sampling; the tallies are added
+ * up once every worker is done. With a time budget the workers stop at the deadline even if
+ * they haven't drawn all their samples (anytime mode), and the best cell found so far is used.
+ */
+final class MonteCarloShooter implements Shooter {
+
+    /**
+     * How many samples a worker draws between looks at the clock
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    /**
+     * Pool the workers run in
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The workers, kept for the whole game so their arrays are reused
+     */
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * Number of samples to try to draw per move, across all workers
+     */
+    private final int samples;
+
+    /**
+     * Longest time to spend sampling per move in nanoseconds, or 0 for no limit
+     */
+    private final long timeBudgetNanos;
+
+    /**
+     * Shooter used when no sample could be drawn in time
+     */
+    private final DensityShooter fallback = new DensityShooter();
+
+    /**
+     * Adds up the tallies and finds the best cell
+     */
+    private final HeatmapKernel kernel = HeatmapKernels.selected();
+
+    /**
+     * Samples actually drawn for the last move, across all workers
+     */
+    private long lastSampleCount;
+
+    /**
+     * Creates a shooter
+     * @param samples number of samples to try to draw per move
+     * @param timeBudgetNanos longest time to spend per move in nanoseconds, or 0 for no limit
+     * @param random random stream the workers' streams are split from
+     * @param pool pool to run the workers in; its parallelism decides the number of workers
+     */
+    MonteCarloShooter(int samples, long timeBudgetNanos, SplittableRandom random, ForkJoinPool pool){
+        this.samples = samples;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.pool = pool;
+        for (int i = 0; i < pool.getParallelism(); i++){
+            this.workers.add(new Worker(random.split()));
+        }
+    }
+
+    /**
+     * Creates a shooter with no time limit that samples on every core
+     * @param samples number of samples to try to draw per move
+     */
+    MonteCarloShooter(int samples){
+        this(samples, 0, new SplittableRandom(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Method to get the number of samples drawn for the last move
+     * @return the number of samples that were used to choose the last shot
+     */
+    long getLastSampleCount(){
+        return this.lastSampleCount;
+    }
+
+    @Override
+    public void reset(){
+
+        // the workers keep nothing from one move to the next, only the fallback does
+        this.fallback.reset();
+    }
+
+    @Override
+    public void reset(long seed){
+        reset();
+
+        // the workers' streams are split from the seed in order, as the constructor does
+        SplittableRandom random = new SplittableRandom(seed);
+        for (Worker worker : this.workers){
+            worker.sampler.setRandom(random.split());
+        }
+    }
+
+    @Override
+    public int nextShot(SeaChart chart){
+
+        // give each worker its share of the samples and the same deadline
+        long deadline = this.timeBudgetNanos > 0 ? System.nanoTime() + this.timeBudgetNanos : Long.MAX_VALUE;
+        int count = this.workers.size();
+        for (int i = 0; i < count; i++){
+            this.workers.get(i).prepare(chart, this.samples / count + (i < this.samples % count ? 1 : 0), deadline);
+        }
+        this.pool.invokeAll(this.workers);
+
+        // add up the tallies
+        long[] total = new long[128];
+        long drawn = 0;
+        for (Worker worker : this.workers){
+            drawn += worker.drawn;
+            this.kernel.add(total, worker.tally);
+        }
+        this.lastSampleCount = drawn;
+
+        if (drawn == 0){
+            return this.fallback.nextShot(chart);
+        }
+
+        this.kernel.maskShots(total, chart.shotLo(), chart.shotHi());
+        return this.kernel.argmax(total, SeaChart.SIZE * SeaChart.SIZE);
+    }
+
+    /**
+     * Draws a share of the samples for one move
+     */
+    private static final class Worker implements Callable<Void> {
+
+        private final PlacementTable table = PlacementTable.STANDARD;
+        private final ChartSampler sampler;
+
+        // reused from move to move
+        private final long[] tally = new long[128];
+        private final int[] lengths = new int[BoardConfig.STANDARD.getFleetSize()];
+        private final int[] footprints = new int[BoardConfig.STANDARD.getFleetSize()];
+
+        // what the current move asks for
+        private SeaChart chart;
+        private int quota;
+        private long deadline;
+        private long drawn;
+
+        Worker(SplittableRandom random){
+            this.sampler = new ChartSampler(random);
+        }
+
+        void prepare(SeaChart chart, int quota, long deadline){
+            this.chart = chart;
+            this.quota = quota;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Void call(){
+            Arrays.fill(this.tally, 0);
+            this.drawn = 0;
+            for (int attempt = 0; attempt < this.quota; attempt++){
+                if (attempt % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > this.deadline){
+                    break;
+                }
+                if (sample()){
+                    this.drawn++;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Draws one layout of the remaining ships and adds its cells to the tally
+         * @return true if a layout was drawn, false if the attempt got stuck
+         */
+        private boolean sample(){
+            int ships = this.sampler.draw(this.chart, this.lengths, this.footprints);
+            if (ships < 0){
+                return false;
+            }
+
+            // count the layout's cells
+            for (int i = 0; i < ships; i++){
+                long shipsLo = this.table.cellsLo(this.lengths[i], this.footprints[i]);
+                long shipsHi = this.table.cellsHi(this.lengths[i], this.footprints[i]);
+                while (shipsLo != 0){
+                    this.tally[Long.numberOfTrailingZeros(shipsLo)]++;
+                    shipsLo &= shipsLo - 1;
+                }
+                while (shipsHi != 0){
+                    this.tally[64 + Long.numberOfTrailingZeros(shipsHi)]++;
+                    shipsHi &= shipsHi - 1;
+                }
+            }
+            return true;
+        }
+    }
+}
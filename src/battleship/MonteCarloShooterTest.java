@@ -0,0 +1,78 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class MonteCarloShooterTest {
+
+    @Test
+    void testPlaysFullGame() {
+
+        Ocean ocean = new Ocean();
+        ocean.placeAllShipsRandomly();
+        SeaChart chart = new SeaChart();
+        MonteCarloShooter shooter = new MonteCarloShooter(500, 0, new SplittableRandom(591), ForkJoinPool.commonPool());
+
+        while (!ocean.isGameOver()){
+            int cell = shooter.nextShot(chart);
+            assertFalse(chart.isShot(cell), "fired twice at " + cell);
+            chart.fireAt(ocean, cell);
+            assertTrue(shooter.getLastSampleCount() > 0);
+        }
+        assertTrue(ocean.getShotsFired() < 100);
+    }
+
+    @Test
+    void testSamplesAgreeWithTheChart() {
+
+        // a lone vertical cruiser with its bow at (4, 2), hit in the middle
+        Ocean ocean = new Ocean();
+        Cruiser cruiser = new Cruiser();
+        cruiser.placeShipAt(4, 2, false, ocean);
+        SeaChart chart = new SeaChart();
+        chart.fireAt(ocean, 32);
+
+        // every sample has a ship through the hit, so the next shot must be right next to it
+        MonteCarloShooter shooter = new MonteCarloShooter(2000, 0, new SplittableRandom(7), ForkJoinPool.commonPool());
+        int cell = shooter.nextShot(chart);
+        assertEquals(1, Math.abs(cell / 10 - 3) + Math.abs(cell % 10 - 2), "shot at " + cell + " is not next to the hit");
+    }
+
+    @Test
+    void testTimeBudgetStopsSampling() {
+
+        // a huge sample count with a 20 ms budget still answers quickly
+        SeaChart chart = new SeaChart();
+        MonteCarloShooter shooter = new MonteCarloShooter(Integer.MAX_VALUE, 20_000_000L,
+                new SplittableRandom(1), ForkJoinPool.commonPool());
+        long start = System.nanoTime();
+        shooter.nextShot(chart);
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertTrue(shooter.getLastSampleCount() > 0);
+    }
+
+    @Test
+    void testSameSeedPlaysSameGames() throws InterruptedException {
+
+        // a seeded run plays the same games on one thread or three, sampling included; every
+        // shooter samples with two workers, in a pool they share
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ShotHistogram one;
+        ShotHistogram three;
+        try {
+            one = SimulationRunner.run(12, () -> new MonteCarloShooter(200, 0, new SplittableRandom(), pool), 1, 591);
+            three = SimulationRunner.run(12, () -> new MonteCarloShooter(200, 0, new SplittableRandom(), pool), 3, 591);
+        }finally {
+            pool.shutdown();
+        }
+        assertEquals(12, one.getGames());
+        for (int shots = 0; shots <= ShotHistogram.MAX_SHOTS + 1; shots++){
+            assertEquals(one.getCount(shots), three.getCount(shots), "games of " + shots + " shots");
+        }
+    }
+
+}
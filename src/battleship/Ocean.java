@@ -1,16 +1,119 @@
 package battleship;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Ocean class maintains the Battleship game by storing the positions of the ships and facilitating shots.
+ *
+ * The size of the ocean and its fleet come from a BoardConfig, the standard game being a 10 x 10
+ * ocean with 10 ships. Nothing that happens during a game depends on the size of the ocean:
+ * placing a ship, firing and checking whether the game is over only look at the cells involved.
  */
 public class Ocean {
 
     /**
-     * A 10 x 10 grid that stores the locations of the ships in the ocean
+     * Lengths of the ships in the standard fleet, largest first: 1 battleship, 2 cruisers,
+     * 3 destroyers, and 4 submarines. This is the order placeAllShipsRandomly() places them in.
      */
-    private Ship[][] ships = new Ship[10][10];
+    static final int[] FLEET_LENGTHS = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+
+    /**
+     * How many random positions are tried for one ship on a large ocean before the fleet is
+     * taken out and placed again from the start
+     */
+    private static final int PLACEMENT_TRIES = 10_000;
+
+    /**
+     * How many times a large ocean starts placing its fleet again before giving up
+     */
+    private static final int PLACEMENT_RESTARTS = 1_000;
+
+    /**
+     * Size of the ocean and the ships in its fleet
+     */
+    private final BoardConfig config;
+
+    /**
+     * Number of rows in the ocean
+     */
+    private final int rows;
+
+    /**
+     * Number of columns in the ocean
+     */
+    private final int columns;
+
+    /**
+     * A rows x columns grid that stores the locations of the ships in the ocean. It is only
+     * built when getShipArray() is first called, so a large ocean that is only played through
+     * shootAt() never holds an object per cell; from then on placeShip() keeps it up to date.
+     */
+    private Ship[][] ships;
+
+    /**
+     * The EmptySea object of every cell, built together with the ships array above and kept
+     * so reset() can put them back where ships were
+     */
+    private EmptySea[] emptySeas;
+
+    /**
+     * Cells whose EmptySea recorded a shot, so reset() clears only those; kept while the
+     * ships array exists
+     */
+    private int[] missedSeas;
+    private int missedSeaCount;
+
+    /**
+     * The ship occupying each cell and the cells fired upon. The Ship array above is kept as a
+     * view for code that wants Ship objects, the game itself only looks at this store and the
+     * ships' own hit counts.
+     */
+    private final CellStore cells;
+
+    /**
+     * Whether cells is a DenseCellStore. Other stores never make an object for an empty cell.
+     */
+    private final boolean dense;
+
+    /**
+     * The ships that have been placed in the ocean, in the order they were placed
+     */
+    private Ship[] fleet;
+
+    /**
+     * The number of ships placed in the ocean so far
+     */
+    private int shipCount;
+
+    /**
+     * The fleet used by placeAllShipsRandomly() and placeAllShipsUniformly(), created the
+     * first time it is needed and reused by every later game in this ocean
+     */
+    private Ship[] pooledFleet;
+
+    /**
+     * Footprint chosen for each ship of the fleet, reused between games
+     */
+    private final int[] layout;
+
+    /**
+     * Footprints of the ocean, for oceans small enough for a PlacementTable; created the
+     * first time it is needed
+     */
+    private PlacementTable placementTable;
+
+    /**
+     * Scratch space for PlacementTable.drawLayout(), created the first time it is needed
+     */
+    private int[] placementScratch;
+
+    /**
+     * Random number generator for placing the fleet, given by setRandom() or created unseeded
+     * the first time it is needed
+     */
+    private RandomGenerator random;
 
     /**
      * The total number of shots fired by the user
@@ -25,74 +128,310 @@ public class Ocean {
     private int hitCount;
 
     /**
-     * The number of ships sunk (10 ships in all)
+     * The number of ships sunk (10 ships in all in the standard game)
      */
     private int shipsSunk;
 
     /**
-     * Constructor creates an empty ocean and initializes game variables
+     * Zobrist hash of what the player can see: the locations fired upon, whether the first
+     * shot at each hit or missed, and the ships sunk and where they lay
+     */
+    private long stateHash;
+
+    /**
+     * Told about every shot fired, or null
+     */
+    private ShotListener listener;
+
+    /**
+     * Constructor creates an empty standard 10 x 10 ocean and initializes game variables
      */
     public Ocean(){
+        this(BoardConfig.STANDARD);
+    }
+
+    /**
+     * Constructor creates an empty ocean of the given size and initializes game variables
+     * @param config size of the ocean and the fleet that placeAllShipsRandomly() places
+     */
+    public Ocean(BoardConfig config){
+        this(config, false);
+    }
+
+    /**
+     * Constructor creates an empty ocean of the given size and initializes game variables.
+     *
+     * A sparse ocean only keeps entries for the cells ships occupy plus one bit per cell for
+     * the shots fired, and never makes an object for an empty cell, so getShipArray() is not
+     * available. It suits large oceans that are mostly empty water; a dense ocean keeps an
+     * int per cell and is a little faster.
+     *
+     * @param config size of the ocean and the fleet that placeAllShipsRandomly() places
+     * @param sparse true for a sparse ocean, false for a dense one
+     */
+    public Ocean(BoardConfig config, boolean sparse){
+        this(config, sparse ? new SparseCellStore(config.getCells(), 4 * config.getFleetSize())
+                : new DenseCellStore(config.getCells()));
+    }
+
+    /**
+     * Constructor creates an empty ocean that keeps its cells in the given store, e.g. a
+     * TiledCellStore for maps too large for a bit per cell. Only a DenseCellStore makes
+     * getShipArray() available.
+     *
+     * @param config size of the ocean and the fleet that placeAllShipsRandomly() places
+     * @param cells empty store for the ocean's cells
+     */
+    Ocean(BoardConfig config, CellStore cells){
 
         // initialize variables
+        this.config = config;
+        this.rows = config.getRows();
+        this.columns = config.getColumns();
+        this.shotsFired = 0;
+        this.hitCount = 0;
+        this.shipsSunk = 0;
+
+        // an "empty" ocean: no cell is occupied or shot at
+        this.cells = cells;
+        this.dense = cells instanceof DenseCellStore;
+        this.fleet = new Ship[Math.max(config.getFleetSize(), 1)];
+        this.layout = new int[config.getFleetSize()];
+    }
+
+    /**
+     * Empties the ocean so it can be used for a new game, without allocating a new one. All
+     * ships are removed, every cell gets its EmptySea back with no shots recorded, and the
+     * shot, hit and sunk counts go back to 0. The shot listener, if any, is removed, so a
+     * writer recording the last game is not told about the next one. Ships that were in the
+     * ocean are not changed, but the ocean keeps its own fleet and reuses it in the next game.
+     */
+    void reset(){
+
+        // reset game variables
         this.shotsFired = 0;
         this.hitCount = 0;
         this.shipsSunk = 0;
+        this.stateHash = 0;
+        this.listener = null;
+
+        if (this.ships != null){
 
-        // create an "empty" ocean filled with EmptySea objects
-        for (int row = 0; row < 10; row++){
-            for (int column = 0; column < 10; column++){
-                // create new empty ship
-                EmptySea emptySea = new EmptySea();
-                // set the row of the empty ship
-                emptySea.setBowRow(row);
-                //set the column of the empty ship
-                emptySea.setBowColumn(column);
-                //assign the empty ship's spot in array
-                this.ships[row][column] = emptySea;
+            // put the EmptySea objects back where ships were and clear the attempts they recorded
+            for (int id = 0; id < this.shipCount; id++){
+                for (int i = 0; i < this.fleet[id].getLength(); i++){
+                    int index = cellOf(this.fleet[id], i);
+                    this.ships[index / this.columns][index % this.columns] = this.emptySeas[index];
+                }
             }
+            for (int i = 0; i < this.missedSeaCount; i++){
+                this.emptySeas[this.missedSeas[i]].resetHits();
+            }
+            this.missedSeaCount = 0;
         }
 
+        // forget the placed ships and the shots
+        Arrays.fill(this.fleet, 0, this.shipCount, null);
+        this.shipCount = 0;
+        this.cells.clear();
     }
 
     /**
      * Method to place all ten ships randomly on the (initially empty) ocean. Place larger ships
      * before smaller ones, or you may end up with no legal place to put
      * a large ship.
+     *
+     * Rather than trying random positions until one is legal, each ship is drawn from the
+     * precomputed footprints in PlacementTable that still fit next to the ships already
+     * chosen, so the cost of building a board is bounded. Oceans too large for a
+     * PlacementTable are mostly empty water, so there random positions are tried for each
+     * ship, and the fleet is placed again from the start if a ship finds no room.
+     *
+     * The ships are the ocean's own fleet, created on the first call and reused after every
+     * reset(), so a reused ocean places its ships without allocating.
+     *
+     * The ocean's random number generator chooses the layout; see setRandom() to make it
+     * reproducible.
      */
     void placeAllShipsRandomly(){
+        placeAllShipsRandomly(random());
+    }
 
-        // create a fleet of ships
-        // contains 1 battleship, 2 cruisers, 3 destroyers, and 4 submarines
-        Ship[] fleet = {new Battleship(), new Cruiser(), new Cruiser(),
-                        new Destroyer(), new Destroyer(), new Destroyer(),
-                        new Submarine(), new Submarine(), new Submarine(), new Submarine()};
+    /**
+     * Method to place all ten ships randomly on the (initially empty) ocean, as
+     * placeAllShipsRandomly() does, with the given random number generator. The layout only
+     * depends on the numbers drawn, so generators in the same state give the same layout on
+     * any thread and in any run.
+     * @param random random number generator to choose the layout with
+     */
+    void placeAllShipsRandomly(RandomGenerator random){
 
-        // create instance of random class
-        Random random = new Random();
+        if (this.config.getCells() > PlacementTable.MAX_CELLS){
+            placeAllShipsByTrial(random);
+            return;
+        }
 
-        for (Ship ship: fleet){
+        // create the table and scratch space once per ocean
+        if (this.placementTable == null){
+            this.placementTable = this.config.isStandard() ? PlacementTable.STANDARD
+                    : new PlacementTable(this.rows, this.columns, BoardConfig.MAX_SHIP_LENGTH);
+            this.placementScratch = new int[this.placementTable.maxFootprints()];
+        }
 
-            // create a flag to check if the ship has been places
-            boolean ship_placed = false;
+        // choose a footprint for every ship, then put the ships in the ocean
+        int[] lengths = this.config.isStandard() ? FLEET_LENGTHS : this.config.getFleetLengths();
+        this.placementTable.drawLayout(lengths, random, this.placementScratch, this.layout);
+        placeFleet(this.placementTable, this.layout);
+    }
 
-            // while the ship hasn't been placed, look for a legal spot
-            while (!ship_placed){
+    /**
+     * Method to place all ten ships on the (initially empty) ocean so that every legal layout
+     * is equally likely. placeAllShipsRandomly() is faster but favours some layouts over
+     * others, because it places the ships one at a time. The first call builds the shared
+     * UniformLayoutSampler, which takes a few seconds. Only the standard game is supported.
+     */
+    void placeAllShipsUniformly(){
+        placeAllShipsUniformly(random());
+    }
 
-                // generate a random row, column, and orientation until a legal position is found
-                int row = random.nextInt(10);
-                int column = random.nextInt(10);
-                boolean horizontal = random.nextBoolean();
+    /**
+     * Method to place all ten ships so that every legal layout is equally likely, as
+     * placeAllShipsUniformly() does, with the given random number generator
+     * @param random random number generator to choose the layout with
+     */
+    void placeAllShipsUniformly(RandomGenerator random){
+        if (!this.config.isStandard()){
+            throw new IllegalStateException("Uniform placement is only available for the standard ocean");
+        }
+        UniformLayoutSampler.standard().draw(random, this.layout);
+        placeFleet(PlacementTable.STANDARD, this.layout);
+    }
 
-                // if position is legal, place the ship, and change the flag
-                if (ship.okToPlaceShipAt(row, column, horizontal, this)){
-                    ship.placeShipAt(row, column, horizontal, this);
-                    ship_placed = true;
+    /**
+     * Places the fleet on an ocean too large for a PlacementTable by trying random positions
+     * @param random random number generator to choose positions with
+     */
+    private void placeAllShipsByTrial(RandomGenerator random){
+        Ship[] fleet = pooledFleet();
+
+        for (int restart = 0; restart < PLACEMENT_RESTARTS; restart++){
+            boolean placedAll = true;
+            for (Ship ship : fleet){
+                ship.resetHits();
+                if (!placeByTrial(ship, random)){
+                    placedAll = false;
+                    break;
                 }
             }
+            if (placedAll){
+                return;
+            }
+
+            // a ship found no room, take the fleet out and start again
+            reset();
+        }
+        throw new IllegalStateException("Could not fit the fleet into a " + this.config);
+    }
+
+    /**
+     * Tries random positions for a ship until one is legal
+     * @param ship ship to place
+     * @param random random number generator to choose positions with
+     * @return true if the ship was placed, false if no legal position was found
+     */
+    private boolean placeByTrial(Ship ship, RandomGenerator random){
+        for (int attempt = 0; attempt < PLACEMENT_TRIES; attempt++){
+            int row = random.nextInt(this.rows);
+            int column = random.nextInt(this.columns);
+            boolean horizontal = random.nextBoolean();
+            if (ship.okToPlaceShipAt(row, column, horizontal, this)){
+                ship.placeShipAt(row, column, horizontal, this);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to set the random number generator that places the fleet. An ocean given a
+     * generator seeded with the same seed places the same fleets, game after game; reset()
+     * keeps the generator.
+     * @param random random number generator for placeAllShipsRandomly() and
+     *               placeAllShipsUniformly(), used by this ocean only
+     */
+    void setRandom(RandomGenerator random){
+        this.random = random;
+    }
+
+    /**
+     * Method to get the ocean's random number generator, creating an unseeded one on first use
+     * @return the random number generator used to place the fleet
+     */
+    private RandomGenerator random(){
+        if (this.random == null){
+            this.random = new SplittableRandom();
+        }
+        return this.random;
+    }
+
+    /**
+     * Method to get the ocean's own fleet, creating it on first use
+     * @return one ship for every entry of the configuration's fleet, longest first
+     */
+    private Ship[] pooledFleet(){
+
+        // create a fleet of ships the first time
+        // the standard one contains 1 battleship, 2 cruisers, 3 destroyers, and 4 submarines
+        if (this.pooledFleet == null){
+            this.pooledFleet = new Ship[this.config.getFleetSize()];
+            for (int i = 0; i < this.pooledFleet.length; i++){
+                this.pooledFleet[i] = BoardConfig.createShip(this.config.getShipLength(i));
+            }
+        }
+        return this.pooledFleet;
+    }
+
+    /**
+     * Puts each ship of the ocean's own fleet on its chosen footprint, clearing the hits left
+     * from the previous game
+     * @param table table the footprints refer to
+     * @param layout footprint number for each ship, in the order of the configuration's fleet
+     */
+    private void placeFleet(PlacementTable table, int[] layout){
+        Ship[] fleet = pooledFleet();
+        for (int i = 0; i < fleet.length; i++){
+            fleet[i].resetHits();
+            int length = fleet[i].getLength();
+            int footprint = layout[i];
+            fleet[i].placeShipAt(table.bowRow(length, footprint), table.bowColumn(length, footprint),
+                    table.isHorizontal(length, footprint), this);
         }
     }
 
+    /**
+     * Method to get the configuration of the ocean
+     * @return the size of the ocean and its fleet
+     */
+    BoardConfig getConfig(){
+        return this.config;
+    }
+
+    /**
+     * Method to get the number of rows
+     * @return the number of rows in the ocean
+     */
+    int getRows(){
+        return this.rows;
+    }
+
+    /**
+     * Method to get the number of columns
+     * @return the number of columns in the ocean
+     */
+    int getColumns(){
+        return this.columns;
+    }
+
     /**
      * Method to check if a given location contains a ship
      * @param row ship may be in
@@ -100,7 +439,59 @@ public class Ocean {
      * @return true if the given location contains a ship, false if it does not
      */
     boolean isOccupied(int row, int column){
-        return !this.ships[row][column].getShipType().equals("empty");
+        return this.cells.shipAt(Bitboard.index(row, column, this.columns)) >= 0;
+    }
+
+    /**
+     * Method to check if a location has been fired upon
+     * @param row row in ocean
+     * @param column column in ocean
+     * @return true if at least one shot was fired at the location, false otherwise
+     */
+    boolean isShotAt(int row, int column){
+        return this.cells.isShot(Bitboard.index(row, column, this.columns));
+    }
+
+    /**
+     * Records a ship that has just been put in the ocean. The ship's bow and orientation
+     * must already be set. This records the ship in each cell it covers.
+     *
+     * Called from Ship.placeShipAt, which has already checked that the ship fits.
+     *
+     * @param ship ship being placed
+     */
+    void placeShip(Ship ship){
+
+        // make room for the new ship if more ships were placed than the array holds
+        if (this.shipCount == this.fleet.length){
+            this.fleet = Arrays.copyOf(this.fleet, this.shipCount * 2);
+        }
+
+        int id = this.shipCount;
+        for (int i = 0; i < ship.getLength(); i++){
+            int index = cellOf(ship, i);
+            this.cells.put(index, id);
+            if (this.ships != null){
+                this.ships[index / this.columns][index % this.columns] = ship;
+            }
+        }
+
+        this.fleet[id] = ship;
+        this.shipCount += 1;
+    }
+
+    /**
+     * Method to get the cell covered by one part of a placed ship
+     * @param ship ship in the ocean
+     * @param i position along the ship, 0 being the bow
+     * @return the cell index
+     */
+    private int cellOf(Ship ship, int i){
+
+        // horizontal ships extend West of the bow, vertical ships extend North of it
+        int row = ship.isHorizontal() ? ship.getBowRow() : ship.getBowRow() - i;
+        int column = ship.isHorizontal() ? ship.getBowColumn() - i : ship.getBowColumn();
+        return Bitboard.index(row, column, this.columns);
     }
 
     /**
@@ -121,26 +512,70 @@ public class Ocean {
         // increment count of shots fired
         this.shotsFired += 1;
 
-        // locate ship of interest
-        Ship ship = this.ships[row][column];
+        int index = Bitboard.index(row, column, this.columns);
+        boolean firstShot = !this.cells.isShot(index);
+        this.cells.shoot(index);
 
-        boolean shot = ship.shootAt(row, column);
+        // shooting at an empty cell is a miss, the EmptySea (if any) still records the attempt
+        int id = this.cells.shipAt(index);
+        if (id < 0){
+            if (this.ships != null){
+                if (firstShot){
+                    noteMissedSea(index);
+                }
+                this.ships[row][column].shootAt(row, column);
+            }
+            if (firstShot){
+                this.stateHash ^= Zobrist.shot(index, false);
+            }
+            return told(index, false, 0);
+        }
 
-        if (shot){
-            // if given location contains a ship and shot was successful, increment hit count
-            this.hitCount += 1;
+        // shooting at a ship that is already sunk is also a miss
+        Ship ship = this.fleet[id];
+        if (ship.isSunk()){
+            return told(index, false, 0);
+        }
 
-            // check if ship sunk and increment count
-            if (ship.isSunk()){
-                this.shipsSunk += 1;
-            }
+        // the shot hits a ship that is still afloat, increment hit count
+        this.hitCount += 1;
+        if (firstShot){
+            this.stateHash ^= Zobrist.shot(index, true);
+        }
 
-            return true;
+        // the ship counts the parts hit, and is sunk once every one of them has been hit
+        ship.shootAt(row, column);
+        if (ship.isSunk()){
+            this.shipsSunk += 1;
+            this.stateHash ^= Zobrist.sunk(ship.getLength(),
+                    Bitboard.index(ship.getBowRow(), ship.getBowColumn(), this.columns), ship.isHorizontal());
+            return told(index, true, ship.getLength());
         }
 
-        // if given location is empty or ship is sunk, return false
-        return false;
+        return told(index, true, 0);
+
+    }
+
+    /**
+     * Tells the listener, if any, about a shot
+     * @param cell index of the cell fired at
+     * @param hit whether the shot hit
+     * @param sunkLength length of the ship the shot sank, or 0
+     * @return hit
+     */
+    private boolean told(int cell, boolean hit, int sunkLength){
+        if (this.listener != null){
+            this.listener.shotFired(cell, hit, sunkLength);
+        }
+        return hit;
+    }
 
+    /**
+     * Sets who is told about every shot fired from now on, until the ocean is reset
+     * @param listener listener to tell, or null to tell no one
+     */
+    void setShotListener(ShotListener listener){
+        this.listener = listener;
     }
 
     /**
@@ -168,12 +603,59 @@ public class Ocean {
         return this.shipsSunk;
     }
 
+    /**
+     * Sets the shot and hit counts, for an ocean rebuilt from a saved game by replaying each
+     * shot once, which leaves out shots fired at the same location more than once
+     * @param shotsFired number of shots fired in the saved game
+     * @param hitCount number of hits recorded in the saved game
+     */
+    void restoreCounts(int shotsFired, int hitCount){
+        this.shotsFired = shotsFired;
+        this.hitCount = hitCount;
+    }
+
+    /**
+     * Method to get the hash of what the player can see of the game, updated by every shot.
+     * Two games the player cannot tell apart from their shots and results, whatever order the
+     * shots were fired in, have the same hash; SeaChart.getStateHash() gives the same value.
+     * @return the Zobrist hash of the observed state, 0 before the first shot
+     */
+    long getStateHash(){
+        return this.stateHash;
+    }
+
     /**
      * Method to check if game is over
-     * @return true if all ships have been sunk, otherwise false
+     * @return true if all ships of the fleet have been sunk, otherwise false
      */
     boolean isGameOver() {
-        return this.shipsSunk == 10;
+        return this.shipsSunk == this.config.getFleetSize();
+    }
+
+    /**
+     * Method to get the ship at a location without building the whole ships array when the
+     * location holds a real ship. Only a dense ocean has EmptySea objects, so otherwise for an empty
+     * location it returns a new one that has recorded any shot fired there.
+     * @param row row in ocean
+     * @param column column in ocean
+     * @return the ship occupying the location, or its EmptySea
+     */
+    Ship getShipAt(int row, int column){
+        int index = Bitboard.index(row, column, this.columns);
+        int id = this.cells.shipAt(index);
+        if (id >= 0){
+            return this.fleet[id];
+        }
+        if (this.dense){
+            return getShipArray()[row][column];
+        }
+        EmptySea emptySea = new EmptySea();
+        emptySea.setBowRow(row);
+        emptySea.setBowColumn(column);
+        if (this.cells.isShot(index)){
+            emptySea.shootAt(row, column);
+        }
+        return emptySea;
     }
 
     /**
@@ -183,12 +665,59 @@ public class Ocean {
      * allow methods in one class to directly access instance variables in another class,
      * sometimes there is just no good alternative.
      *
+     * The game logic itself does not use the array. It (rows x columns for other
+     * configurations) is built with one EmptySea per empty cell on the first call, and from
+     * then on kept up to date by placeShip() so it can be used to look up the Ship object at
+     * a location. Only a dense ocean builds it; use getShipAt() otherwise.
+     *
      * @return the array of ships in the ocean
      */
     Ship[][] getShipArray(){
+        if (!this.dense){
+            throw new IllegalStateException("Only a dense ocean has a ship array, use getShipAt()");
+        }
+        if (this.ships == null){
+
+            // create an "empty" ocean filled with EmptySea objects, then add the ships
+            this.ships = new Ship[this.rows][this.columns];
+            this.emptySeas = new EmptySea[this.config.getCells()];
+            for (int row = 0; row < this.rows; row++){
+                for (int column = 0; column < this.columns; column++){
+                    int index = Bitboard.index(row, column, this.columns);
+                    // create new empty ship
+                    EmptySea emptySea = new EmptySea();
+                    // set the row of the empty ship
+                    emptySea.setBowRow(row);
+                    //set the column of the empty ship
+                    emptySea.setBowColumn(column);
+                    // record a miss that was fired before the array existed
+                    int id = this.cells.shipAt(index);
+                    if (this.cells.isShot(index) && id < 0){
+                        emptySea.shootAt(row, column);
+                        noteMissedSea(index);
+                    }
+                    //assign the ship's spot in array
+                    this.emptySeas[index] = emptySea;
+                    this.ships[row][column] = id >= 0 ? this.fleet[id] : emptySea;
+                }
+            }
+        }
         return this.ships;
     }
 
+    /**
+     * Remembers a cell whose EmptySea recorded a shot, for reset()
+     * @param index cell index
+     */
+    private void noteMissedSea(int index){
+        if (this.missedSeas == null){
+            this.missedSeas = new int[16];
+        }else if (this.missedSeaCount == this.missedSeas.length){
+            this.missedSeas = Arrays.copyOf(this.missedSeas, this.missedSeaCount * 2);
+        }
+        this.missedSeas[this.missedSeaCount++] = index;
+    }
+
     /**
      * Method to check if a ship was hit in a particular position for printing purposes.
      * @param row row in ocean to check
@@ -211,7 +740,7 @@ public class Ocean {
             shipPos = ship.getBowRow() - row;
         }
 
-        if (shipPos >= 0 && shipPos <= 9){
+        if (shipPos >= 0 && shipPos < shipHits.length){
             return shipHits[shipPos];
         }
 
@@ -238,12 +767,30 @@ public class Ocean {
      *
      */
     void print(){
+        print(0, 0, this.rows, this.columns);
+    }
+
+    /**
+     * Prints a window of the ocean the same way as print(), for oceans too large to print
+     * whole. Rows and columns keep their numbers in the ocean, and cells of the window that
+     * lie outside the ocean are left out.
+     * @param top first row to print
+     * @param left first column to print
+     * @param height number of rows to print
+     * @param width number of columns to print
+     */
+    void print(int top, int left, int height, int width){
+        // clip the window to the ocean
+        int firstRow = Math.max(top, 0);
+        int firstColumn = Math.max(left, 0);
+        int bottom = (int) Math.min(this.rows, top + (long) Math.max(height, 0));
+        int right = (int) Math.min(this.columns, left + (long) Math.max(width, 0));
 
         System.out.println();
 
         //print column markers
-        for (int col = 0; col < 10; col++){
-            if (col == 0){
+        for (int col = firstColumn; col < right; col++){
+            if (col == firstColumn){
                 System.out.print("   " + col + " ");
             }else {
                 System.out.print(" " + col + " ");
@@ -251,21 +798,27 @@ public class Ocean {
         }
 
         // print rows
-        for (int row = 0; row < 10; row++){
+        for (int row = firstRow; row < bottom; row++){
             System.out.println("");
 
             // print row number
             System.out.print(row +" ");
 
-            for (int column = 0; column < 10; column++){
-
-                Ship ship = this.ships[row][column];
-
-                // check and print ship status at each position
-                if (wasHitAt(row, column, ship)){
-                    System.out.print(" " + ship + " ");
-                }else{
-                    System.out.print(" . ");
+            for (int column = firstColumn; column < right; column++){
+
+                int index = Bitboard.index(row, column, this.columns);
+
+                // check and print ship status at each position, "-" being how EmptySea prints
+                int id = this.cells.shipAt(index);
+                if (id < 0){
+                    System.out.print(this.cells.isShot(index) ? " - " : " . ");
+                }else {
+                    Ship ship = this.fleet[id];
+                    if (wasHitAt(row, column, ship)){
+                        System.out.print(" " + ship + " ");
+                    }else{
+                        System.out.print(" . ");
+                    }
                 }
             }
         }
@@ -296,12 +849,30 @@ public class Ocean {
      * - Use ' ' (single space) to indicate EmptySea
      */
     void printWithShips(){
+        printWithShips(0, 0, this.rows, this.columns);
+    }
+
+    /**
+     * Prints a window of the ocean the same way as printWithShips(), for oceans too large to
+     * print whole. Cells of the window that lie outside the ocean are left out.
+     * @param top first row to print
+     * @param left first column to print
+     * @param height number of rows to print
+     * @param width number of columns to print
+     */
+    void printWithShips(int top, int left, int height, int width){
+        // clip the window to the ocean
+        int firstRow = Math.max(top, 0);
+        int firstColumn = Math.max(left, 0);
+        int bottom = (int) Math.min(this.rows, top + (long) Math.max(height, 0));
+        int right = (int) Math.min(this.columns, left + (long) Math.max(width, 0));
+
         // print spacer
         System.out.println();
 
         //print column markers
-        for (int col = 0; col < 10; col++){
-            if (col == 0){
+        for (int col = firstColumn; col < right; col++){
+            if (col == firstColumn){
                 System.out.print("  " + col + " ");
             }else {
                 System.out.print(" " + col + " ");
@@ -309,18 +880,22 @@ public class Ocean {
         }
 
         // print rows
-        for (int row = 0; row < 10; row++){
+        for (int row = firstRow; row < bottom; row++){
             System.out.println("");
 
             // print row number
             System.out.print(row + "");
 
-            for (int column = 0; column < 10; column++){
+            for (int column = firstColumn; column < right; column++){
 
-                Ship ship = this.ships[row][column];
+                int index = Bitboard.index(row, column, this.columns);
+                int id = this.cells.shipAt(index);
+                Ship ship = id >= 0 ? this.fleet[id] : null;
 
                 // check and print ship status at each position
-                if (ship.getShipType().equals("battleship")){
+                if (ship == null){
+                    System.out.print("   ");
+                }else if (ship.getShipType().equals("battleship")){
                     System.out.print(" b ");
                 }else if (ship.getShipType().equals("cruiser")){
                     System.out.print(" c ");
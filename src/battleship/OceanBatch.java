@@ -0,0 +1,380 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Many games of the same configuration kept side by side in primitive arrays, one entry per
+ * game, so a batch of shots (one per game) is applied in a single loop over flat arrays
+ * instead of a walk over a graph of Ocean and Ship objects per game. shootAll() is the batch
+ * form of Ocean.shootAt(), Ship.isSunk() and Ocean.isGameOver(): it reports which games were
+ * hit, and which had a ship sunk, as bit sets indexed by game.
+ *
+ * For game g:
+ *   shipOf[g * cells + cell]   1 + position in the fleet of the ship on the cell, or 0
+ *   shotsLo[g], shotsHi[g]     cells fired upon, two-long mask
+ *   remaining[g * fleet + i]   parts of ship i not hit yet
+ *   shotsFired[g], hitCount[g], shipsSunk[g]
+ *
+ * Only boards of up to 128 cells are supported, like PlacementTable. A batch is not thread
+ * safe; use one per thread.
+ */
+public final class OceanBatch {
+
+    /**
+     * Size of the oceans and their fleet
+     */
+    private final BoardConfig config;
+
+    /**
+     * Number of games in the batch
+     */
+    private final int games;
+
+    /**
+     * Number of cells in each ocean
+     */
+    private final int cells;
+
+    /**
+     * Number of ships in each fleet
+     */
+    private final int fleetSize;
+
+    /**
+     * Length of every ship in the fleet, longest first
+     */
+    private final int[] lengths;
+
+    /**
+     * Footprints of the board
+     */
+    private final PlacementTable table;
+
+    /**
+     * Scratch space for PlacementTable.drawLayout()
+     */
+    private final int[] placementScratch;
+
+    /**
+     * Footprint chosen for each ship by the last PlacementTable.drawLayout()
+     */
+    private final int[] drawn;
+
+    /**
+     * Per game and ship, the footprint the ship was placed on
+     */
+    private final int[] layout;
+
+    /**
+     * Per game and cell, 1 + the ship's position in the fleet, or 0 for an empty cell
+     */
+    private final byte[] shipOf;
+
+    /**
+     * Per game and ship, the number of parts not hit yet
+     */
+    private final byte[] remaining;
+
+    /**
+     * Per game, cells 0-63 fired upon
+     */
+    private final long[] shotsLo;
+
+    /**
+     * Per game, cells 64-127 fired upon
+     */
+    private final long[] shotsHi;
+
+    /**
+     * Per game, the number of shots fired
+     */
+    private final int[] shotsFired;
+
+    /**
+     * Per game, the number of hits recorded
+     */
+    private final int[] hitCount;
+
+    /**
+     * Per game, the number of ships sunk
+     */
+    private final int[] shipsSunk;
+
+    /**
+     * Creates a batch of empty standard 10 x 10 oceans
+     * @param games number of games
+     */
+    public OceanBatch(int games){
+        this(BoardConfig.STANDARD, games);
+    }
+
+    /**
+     * Creates a batch of empty oceans
+     * @param config size of the oceans and their fleet, the ocean having at most 128 cells
+     * @param games number of games
+     */
+    public OceanBatch(BoardConfig config, int games){
+        if (config.getCells() > PlacementTable.MAX_CELLS){
+            throw new IllegalArgumentException("A batch only covers oceans of up to 128 cells");
+        }
+        if (config.getFleetSize() > Byte.MAX_VALUE){
+            throw new IllegalArgumentException("A batch only covers fleets of up to 127 ships");
+        }
+        this.config = config;
+        this.games = games;
+        this.cells = config.getCells();
+        this.fleetSize = config.getFleetSize();
+        this.lengths = config.getFleetLengths();
+        this.table = config.isStandard() ? PlacementTable.STANDARD
+                : new PlacementTable(config.getRows(), config.getColumns(), BoardConfig.MAX_SHIP_LENGTH);
+        this.placementScratch = new int[this.table.maxFootprints()];
+        this.drawn = new int[this.fleetSize];
+        this.layout = new int[games * this.fleetSize];
+        this.shipOf = new byte[games * this.cells];
+        this.remaining = new byte[games * this.fleetSize];
+        this.shotsLo = new long[games];
+        this.shotsHi = new long[games];
+        this.shotsFired = new int[games];
+        this.hitCount = new int[games];
+        this.shipsSunk = new int[games];
+    }
+
+    /**
+     * Method to get the number of games
+     * @return the number of games in the batch
+     */
+    int getGames(){
+        return this.games;
+    }
+
+    /**
+     * Method to get the configuration of the games
+     * @return the size of the oceans and their fleet
+     */
+    BoardConfig getConfig(){
+        return this.config;
+    }
+
+    /**
+     * Empties one game's ocean, the same as Ocean.reset()
+     * @param game number of the game
+     */
+    void reset(int game){
+        Arrays.fill(this.shipOf, game * this.cells, (game + 1) * this.cells, (byte) 0);
+        Arrays.fill(this.remaining, game * this.fleetSize, (game + 1) * this.fleetSize, (byte) 0);
+        this.shotsLo[game] = 0;
+        this.shotsHi[game] = 0;
+        this.shotsFired[game] = 0;
+        this.hitCount[game] = 0;
+        this.shipsSunk[game] = 0;
+    }
+
+    /**
+     * Starts one game again with the same fleet in the same places: no shots fired, every
+     * ship afloat. Useful to play several strategies against the same layouts.
+     * @param game number of the game
+     */
+    void restart(int game){
+        for (int i = 0; i < this.fleetSize; i++){
+            this.remaining[game * this.fleetSize + i] = (byte) this.lengths[i];
+        }
+        this.shotsLo[game] = 0;
+        this.shotsHi[game] = 0;
+        this.shotsFired[game] = 0;
+        this.hitCount[game] = 0;
+        this.shipsSunk[game] = 0;
+    }
+
+    /**
+     * Empties one game's ocean and places the whole fleet at random, the same way as
+     * Ocean.placeAllShipsRandomly()
+     * @param game number of the game
+     * @param random source of randomness
+     */
+    void placeAllShipsRandomly(int game, RandomGenerator random){
+        reset(game);
+        this.table.drawLayout(this.lengths, random, this.placementScratch, this.drawn);
+
+        int first = game * this.fleetSize;
+        System.arraycopy(this.drawn, 0, this.layout, first, this.fleetSize);
+        for (int i = 0; i < this.fleetSize; i++){
+            int length = this.lengths[i];
+            int footprint = this.layout[first + i];
+            this.remaining[first + i] = (byte) length;
+            markCells(game, i, this.table.cellsLo(length, footprint), 0);
+            markCells(game, i, this.table.cellsHi(length, footprint), 64);
+        }
+    }
+
+    /**
+     * Empties every game and places a new fleet in each
+     * @param random source of randomness
+     */
+    void placeAllShipsRandomly(RandomGenerator random){
+        for (int game = 0; game < this.games; game++){
+            placeAllShipsRandomly(game, random);
+        }
+    }
+
+    /**
+     * Records a ship in the cells of one word of its mask
+     */
+    private void markCells(int game, int ship, long mask, int firstCell){
+        int base = game * this.cells + firstCell;
+        while (mask != 0){
+            this.shipOf[base + Long.numberOfTrailingZeros(mask)] = (byte) (ship + 1);
+            mask &= mask - 1;
+        }
+    }
+
+    /**
+     * Fires one shot in every game that is not over, the batch form of Ocean.shootAt(). A game
+     * whose entry in cells is negative is skipped too.
+     *
+     * @param cells for each game, the index (row * columns + column) of the cell to fire at
+     * @param hits receives a bit set, by game, of the shots that hit a ship still afloat;
+     *             at least (games + 63) / 64 long
+     * @param sunk receives a bit set, by game, of the shots that sank a ship; same length
+     * @return the number of games the shot hit
+     */
+    int shootAll(int[] cells, long[] hits, long[] sunk){
+        int words = (this.games + 63) >>> 6;
+        Arrays.fill(hits, 0, words, 0);
+        Arrays.fill(sunk, 0, words, 0);
+
+        int hitGames = 0;
+        for (int game = 0; game < this.games; game++){
+            int cell = cells[game];
+            if (cell < 0 || this.shipsSunk[game] == this.fleetSize){
+                continue;
+            }
+            this.shotsFired[game]++;
+
+            // mark the cell fired upon, remembering whether it was before
+            long bit = 1L << cell;
+            long before;
+            if (cell < 64){
+                before = this.shotsLo[game];
+                this.shotsLo[game] = before | bit;
+            }else {
+                before = this.shotsHi[game];
+                this.shotsHi[game] = before | bit;
+            }
+
+            // shooting at an empty cell or a sunk ship is a miss
+            int ship = this.shipOf[game * this.cells + cell];
+            if (ship == 0){
+                continue;
+            }
+            int index = game * this.fleetSize + ship - 1;
+            int left = this.remaining[index];
+            if (left == 0){
+                continue;
+            }
+            this.hitCount[game]++;
+            hits[game >>> 6] |= 1L << game;
+            hitGames++;
+
+            // each part only counts once, and the ship is sunk when none are left
+            if ((before & bit) == 0){
+                this.remaining[index] = (byte) (left - 1);
+                if (left == 1){
+                    this.shipsSunk[game]++;
+                    sunk[game >>> 6] |= 1L << game;
+                }
+            }
+        }
+        return hitGames;
+    }
+
+    /**
+     * Finds the games that are over, the batch form of Ocean.isGameOver()
+     * @param over receives a bit set, by game, of the games whose whole fleet is sunk;
+     *             at least (games + 63) / 64 long
+     * @return the number of games that are over
+     */
+    int gamesOver(long[] over){
+        Arrays.fill(over, 0, (this.games + 63) >>> 6, 0);
+        int count = 0;
+        for (int game = 0; game < this.games; game++){
+            if (this.shipsSunk[game] == this.fleetSize){
+                over[game >>> 6] |= 1L << game;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method to check if a game is over
+     * @param game number of the game
+     * @return true if all ships of the fleet have been sunk, otherwise false
+     */
+    boolean isGameOver(int game){
+        return this.shipsSunk[game] == this.fleetSize;
+    }
+
+    /**
+     * Method to check if a location in a game contains a ship
+     * @param game number of the game
+     * @param cell index of the cell, row * columns + column
+     * @return true if the location contains a ship, false if it does not
+     */
+    boolean isOccupied(int game, int cell){
+        return this.shipOf[game * this.cells + cell] != 0;
+    }
+
+    /**
+     * Method to check if a location in a game has been fired upon
+     * @param game number of the game
+     * @param cell index of the cell, row * columns + column
+     * @return true if at least one shot was fired at the location, false otherwise
+     */
+    boolean isShotAt(int game, int cell){
+        long shots = cell < 64 ? this.shotsLo[game] : this.shotsHi[game];
+        return (shots & (1L << cell)) != 0;
+    }
+
+    /**
+     * Method to get the number of shots fired in a game
+     * @param game number of the game
+     * @return the number of shots fired
+     */
+    int getShotsFired(int game){
+        return this.shotsFired[game];
+    }
+
+    /**
+     * Method to get the number of hits recorded in a game
+     * @param game number of the game
+     * @return the number of hits recorded
+     */
+    int getHitCount(int game){
+        return this.hitCount[game];
+    }
+
+    /**
+     * Method to get the number of ships sunk in a game
+     * @param game number of the game
+     * @return the number of ships sunk
+     */
+    int getShipsSunk(int game){
+        return this.shipsSunk[game];
+    }
+
+    /**
+     * Puts a game's fleet, as placed, into an empty ocean, for display or to check the batch
+     * against Ocean. Shots are not copied.
+     * @param game number of the game
+     * @param ocean empty ocean of the same configuration
+     */
+    void placeFleetIn(int game, Ocean ocean){
+        for (int i = 0; i < this.fleetSize; i++){
+            int length = this.lengths[i];
+            int footprint = this.layout[game * this.fleetSize + i];
+            BoardConfig.createShip(length).placeShipAt(this.table.bowRow(length, footprint),
+                    this.table.bowColumn(length, footprint), this.table.isHorizontal(length, footprint), ocean);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class OceanBatchTest {
+
+    @Test
+    void testPlaysLikeOceans() {
+        int games = 130;
+        OceanBatch batch = new OceanBatch(games);
+        SplittableRandom random = new SplittableRandom(591);
+        batch.placeAllShipsRandomly(random);
+
+        // an ocean per game with the same fleet
+        Ocean[] oceans = new Ocean[games];
+        for (int g = 0; g < games; g++){
+            oceans[g] = new Ocean();
+            batch.placeFleetIn(g, oceans[g]);
+            for (int cell = 0; cell < 100; cell++){
+                assertEquals(oceans[g].isOccupied(cell / 10, cell % 10), batch.isOccupied(g, cell));
+            }
+        }
+
+        // random shots, many of them repeats, in every game that is not over yet
+        int[] cells = new int[games];
+        long[] hits = new long[3];
+        long[] sunk = new long[3];
+        long[] over = new long[3];
+        while (batch.gamesOver(over) < games){
+            for (int g = 0; g < games; g++){
+                cells[g] = oceans[g].isGameOver() ? -1 : random.nextInt(100);
+            }
+            int hitGames = batch.shootAll(cells, hits, sunk);
+
+            int expectedHits = 0;
+            for (int g = 0; g < games; g++){
+                if (cells[g] < 0){
+                    assertEquals(0, (hits[g >>> 6] >>> g) & 1);
+                    continue;
+                }
+                int sunkBefore = oceans[g].getShipsSunk();
+                boolean hit = oceans[g].shootAt(cells[g] / 10, cells[g] % 10);
+                expectedHits += hit ? 1 : 0;
+                assertEquals(hit, ((hits[g >>> 6] >>> g) & 1) != 0);
+                assertEquals(oceans[g].getShipsSunk() > sunkBefore, ((sunk[g >>> 6] >>> g) & 1) != 0);
+                assertEquals(oceans[g].isGameOver(), batch.isGameOver(g));
+            }
+            assertEquals(expectedHits, hitGames);
+        }
+
+        for (int g = 0; g < games; g++){
+            assertTrue(oceans[g].isGameOver());
+            assertEquals(oceans[g].getShotsFired(), batch.getShotsFired(g));
+            assertEquals(oceans[g].getHitCount(), batch.getHitCount(g));
+            assertEquals(10, batch.getShipsSunk(g));
+            for (int cell = 0; cell < 100; cell++){
+                assertEquals(oceans[g].isShotAt(cell / 10, cell % 10), batch.isShotAt(g, cell));
+            }
+        }
+    }
+}
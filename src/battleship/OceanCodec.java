@@ -0,0 +1,389 @@
+package battleship;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact, versioned binary form of a game, for saving games or sending them elsewhere. Games
+ * are written straight into and read straight out of a caller's ByteBuffer (a heap buffer,
+ * a direct buffer or a mapped file), at its position, with no copy in between.
+ *
+ * Format version 1, in this order:
+ *
+ *   version        1 byte, VERSION
+ *   flags          1 byte: 1 for the standard board and fleet, 2 if the fleet is placed
+ *   board          only if not standard: rows, columns, number of ships and each ship's
+ *                  length, as varints
+ *   ships          only if placed, per ship in the fleet's order: bow cell * 2, plus 1 if
+ *                  horizontal, in 1, 2 or 4 bytes (the fewest that fit 2 * cells values)
+ *   hit bits       only if placed: every ship's hit array in the same order, bow first, one
+ *                  bit per part, packed low bit first
+ *   shots          one bit per cell (row * columns + column), packed low bit first
+ *   counts         shots fired, hits recorded and ships sunk, as varints
+ *
+ * Varints are unsigned LEB128: 7 bits per byte, low bits first, the high bit set on every
+ * byte but the last. A standard game takes 31 bytes until more than 127 shots have been fired.
+ *
+ * Decoding places the ships and fires once at every cell that was fired upon, so the rebuilt
+ * ocean keeps its own counts and hash consistent, then puts back the saved counts and checks
+ * the hit bits and ships sunk against the replay.
+ */
+public final class OceanCodec {
+
+    /**
+     * Version written by encode() and the only one decode() reads
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Flag set for the standard board and fleet, which are then not written out
+     */
+    private static final int STANDARD = 1;
+
+    /**
+     * Flag set when the fleet is placed
+     */
+    private static final int PLACED = 2;
+
+    /**
+     * No instances, only static methods
+     */
+    private OceanCodec(){
+    }
+
+    /**
+     * Method to get the most bytes encode() writes for a configuration
+     * @param config size of the ocean and its fleet
+     * @return an upper bound on the encoded size of any game of that configuration
+     */
+    static int maxEncodedSize(BoardConfig config){
+        int ships = config.getFleetSize();
+        int parts = 0;
+        for (int length : config.getFleetLengths()){
+            parts += length;
+        }
+        int board = config.isStandard() ? 0 : 3 * 5 + ships * 5;
+        return 2 + board + ships * shipBytes(config) + (parts + 7) / 8 + (config.getCells() + 7) / 8 + 3 * 5;
+    }
+
+    /**
+     * Writes a game at the buffer's position and moves the position past it
+     * @param ocean game to write; its fleet, if placed, must be its configuration's fleet
+     * @param out buffer to write to
+     * @throws java.nio.BufferOverflowException if the buffer has too little room left
+     */
+    static void encode(Ocean ocean, ByteBuffer out){
+        BoardConfig config = ocean.getConfig();
+        Ship[] fleet = fleetInOrder(ocean);
+        int columns = config.getColumns();
+
+        out.put((byte) VERSION);
+        out.put((byte) ((config.isStandard() ? STANDARD : 0) | (fleet != null ? PLACED : 0)));
+        if (!config.isStandard()){
+            putVarint(out, config.getRows());
+            putVarint(out, columns);
+            putVarint(out, config.getFleetSize());
+            for (int length : config.getFleetLengths()){
+                putVarint(out, length);
+            }
+        }
+
+        if (fleet != null){
+
+            // where each ship is
+            int width = shipBytes(config);
+            for (Ship ship : fleet){
+                int position = (ship.getBowRow() * columns + ship.getBowColumn()) * 2 + (ship.isHorizontal() ? 1 : 0);
+                putFixed(out, position, width);
+            }
+
+            // which of its parts are hit
+            int bits = 0;
+            int filled = 0;
+            for (Ship ship : fleet){
+                for (boolean hit : ship.getHit()){
+                    bits |= (hit ? 1 : 0) << filled++;
+                    if (filled == 8){
+                        out.put((byte) bits);
+                        bits = 0;
+                        filled = 0;
+                    }
+                }
+            }
+            if (filled > 0){
+                out.put((byte) bits);
+            }
+        }
+
+        // the cells fired upon, eight to a byte
+        int cells = config.getCells();
+        for (int first = 0; first < cells; first += 8){
+            int bits = 0;
+            for (int cell = first; cell < Math.min(first + 8, cells); cell++){
+                if (ocean.isShotAt(cell / columns, cell % columns)){
+                    bits |= 1 << (cell - first);
+                }
+            }
+            out.put((byte) bits);
+        }
+
+        putVarint(out, ocean.getShotsFired());
+        putVarint(out, ocean.getHitCount());
+        putVarint(out, ocean.getShipsSunk());
+    }
+
+    /**
+     * Reads a game at the buffer's position into a new ocean and moves the position past it
+     * @param in buffer to read from
+     * @return the game
+     * @throws IllegalArgumentException if the bytes are not a game of a known version
+     */
+    static Ocean decode(ByteBuffer in){
+        int start = in.position();
+        BoardConfig config;
+        try {
+            config = readBoard(in, readFlags(in));
+        }catch (BufferUnderflowException e){
+            throw new IllegalArgumentException("The game is cut short", e);
+        }catch (IllegalArgumentException e){
+            throw e;
+        }catch (RuntimeException e){
+            throw new IllegalArgumentException("The game's board cannot be read", e);
+        }
+        in.position(start);
+        Ocean ocean = new Ocean(config);
+        decode(in, ocean);
+        return ocean;
+    }
+
+    /**
+     * Reads a game at the buffer's position into an existing ocean, which is reset first, and
+     * moves the position past it
+     * @param in buffer to read from
+     * @param ocean ocean of the same size and fleet as the encoded game
+     * @throws IllegalArgumentException if the bytes are not a game of a known version, or of
+     *                                  a different configuration from the ocean's
+     */
+    static void decode(ByteBuffer in, Ocean ocean){
+        try {
+            BoardConfig config = ocean.getConfig();
+            int flags = readFlags(in);
+            BoardConfig encoded = readBoard(in, flags);
+            if (encoded.getRows() != config.getRows() || encoded.getColumns() != config.getColumns()
+                    || !Arrays.equals(encoded.getFleetLengths(), config.getFleetLengths())){
+                throw new IllegalArgumentException("The game is " + encoded + ", the ocean is " + config);
+            }
+            boolean placed = (flags & PLACED) != 0;
+            ocean.reset();
+
+            int columns = config.getColumns();
+            Ship[] fleet = new Ship[config.getFleetSize()];
+            long[] hitBits = null;
+            if (placed){
+                int width = shipBytes(config);
+                for (int i = 0; i < fleet.length; i++){
+                    int position = getFixed(in, width);
+                    int cell = position >>> 1;
+                    fleet[i] = BoardConfig.createShip(config.getShipLength(i));
+                    if (cell >= config.getCells()
+                            || !fleet[i].okToPlaceShipAt(cell / columns, cell % columns, (position & 1) != 0, ocean)){
+                        throw new IllegalArgumentException("Ship " + i + " does not fit");
+                    }
+                    fleet[i].placeShipAt(cell / columns, cell % columns, (position & 1) != 0, ocean);
+                }
+                int parts = 0;
+                for (Ship ship : fleet){
+                    parts += ship.getLength();
+                }
+                hitBits = new long[(parts + 63) / 64];
+                for (int i = 0; i < (parts + 7) / 8; i++){
+                    hitBits[i / 8] |= (long) (in.get() & 0xFF) << (8 * (i % 8));
+                }
+            }
+
+            // fire once at every cell fired upon
+            int cells = config.getCells();
+            for (int first = 0; first < cells; first += 8){
+                int bits = in.get() & 0xFF;
+                for (; bits != 0; bits &= bits - 1){
+                    int cell = first + Integer.numberOfTrailingZeros(bits);
+                    ocean.shootAt(cell / columns, cell % columns);
+                }
+            }
+            int shotsFired = getVarint(in);
+            int hitCount = getVarint(in);
+            int shipsSunk = getVarint(in);
+            ocean.restoreCounts(shotsFired, hitCount);
+
+            // the replay must leave the ships as they were saved
+            if (placed){
+                int part = 0;
+                for (Ship ship : fleet){
+                    for (boolean hit : ship.getHit()){
+                        if (hit != ((hitBits[part / 64] >>> (part % 64) & 1) != 0)){
+                            throw new IllegalArgumentException("The hit bits do not match the shots");
+                        }
+                        part++;
+                    }
+                }
+            }
+            if (shipsSunk != ocean.getShipsSunk()){
+                throw new IllegalArgumentException("The ships sunk do not match the shots");
+            }
+        }catch (BufferUnderflowException e){
+            throw new IllegalArgumentException("The game is cut short", e);
+        }
+    }
+
+    /**
+     * Reads the version and the flags
+     * @return the flags
+     */
+    private static int readFlags(ByteBuffer in){
+        int version = in.get() & 0xFF;
+        if (version != VERSION){
+            throw new IllegalArgumentException("Unknown game format version " + version);
+        }
+        return in.get() & 0xFF;
+    }
+
+    /**
+     * Reads the board, if it was written out. Nothing is allocated from the sizes read before
+     * they are checked against the bytes left, as the game still has a bit per cell and a byte
+     * per ship to come.
+     * @param flags the flags read before
+     * @return the configuration of the encoded game
+     * @throws IllegalArgumentException if the board is too large for the bytes left
+     */
+    private static BoardConfig readBoard(ByteBuffer in, int flags){
+        if ((flags & STANDARD) != 0){
+            return BoardConfig.STANDARD;
+        }
+        int rows = getVarint(in);
+        int columns = getVarint(in);
+        long cells = (long) rows * columns;
+        if (rows < 1 || columns < 1 || cells > 8L * in.remaining()){
+            throw new IllegalArgumentException("The board of " + rows + " x " + columns + " does not fit the bytes left");
+        }
+        int ships = getVarint(in);
+        if (ships < 0 || ships > in.remaining() || ships > cells){
+            throw new IllegalArgumentException("The fleet of " + ships + " ships does not fit the board or the bytes left");
+        }
+        int[] lengths = new int[ships];
+        for (int i = 0; i < lengths.length; i++){
+            lengths[i] = getVarint(in);
+        }
+        return new BoardConfig(rows, columns, lengths);
+    }
+
+    /**
+     * Method to get the ships of an ocean in the order of its configuration's fleet
+     * @return the ships, or null if none are placed
+     * @throws IllegalArgumentException if the ships placed are not the configuration's fleet
+     */
+    private static Ship[] fleetInOrder(Ocean ocean){
+        BoardConfig config = ocean.getConfig();
+        int[] lengths = config.getFleetLengths();
+        Ship[] fleet = new Ship[lengths.length];
+
+        // ships of each length go to that length's entries in the fleet
+        int[] nextShip = new int[BoardConfig.MAX_SHIP_LENGTH + 1];
+        Arrays.fill(nextShip, -1);
+        for (int i = lengths.length - 1; i >= 0; i--){
+            nextShip[lengths[i]] = i;
+        }
+
+        // each ship is found once, at its bow
+        int columns = config.getColumns();
+        int ships = 0;
+        for (int cell = 0; cell < config.getCells(); cell++){
+            int row = cell / columns;
+            int column = cell % columns;
+            if (!ocean.isOccupied(row, column)){
+                continue;
+            }
+            Ship ship = ocean.getShipAt(row, column);
+            if (row != ship.getBowRow() || column != ship.getBowColumn()){
+                continue;
+            }
+            int length = ship.getLength();
+            int i = nextShip[length];
+            if (i < 0 || i >= lengths.length || lengths[i] != length){
+                throw new IllegalArgumentException("The ocean's fleet does not match " + config);
+            }
+            nextShip[length]++;
+            fleet[i] = ship;
+            ships++;
+        }
+        if (ships == 0){
+            return null;
+        }
+        if (ships != lengths.length){
+            throw new IllegalArgumentException("The ocean's fleet does not match " + config);
+        }
+        return fleet;
+    }
+
+    /**
+     * Method to get the bytes a ship's position takes
+     * @return 1, 2 or 4, the fewest bytes that hold 2 * cells values
+     */
+    private static int shipBytes(BoardConfig config){
+        long values = 2L * config.getCells();
+        return values <= 1 << 8 ? 1 : values <= 1 << 16 ? 2 : 4;
+    }
+
+    /**
+     * Writes the low bytes of a number, low byte first
+     */
+    private static void putFixed(ByteBuffer out, int value, int bytes){
+        for (int i = 0; i < bytes; i++){
+            out.put((byte) (value >>> (8 * i)));
+        }
+    }
+
+    /**
+     * Reads a number written by putFixed()
+     */
+    private static int getFixed(ByteBuffer in, int bytes){
+        int value = 0;
+        for (int i = 0; i < bytes; i++){
+            value |= (in.get() & 0xFF) << (8 * i);
+        }
+        return value;
+    }
+
+    /**
+     * Writes a non-negative number as a varint
+     */
+    static void putVarint(ByteBuffer out, int value){
+        while ((value & ~0x7F) != 0){
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads a varint
+     * @throws IllegalArgumentException if it runs past 5 bytes, or is too large for a
+     *                                  non-negative int
+     */
+    static int getVarint(ByteBuffer in){
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7){
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0){
+
+                // the fifth byte holds bits 28 to 31, and bit 31 would make the value negative
+                if (shift == 28 && b > 7){
+                    throw new IllegalArgumentException("Varint too large");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
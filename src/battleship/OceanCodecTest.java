@@ -0,0 +1,154 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OceanCodecTest {
+
+    /**
+     * Checks that two oceans hold the same game, ship parts included
+     */
+    private void assertSameGame(Ocean expected, Ocean actual) {
+        BoardConfig config = expected.getConfig();
+        for (int r = 0; r < config.getRows(); r++){
+            for (int c = 0; c < config.getColumns(); c++){
+                assertEquals(expected.isOccupied(r, c), actual.isOccupied(r, c));
+                assertEquals(expected.isShotAt(r, c), actual.isShotAt(r, c));
+                if (expected.isOccupied(r, c)){
+                    Ship ship = expected.getShipAt(r, c);
+                    Ship copy = actual.getShipAt(r, c);
+                    assertEquals(ship.getBowRow(), copy.getBowRow());
+                    assertEquals(ship.getBowColumn(), copy.getBowColumn());
+                    assertArrayEquals(ship.getHit(), copy.getHit());
+                }
+            }
+        }
+        assertEquals(expected.getShotsFired(), actual.getShotsFired());
+        assertEquals(expected.getHitCount(), actual.getHitCount());
+        assertEquals(expected.getShipsSunk(), actual.getShipsSunk());
+        assertEquals(expected.getStateHash(), actual.getStateHash());
+    }
+
+    @Test
+    void testRoundTripsGamesInPlay() {
+
+        Random random = new Random(591);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(OceanCodec.maxEncodedSize(BoardConfig.STANDARD) * 2);
+        Ocean reused = new Ocean();
+        for (int game = 0; game < 100; game++){
+            Ocean ocean = new Ocean();
+            ocean.placeAllShipsRandomly();
+
+            // random shots, repeats included, stopping at some point of the game
+            int shots = random.nextInt(120);
+            for (int i = 0; i < shots && !ocean.isGameOver(); i++){
+                ocean.shootAt(random.nextInt(10), random.nextInt(10));
+            }
+
+            // two games back to back, read back into a new ocean and into a used one
+            buffer.clear();
+            OceanCodec.encode(ocean, buffer);
+            int size = buffer.position();
+            OceanCodec.encode(ocean, buffer);
+            if (ocean.getShotsFired() < 128){
+                assertEquals(31, size);
+            }
+            buffer.flip();
+            assertSameGame(ocean, OceanCodec.decode(buffer));
+            assertEquals(size, buffer.position());
+            OceanCodec.decode(buffer, reused);
+            assertSameGame(ocean, reused);
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    void testOtherBoardsAndEmptyOceans() {
+
+        // a custom board and fleet is written out with the game
+        BoardConfig config = new BoardConfig(12, 30, new int[]{4, 3, 3, 1});
+        Ocean ocean = new Ocean(config);
+        ocean.placeAllShipsRandomly();
+        for (int cell = 0; cell < config.getCells(); cell += 7){
+            ocean.shootAt(cell / 30, cell % 30);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(OceanCodec.maxEncodedSize(config));
+        OceanCodec.encode(ocean, buffer);
+        buffer.flip();
+        Ocean copy = OceanCodec.decode(buffer);
+        assertEquals(12, copy.getRows());
+        assertArrayEquals(config.getFleetLengths(), copy.getConfig().getFleetLengths());
+        assertSameGame(ocean, copy);
+
+        // an ocean with no ships yet has only its shots
+        Ocean empty = new Ocean();
+        empty.shootAt(3, 4);
+        buffer = ByteBuffer.allocate(64);
+        OceanCodec.encode(empty, buffer);
+        assertEquals(2 + 13 + 3, buffer.position());
+        buffer.flip();
+        assertSameGame(empty, OceanCodec.decode(buffer));
+    }
+
+    @Test
+    void testRejectsBadInput() {
+
+        Ocean ocean = new Ocean();
+        ocean.placeAllShipsRandomly();
+        ocean.shootAt(0, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        OceanCodec.encode(ocean, buffer);
+        int size = buffer.position();
+
+        // an unknown version
+        buffer.put(0, (byte) 9);
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> OceanCodec.decode(buffer));
+
+        // a game cut short
+        buffer.put(0, (byte) OceanCodec.VERSION);
+        buffer.position(0).limit(size - 4);
+        assertThrows(IllegalArgumentException.class, () -> OceanCodec.decode(buffer));
+
+        // a game of another size
+        buffer.position(0).limit(size);
+        assertThrows(IllegalArgumentException.class, () -> OceanCodec.decode(buffer, new Ocean(new BoardConfig(10, 12, Ocean.FLEET_LENGTHS))));
+    }
+
+    @Test
+    void testRejectsCorruptBoards() {
+
+        // a fleet size that overflows to a negative number, and one larger than the bytes left
+        assertCorrupt(1, 0, 0x10, 0x10, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        assertCorrupt(1, 0, 0x10, 0x10, 0xFF, 0xFF, 0xFF, 0x7F);
+
+        // a board far larger than the bytes left, and an empty one
+        assertCorrupt(1, 0, 0xFF, 0xFF, 0xFF, 0x07, 0xFF, 0xFF, 0xFF, 0x07, 1, 1);
+        assertCorrupt(1, 0, 0, 10, 1, 1);
+
+        // varints that run past 5 bytes, or past a non-negative int
+        assertCorrupt(1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01);
+        assertCorrupt(1, 0, 10, 0x80, 0x80, 0x80, 0x80, 0x08);
+
+        // a header cut short, and a ship length no ship has
+        assertCorrupt(1, 0, 10);
+        assertCorrupt(1, 0, 2, 2, 1, 7, 0, 0, 0, 0);
+    }
+
+    /**
+     * Checks that decoding the bytes fails with IllegalArgumentException, into a new ocean and
+     * into an existing one
+     */
+    private void assertCorrupt(int... bytes){
+        byte[] game = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++){
+            game[i] = (byte) bytes[i];
+        }
+        assertThrows(IllegalArgumentException.class, () -> OceanCodec.decode(ByteBuffer.wrap(game)));
+        assertThrows(IllegalArgumentException.class, () -> OceanCodec.decode(ByteBuffer.wrap(game), new Ocean()));
+    }
+}
@@ -0,0 +1,67 @@
+package battleship;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps oceans that are no longer in use so later games can reuse them instead of allocating
+ * new ones. An ocean keeps its fleet, its EmptySea objects and its placement scratch from game
+ * to game, so a reused ocean costs only a reset().
+ *
+ * Every thread has its own pool, so acquire() and release() need no locking. An ocean should be
+ * released on the thread that acquired it, and not used after it has been released.
+ */
+final class OceanPool {
+
+    /**
+     * Largest number of idle oceans a thread keeps
+     */
+    private static final int MAX_IDLE = 16;
+
+    /**
+     * The idle oceans of each thread
+     */
+    private static final ThreadLocal<ArrayDeque<Ocean>> IDLE = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private OceanPool(){
+    }
+
+    /**
+     * Method to get an empty ocean, reused from this thread's pool if it has one
+     * @return an ocean with no ships and no shots fired
+     */
+    static Ocean acquire(){
+        Ocean ocean = IDLE.get().pollFirst();
+        if (ocean == null){
+            return new Ocean();
+        }
+        ocean.reset();
+        return ocean;
+    }
+
+    /**
+     * Gives an ocean back to this thread's pool. If the pool is full the ocean is left for the
+     * garbage collector.
+     * @param ocean ocean that is no longer used
+     * @throws IllegalArgumentException if the ocean is already idle in this thread's pool, as
+     *                                  two later games would then be handed the same ocean
+     */
+    static void release(Ocean ocean){
+        ArrayDeque<Ocean> idle = IDLE.get();
+
+        // the pool holds at most MAX_IDLE oceans, so looking through it is cheap
+        if (idle.contains(ocean)){
+            throw new IllegalArgumentException("The ocean is already released");
+        }
+        if (idle.size() < MAX_IDLE){
+            idle.addFirst(ocean);
+        }
+    }
+
+    /**
+     * Method to get the number of idle oceans in this thread's pool
+     * @return the number of oceans waiting to be reused
+     */
+    static int idle(){
+        return IDLE.get().size();
+    }
+}
@@ -2,7 +2,9 @@ package battleship;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -102,6 +104,35 @@ class OceanTest {
         assertEquals(totalSpaces - occupiedSpaces, numEmptySeas);
     }
 
+    @Test
+    void testPlaceAllShipsRandomlyShipsDoNotTouch() {
+
+        // generate many boards and check that no two ships touch, even diagonally
+        for (int board = 0; board < 200; board++){
+            Ocean testOcean = new Ocean();
+            testOcean.placeAllShipsRandomly();
+            Ship[][] ships = testOcean.getShipArray();
+
+            for (int r = 0; r < 10; r++){
+                for (int c = 0; c < 10; c++){
+                    if (!testOcean.isOccupied(r, c)){
+                        continue;
+                    }
+                    // every occupied neighbour must be part of the same ship
+                    for (int dr = -1; dr <= 1; dr++){
+                        for (int dc = -1; dc <= 1; dc++){
+                            int nr = r + dr;
+                            int nc = c + dc;
+                            if (nr >= 0 && nr < 10 && nc >= 0 && nc < 10 && testOcean.isOccupied(nr, nc)){
+                                assertSame(ships[r][c], ships[nr][nc]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     @Test
     void testIsOccupied() {
 
@@ -439,4 +470,401 @@ class OceanTest {
 
     }
 
+    @Test
+    void testShootAtDoesNotAllocate() {
+
+        // this test needs the HotSpot extension that reports allocated bytes per thread
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // warm up on another ocean so every class on the shot path is loaded
+        Ocean warmUp = new Ocean();
+        warmUp.placeAllShipsRandomly();
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                warmUp.shootAt(r, c);
+            }
+        }
+
+        ocean.placeAllShipsRandomly();
+
+        // measure what reading the counter costs by itself
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long overhead = threads.getThreadAllocatedBytes(threadId) - start;
+
+        // shoot every cell twice: misses, hits, sinking shots and shots at sunk ships
+        start = threads.getThreadAllocatedBytes(threadId);
+        for (int pass = 0; pass < 2; pass++){
+            for (int r = 0; r < 10; r++){
+                for (int c = 0; c < 10; c++){
+                    ocean.shootAt(r, c);
+                }
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - start - overhead;
+
+        assertTrue(ocean.isGameOver());
+        assertEquals(0, allocated, "shootAt should not allocate");
+    }
+
+    @Test
+    void testReset() {
+
+        // play a whole game, building the ship array half way, then reset and check the ocean
+        // is like a new one
+        ocean.placeAllShipsRandomly();
+        for (int r = 0; r < 10; r++){
+            if (r == 5){
+                ocean.getShipArray();
+            }
+            for (int c = 0; c < 10; c++){
+                ocean.shootAt(r, c);
+            }
+        }
+        assertTrue(ocean.isGameOver());
+
+        ocean.reset();
+        assertEquals(0, ocean.getShotsFired());
+        assertEquals(0, ocean.getHitCount());
+        assertEquals(0, ocean.getShipsSunk());
+        assertFalse(ocean.isGameOver());
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                assertFalse(ocean.isOccupied(r, c));
+                assertFalse(ocean.isShotAt(r, c));
+                assertEquals("empty", ocean.getShipArray()[r][c].getShipType());
+                assertFalse(ocean.getShipArray()[r][c].isSunk());
+                assertFalse(ocean.getShipArray()[r][c].getHit()[0]);
+            }
+        }
+
+        // the reset ocean can be played again
+        ocean.placeAllShipsRandomly();
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                ocean.shootAt(r, c);
+            }
+        }
+        assertTrue(ocean.isGameOver());
+        assertEquals(100, ocean.getShotsFired());
+        assertEquals(20, ocean.getHitCount());
+    }
+
+    @Test
+    void testResetReusesFleet() {
+        ocean.placeAllShipsRandomly();
+        Ship battleship = findShip(ocean, "battleship");
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                ocean.shootAt(r, c);
+            }
+        }
+        assertTrue(battleship.isSunk());
+
+        // the same ship objects come back, with no hits left from the last game
+        ocean.reset();
+        ocean.placeAllShipsRandomly();
+        assertSame(battleship, findShip(ocean, "battleship"));
+        assertFalse(battleship.isSunk());
+        assertEquals(0, ocean.getShipsSunk());
+    }
+
+    @Test
+    void testResetAndPlaceDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // the first games create the fleet, scratch space and random number generator
+        for (int game = 0; game < 1000; game++){
+            ocean.reset();
+            ocean.placeAllShipsRandomly();
+        }
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long overhead = threads.getThreadAllocatedBytes(threadId) - start;
+
+        start = threads.getThreadAllocatedBytes(threadId);
+        for (int game = 0; game < 1000; game++){
+            ocean.reset();
+            ocean.placeAllShipsRandomly();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - start - overhead;
+
+        assertEquals(0, allocated, "reset and placeAllShipsRandomly should not allocate");
+    }
+
+    @Test
+    void testOceanPool() {
+        Ocean first = OceanPool.acquire();
+        first.placeAllShipsRandomly();
+        first.shootAt(0, 0);
+        OceanPool.release(first);
+
+        // an ocean is released once, or two games would share it
+        assertThrows(IllegalArgumentException.class, () -> OceanPool.release(first));
+        assertEquals(1, OceanPool.idle());
+
+        // the released ocean is handed out again, empty
+        Ocean second = OceanPool.acquire();
+        assertSame(first, second);
+        assertEquals(0, second.getShotsFired());
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                assertFalse(second.isOccupied(r, c));
+            }
+        }
+    }
+
+    @Test
+    void testCustomConfig() {
+        BoardConfig config = new BoardConfig(6, 8, new int[]{1, 3, 2, 2});
+        assertEquals(3, config.getShipLength(0));
+        assertEquals(1, config.getShipLength(3));
+
+        Ocean small = new Ocean(config);
+        assertEquals(6, small.getShipArray().length);
+        assertEquals(8, small.getShipArray()[0].length);
+
+        // ships may not stick out of the smaller ocean
+        Ship cruiser = new Cruiser();
+        assertFalse(cruiser.okToPlaceShipAt(6, 2, false, small));
+        assertFalse(cruiser.okToPlaceShipAt(2, 8, true, small));
+        assertTrue(cruiser.okToPlaceShipAt(5, 7, true, small));
+
+        // the game is over once the four ships of this fleet are sunk
+        small.placeAllShipsRandomly();
+        for (int r = 0; r < 6; r++){
+            for (int c = 0; c < 8; c++){
+                small.shootAt(r, c);
+            }
+        }
+        assertTrue(small.isGameOver());
+        assertEquals(4, small.getShipsSunk());
+        assertEquals(8, small.getHitCount());
+    }
+
+    @Test
+    void testLargeOcean() {
+        Ocean large = new Ocean(BoardConfig.withStandardFleets(1000, 1000, 100));
+        large.placeAllShipsRandomly();
+
+        // 100 fleets of 10 ships cover 2000 cells
+        int occupied = 0;
+        for (int r = 0; r < 1000; r++){
+            for (int c = 0; c < 1000; c++){
+                if (large.isOccupied(r, c)){
+                    occupied++;
+                }
+            }
+        }
+        assertEquals(2000, occupied);
+
+        // firing at every cell sinks every ship
+        for (int r = 0; r < 1000; r++){
+            for (int c = 0; c < 1000; c++){
+                large.shootAt(r, c);
+            }
+        }
+        assertTrue(large.isGameOver());
+        assertEquals(1000, large.getShipsSunk());
+        assertEquals(2000, large.getHitCount());
+
+        // and the reset ocean can be played again
+        large.reset();
+        assertFalse(large.isGameOver());
+        large.placeAllShipsRandomly();
+        assertEquals(0, large.getShipsSunk());
+    }
+
+    @Test
+    void testFleetThatCannotFitIsGivenUp() {
+
+        // five submarines each fit a 3 x 3 ocean, but no more than four fit without touching
+        Ocean crowded = new Ocean(new BoardConfig(3, 3, new int[]{1, 1, 1, 1, 1}));
+        assertThrows(IllegalStateException.class, crowded::placeAllShipsRandomly);
+
+        // four do fit, in the corners
+        Ocean corners = new Ocean(new BoardConfig(3, 3, new int[]{1, 1, 1, 1}));
+        corners.placeAllShipsRandomly();
+        assertTrue(corners.isOccupied(0, 0) && corners.isOccupied(0, 2) && corners.isOccupied(2, 0) && corners.isOccupied(2, 2));
+    }
+
+    @Test
+    void testBoardConfigRejectsUnknownShips() {
+        assertThrows(IllegalArgumentException.class, () -> new BoardConfig(10, 10, new int[]{5}));
+        assertThrows(IllegalArgumentException.class, () -> new BoardConfig(3, 3, new int[]{4}));
+        assertThrows(IllegalArgumentException.class, () -> new BoardConfig(0, 10, new int[]{1}));
+    }
+
+    @Test
+    void testStateHash() {
+        Ocean first = new Ocean();
+        first.placeAllShipsRandomly();
+        SeaChart chart = new SeaChart();
+        assertEquals(0, first.getStateHash());
+
+        // the ocean and the chart of the same shots agree, and every new shot changes the hash
+        long previous = 0;
+        for (int cell = 0; cell < 100; cell++){
+            chart.fireAt(first, cell);
+            assertEquals(first.getStateHash(), chart.getStateHash());
+            assertNotEquals(previous, first.getStateHash());
+            previous = first.getStateHash();
+        }
+
+        // a shot fired again shows nothing new
+        first.shootAt(0, 0);
+        assertEquals(previous, first.getStateHash());
+
+        // the same ships fired at in the opposite order end in the same state
+        Ocean second = new Ocean();
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                Ship ship = first.getShipAt(r, c);
+                if (first.isOccupied(r, c) && ship.getBowRow() == r && ship.getBowColumn() == c){
+                    BoardConfig.createShip(ship.getLength()).placeShipAt(r, c, ship.isHorizontal(), second);
+                }
+            }
+        }
+        for (int cell = 99; cell >= 0; cell--){
+            second.shootAt(cell / 10, cell % 10);
+        }
+        assertEquals(first.getStateHash(), second.getStateHash());
+
+        second.reset();
+        assertEquals(0, second.getStateHash());
+    }
+
+    @Test
+    void testTiledOcean() {
+        BoardConfig config = BoardConfig.withStandardFleets(200, 200, 20);
+        try (TiledCellStore cells = new TiledCellStore(200, 200, 4)){
+            Ocean ocean = new Ocean(config, cells);
+            ocean.placeAllShipsRandomly();
+            assertThrows(IllegalStateException.class, ocean::getShipArray);
+
+            // sweeping every cell sinks the whole fleet, moving tiles in and out of memory
+            for (int r = 0; r < 200; r++){
+                for (int c = 0; c < 200; c++){
+                    assertEquals(ocean.isOccupied(r, c), ocean.shootAt(r, c));
+                }
+            }
+            assertTrue(ocean.isGameOver());
+            assertEquals(200, ocean.getShipsSunk());
+            assertTrue(cells.residentTiles() <= 4);
+            assertTrue(cells.getSpills() > 0);
+
+            // a second game on the same store
+            ocean.reset();
+            assertFalse(ocean.isGameOver());
+            ocean.placeAllShipsRandomly();
+            int occupied = 0;
+            for (int r = 0; r < 200; r++){
+                for (int c = 0; c < 200; c++){
+                    occupied += ocean.isOccupied(r, c) ? 1 : 0;
+                }
+            }
+            assertEquals(20 * 20, occupied);
+        }
+    }
+
+    @Test
+    void testSparseOceanMatchesDense() {
+        BoardConfig config = new BoardConfig(10, 10, new int[]{4, 2, 1});
+        Ocean dense = new Ocean(config);
+        Ocean sparse = new Ocean(config, true);
+        for (Ocean o : new Ocean[]{dense, sparse}){
+            new Battleship().placeShipAt(0, 3, true, o);
+            new Destroyer().placeShipAt(5, 5, false, o);
+            new Submarine().placeShipAt(9, 9, true, o);
+        }
+
+        // every cell is occupied the same way, and every shot (twice over) gets the same answer
+        for (int pass = 0; pass < 2; pass++){
+            for (int r = 0; r < 10; r++){
+                for (int c = 0; c < 10; c++){
+                    assertEquals(dense.isOccupied(r, c), sparse.isOccupied(r, c));
+                    assertEquals(dense.shootAt(r, c), sparse.shootAt(r, c));
+                    assertEquals(dense.getShipAt(r, c).getShipType(), sparse.getShipAt(r, c).getShipType());
+                    assertEquals(dense.getShipAt(r, c).toString(), sparse.getShipAt(r, c).toString());
+                }
+            }
+        }
+        assertEquals(dense.getHitCount(), sparse.getHitCount());
+        assertEquals(3, sparse.getShipsSunk());
+        assertTrue(sparse.isGameOver());
+
+        // a sparse ocean makes no object per cell
+        assertThrows(IllegalStateException.class, sparse::getShipArray);
+
+        // after a reset it is empty again and can hold a random fleet
+        sparse.reset();
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                assertFalse(sparse.isOccupied(r, c));
+            }
+        }
+        sparse.placeAllShipsRandomly();
+        int occupied = 0;
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                occupied += sparse.isOccupied(r, c) ? 1 : 0;
+            }
+        }
+        assertEquals(7, occupied);
+    }
+
+    @Test
+    void testSameSeedPlacesSameFleet() throws InterruptedException {
+
+        // two oceans seeded alike place the same fleets, game after game, on a standard ocean
+        // and on one too large for a PlacementTable
+        for (BoardConfig config : new BoardConfig[]{BoardConfig.STANDARD, BoardConfig.withStandardFleets(20, 20, 2)}){
+            Ocean first = new Ocean(config);
+            Ocean second = new Ocean(config);
+            first.setRandom(new SplittableRandom(591));
+            second.setRandom(new SplittableRandom(591));
+            for (int game = 0; game < 5; game++){
+                first.reset();
+                second.reset();
+                first.placeAllShipsRandomly();
+                second.placeAllShipsRandomly();
+                for (int r = 0; r < config.getRows(); r++){
+                    for (int c = 0; c < config.getColumns(); c++){
+                        assertEquals(first.isOccupied(r, c), second.isOccupied(r, c));
+                    }
+                }
+            }
+        }
+
+        // and a generator given to one placement gives the same layout on another thread
+        Ocean here = new Ocean();
+        here.placeAllShipsRandomly(new SplittableRandom(7));
+        Ocean there = new Ocean();
+        Thread thread = new Thread(() -> there.placeAllShipsRandomly(new SplittableRandom(7)));
+        thread.start();
+        thread.join();
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                assertEquals(here.isOccupied(r, c), there.isOccupied(r, c));
+            }
+        }
+    }
+
+    /**
+     * Finds the first ship of the given type in the ocean
+     */
+    private static Ship findShip(Ocean ocean, String type){
+        for (Ship[] row : ocean.getShipArray()){
+            for (Ship ship : row){
+                if (ship.getShipType().equals(type)){
+                    return ship;
+                }
+            }
+        }
+        return null;
+    }
+
 }
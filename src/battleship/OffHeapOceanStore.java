@@ -0,0 +1,513 @@
+package battleship;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Keeps many games outside the Java heap, each one a fixed-size record in direct memory, so
+ * that millions of idle games add almost nothing for the garbage collector to trace. An Ocean
+ * is a graph of more than a hundred objects once its ship array is built; a game here is
+ * a run of bytes:
+ *
+ *   0  cells holding a ship, two-long mask (cells 0-63, then 64-127)
+ *  16  cells fired upon, two-long mask
+ *  32  shots fired (int)
+ *  36  hits recorded (int)
+ *  40  ships sunk (int)
+ *  44  per ship of the fleet, in the configuration's order: its footprint in the
+ *      PlacementTable (short), then the number of its parts not hit yet (byte), and a pad byte;
+ *      after the last ship, 1 if the game has been released, 0 otherwise (byte)
+ *
+ * padded to a multiple of 8 bytes (88 bytes for the standard game). The game operations read
+ * and write the record directly; toOcean() builds an Ocean from a record when one is needed,
+ * and save() stores an Ocean back.
+ *
+ * Records are allocated in chunks of GAMES_PER_CHUNK as games are added, and the records of
+ * released games are reused. Only boards of up to 128 cells are supported, since a record
+ * keeps its cells in two-long masks. Direct memory is limited by -XX:MaxDirectMemorySize,
+ * which defaults to the maximum heap size. A store is not thread safe.
+ */
+public final class OffHeapOceanStore {
+
+    /**
+     * Number of records allocated at a time
+     */
+    static final int GAMES_PER_CHUNK = 1 << 16;
+
+    /**
+     * Offset of the mask of cells holding a ship
+     */
+    private static final int OCCUPIED = 0;
+
+    /**
+     * Offset of the mask of cells fired upon
+     */
+    private static final int SHOTS = 16;
+
+    /**
+     * Offset of the number of shots fired
+     */
+    private static final int SHOTS_FIRED = 32;
+
+    /**
+     * Offset of the number of hits recorded
+     */
+    private static final int HIT_COUNT = 36;
+
+    /**
+     * Offset of the number of ships sunk
+     */
+    private static final int SHIPS_SUNK = 40;
+
+    /**
+     * Offset of the first ship's footprint
+     */
+    private static final int SHIPS = 44;
+
+    /**
+     * Bytes kept per ship
+     */
+    private static final int SHIP_BYTES = 4;
+
+    /**
+     * Size of the oceans and their fleet
+     */
+    private final BoardConfig config;
+
+    /**
+     * Length of every ship in the fleet, longest first
+     */
+    private final int[] lengths;
+
+    /**
+     * Footprints of the board
+     */
+    private final PlacementTable table;
+
+    /**
+     * Scratch space for PlacementTable.drawLayout()
+     */
+    private final int[] placementScratch;
+
+    /**
+     * Footprint chosen for each ship when placing a fleet
+     */
+    private final int[] layout;
+
+    /**
+     * Offset of the byte marking a released game, after the fleet
+     */
+    private final int released;
+
+    /**
+     * Bytes taken by one game
+     */
+    private final int recordBytes;
+
+    /**
+     * Blocks of GAMES_PER_CHUNK records each
+     */
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Number of records handed out so far, released or not
+     */
+    private int created;
+
+    /**
+     * Records of released games, to be handed out again
+     */
+    private int[] free = new int[16];
+
+    /**
+     * Number of entries in free
+     */
+    private int freeCount;
+
+    /**
+     * Creates an empty store for games of the standard 10 x 10 ocean
+     */
+    public OffHeapOceanStore(){
+        this(BoardConfig.STANDARD);
+    }
+
+    /**
+     * Creates an empty store
+     * @param config size of the oceans and their fleet, the ocean having at most 128 cells
+     */
+    public OffHeapOceanStore(BoardConfig config){
+        if (config.getCells() > PlacementTable.MAX_CELLS){
+            throw new IllegalArgumentException("Off-heap records only cover oceans of up to 128 cells");
+        }
+        this.config = config;
+        this.lengths = config.getFleetLengths();
+        this.table = config.isStandard() ? PlacementTable.STANDARD
+                : new PlacementTable(config.getRows(), config.getColumns(), BoardConfig.MAX_SHIP_LENGTH);
+        this.placementScratch = new int[this.table.maxFootprints()];
+        this.layout = new int[this.lengths.length];
+        this.released = SHIPS + SHIP_BYTES * this.lengths.length;
+        this.recordBytes = (this.released + 1 + 7) & ~7;
+    }
+
+    /**
+     * Method to get the configuration of the games
+     * @return the size of the oceans and their fleet
+     */
+    BoardConfig getConfig(){
+        return this.config;
+    }
+
+    /**
+     * Method to get the number of bytes one game takes
+     * @return the size of a record
+     */
+    int getRecordBytes(){
+        return this.recordBytes;
+    }
+
+    /**
+     * Method to get the number of games in the store
+     * @return the number of games added and not released
+     */
+    int size(){
+        return this.created - this.freeCount;
+    }
+
+    /**
+     * Method to get the direct memory taken by the store
+     * @return bytes allocated for records, in use or not
+     */
+    long offHeapBytes(){
+        return (long) this.chunks.size() * GAMES_PER_CHUNK * this.recordBytes;
+    }
+
+    /**
+     * Adds a game with an empty ocean: no ships, no shots
+     * @return the number of the game, used by every other method
+     */
+    int add(){
+        int game;
+        if (this.freeCount > 0){
+            game = this.free[--this.freeCount];
+        }else {
+            if (this.created == Integer.MAX_VALUE){
+                throw new IllegalStateException("The store is full");
+            }
+            game = this.created++;
+            if (game / GAMES_PER_CHUNK == this.chunks.size()){
+                this.chunks.add(ByteBuffer.allocateDirect(GAMES_PER_CHUNK * this.recordBytes)
+                        .order(ByteOrder.nativeOrder()));
+            }
+        }
+        clear(game);
+        chunk(game).put(base(game) + this.released, (byte) 0);
+        return game;
+    }
+
+    /**
+     * Removes a game, so its record can be reused by add(). The game must not be used after
+     * this, and releasing it again is an error, as its record may already belong to another game.
+     * @param game number of the game
+     * @throws IllegalArgumentException if the game was never added or is already released
+     */
+    void release(int game){
+        if (game < 0 || game >= this.created){
+            throw new IllegalArgumentException("No game " + game + " in the store");
+        }
+        ByteBuffer chunk = chunk(game);
+        int base = base(game);
+        if (chunk.get(base + this.released) != 0){
+            throw new IllegalArgumentException("Game " + game + " is already released");
+        }
+        chunk.put(base + this.released, (byte) 1);
+        if (this.freeCount == this.free.length){
+            this.free = Arrays.copyOf(this.free, 2 * this.free.length);
+        }
+        this.free[this.freeCount++] = game;
+    }
+
+    /**
+     * Empties a game's ocean, the same as Ocean.reset()
+     * @param game number of the game
+     */
+    void clear(int game){
+        ByteBuffer chunk = chunk(game);
+        int base = base(game);
+
+        // the game stays released or not
+        byte released = chunk.get(base + this.released);
+        for (int offset = 0; offset < this.recordBytes; offset += 8){
+            chunk.putLong(base + offset, 0);
+        }
+        chunk.put(base + this.released, released);
+    }
+
+    /**
+     * Empties a game's ocean and places the whole fleet at random, the same way as
+     * Ocean.placeAllShipsRandomly()
+     * @param game number of the game
+     * @param random source of randomness
+     */
+    void placeAllShipsRandomly(int game, RandomGenerator random){
+        clear(game);
+        this.table.drawLayout(this.lengths, random, this.placementScratch, this.layout);
+
+        ByteBuffer chunk = chunk(game);
+        int base = base(game);
+        long occupiedLo = 0;
+        long occupiedHi = 0;
+        for (int i = 0; i < this.lengths.length; i++){
+            int length = this.lengths[i];
+            occupiedLo |= this.table.cellsLo(length, this.layout[i]);
+            occupiedHi |= this.table.cellsHi(length, this.layout[i]);
+            chunk.putShort(base + SHIPS + SHIP_BYTES * i, (short) this.layout[i]);
+            chunk.put(base + SHIPS + SHIP_BYTES * i + 2, (byte) length);
+        }
+        chunk.putLong(base + OCCUPIED, occupiedLo);
+        chunk.putLong(base + OCCUPIED + 8, occupiedHi);
+    }
+
+    /**
+     * Fires a shot in a game, the same as Ocean.shootAt()
+     * @param game number of the game
+     * @param row row of the shot
+     * @param column column of the shot
+     * @return true if the shot hit a ship that was still afloat, false otherwise
+     */
+    boolean shootAt(int game, int row, int column){
+        ByteBuffer chunk = chunk(game);
+        int base = base(game);
+        int cell = Bitboard.index(row, column, this.config.getColumns());
+        int word = (cell >>> 6) << 3;
+        long bit = 1L << cell;
+
+        // count the shot and remember the cell was fired upon
+        chunk.putInt(base + SHOTS_FIRED, chunk.getInt(base + SHOTS_FIRED) + 1);
+        long shots = chunk.getLong(base + SHOTS + word);
+        chunk.putLong(base + SHOTS + word, shots | bit);
+
+        // shooting at an empty cell is a miss
+        if ((chunk.getLong(base + OCCUPIED + word) & bit) == 0){
+            return false;
+        }
+
+        // find the ship covering the cell, a miss if it is already sunk
+        int ship = shipAt(chunk, base, cell);
+        int remaining = chunk.get(base + SHIPS + SHIP_BYTES * ship + 2);
+        if (remaining == 0){
+            return false;
+        }
+        chunk.putInt(base + HIT_COUNT, chunk.getInt(base + HIT_COUNT) + 1);
+
+        // each part only counts once, and the ship is sunk when none are left
+        if ((shots & bit) == 0){
+            chunk.put(base + SHIPS + SHIP_BYTES * ship + 2, (byte) (remaining - 1));
+            if (remaining == 1){
+                chunk.putInt(base + SHIPS_SUNK, chunk.getInt(base + SHIPS_SUNK) + 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to check if a location in a game contains a ship
+     * @param game number of the game
+     * @param row row in ocean
+     * @param column column in ocean
+     * @return true if the location contains a ship, false if it does not
+     */
+    boolean isOccupied(int game, int row, int column){
+        return testCell(game, OCCUPIED, Bitboard.index(row, column, this.config.getColumns()));
+    }
+
+    /**
+     * Method to check if a location in a game has been fired upon
+     * @param game number of the game
+     * @param row row in ocean
+     * @param column column in ocean
+     * @return true if at least one shot was fired at the location, false otherwise
+     */
+    boolean isShotAt(int game, int row, int column){
+        return testCell(game, SHOTS, Bitboard.index(row, column, this.config.getColumns()));
+    }
+
+    /**
+     * Method to get the number of shots fired in a game
+     * @param game number of the game
+     * @return the number of shots fired
+     */
+    int getShotsFired(int game){
+        return chunk(game).getInt(base(game) + SHOTS_FIRED);
+    }
+
+    /**
+     * Method to get the number of hits recorded in a game
+     * @param game number of the game
+     * @return the number of hits recorded
+     */
+    int getHitCount(int game){
+        return chunk(game).getInt(base(game) + HIT_COUNT);
+    }
+
+    /**
+     * Method to get the number of ships sunk in a game
+     * @param game number of the game
+     * @return the number of ships sunk
+     */
+    int getShipsSunk(int game){
+        return chunk(game).getInt(base(game) + SHIPS_SUNK);
+    }
+
+    /**
+     * Method to check if a game is over
+     * @param game number of the game
+     * @return true if all ships of the fleet have been sunk, otherwise false
+     */
+    boolean isGameOver(int game){
+        return getShipsSunk(game) == this.lengths.length;
+    }
+
+    /**
+     * Builds an Ocean holding a game: the same ships in the same places, the same locations
+     * fired upon and the same counts
+     * @param game number of the game
+     * @return a new ocean
+     */
+    Ocean toOcean(int game){
+        ByteBuffer chunk = chunk(game);
+        int base = base(game);
+        Ocean ocean = new Ocean(this.config);
+
+        // an empty record has no fleet, otherwise every ship has a footprint
+        boolean placed = chunk.getLong(base + OCCUPIED) != 0 || chunk.getLong(base + OCCUPIED + 8) != 0;
+        for (int i = 0; placed && i < this.lengths.length; i++){
+            int length = this.lengths[i];
+            int footprint = chunk.getShort(base + SHIPS + SHIP_BYTES * i);
+            BoardConfig.createShip(length).placeShipAt(this.table.bowRow(length, footprint),
+                    this.table.bowColumn(length, footprint), this.table.isHorizontal(length, footprint), ocean);
+        }
+
+        // fire once at every location fired upon, then put back the counts of repeated shots
+        for (int cell = 0; cell < this.config.getCells(); cell++){
+            if (testCell(game, SHOTS, cell)){
+                ocean.shootAt(cell / this.config.getColumns(), cell % this.config.getColumns());
+            }
+        }
+        ocean.restoreCounts(getShotsFired(game), getHitCount(game));
+        return ocean;
+    }
+
+    /**
+     * Stores an Ocean in a game, replacing what the game held. The ocean must have this
+     * store's size and either no ships or exactly this store's fleet.
+     * @param game number of the game
+     * @param ocean ocean to store
+     */
+    void save(int game, Ocean ocean){
+        BoardConfig oceanConfig = ocean.getConfig();
+        if (oceanConfig.getRows() != this.config.getRows() || oceanConfig.getColumns() != this.config.getColumns()){
+            throw new IllegalArgumentException("The ocean is " + oceanConfig.getRows() + " x "
+                    + oceanConfig.getColumns() + ", the store holds " + this.config);
+        }
+        clear(game);
+        ByteBuffer chunk = chunk(game);
+        int base = base(game);
+
+        // ships of each length go to that length's entries in the fleet, which is longest first
+        int[] nextShip = new int[BoardConfig.MAX_SHIP_LENGTH + 1];
+        Arrays.fill(nextShip, -1);
+        for (int i = this.lengths.length - 1; i >= 0; i--){
+            nextShip[this.lengths[i]] = i;
+        }
+
+        int columns = this.config.getColumns();
+        int ships = 0;
+        for (int cell = 0; cell < this.config.getCells(); cell++){
+            int row = cell / columns;
+            int column = cell % columns;
+            if (ocean.isShotAt(row, column)){
+                setCell(chunk, base, SHOTS, cell);
+            }
+            if (!ocean.isOccupied(row, column)){
+                continue;
+            }
+            setCell(chunk, base, OCCUPIED, cell);
+
+            // each ship is recorded once, at its bow
+            Ship ship = ocean.getShipAt(row, column);
+            if (row != ship.getBowRow() || column != ship.getBowColumn()){
+                continue;
+            }
+            int length = ship.getLength();
+            int i = nextShip[length];
+            if (i < 0 || i >= this.lengths.length || this.lengths[i] != length){
+                throw new IllegalArgumentException("The ocean's fleet does not match " + this.config);
+            }
+            nextShip[length]++;
+            ships++;
+
+            int remaining = 0;
+            for (boolean hit : ship.getHit()){
+                remaining += hit ? 0 : 1;
+            }
+            chunk.putShort(base + SHIPS + SHIP_BYTES * i,
+                    (short) this.table.footprintAt(length, row, column, ship.isHorizontal()));
+            chunk.put(base + SHIPS + SHIP_BYTES * i + 2, (byte) remaining);
+        }
+        if (ships != 0 && ships != this.lengths.length){
+            throw new IllegalArgumentException("The ocean's fleet does not match " + this.config);
+        }
+
+        chunk.putInt(base + SHOTS_FIRED, ocean.getShotsFired());
+        chunk.putInt(base + HIT_COUNT, ocean.getHitCount());
+        chunk.putInt(base + SHIPS_SUNK, ocean.getShipsSunk());
+    }
+
+    /**
+     * Finds the ship of the fleet covering a cell that holds a ship
+     * @return the ship's position in the fleet
+     */
+    private int shipAt(ByteBuffer chunk, int base, int cell){
+        for (int i = 0; ; i++){
+            int length = this.lengths[i];
+            int footprint = chunk.getShort(base + SHIPS + SHIP_BYTES * i);
+            long cells = cell < 64 ? this.table.cellsLo(length, footprint) : this.table.cellsHi(length, footprint);
+            if ((cells & (1L << cell)) != 0){
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Method to check a cell's bit in one of a game's masks
+     */
+    private boolean testCell(int game, int mask, int cell){
+        return (chunk(game).getLong(base(game) + mask + ((cell >>> 6) << 3)) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Sets a cell's bit in one of a record's masks
+     */
+    private void setCell(ByteBuffer chunk, int base, int mask, int cell){
+        int offset = base + mask + ((cell >>> 6) << 3);
+        chunk.putLong(offset, chunk.getLong(offset) | (1L << cell));
+    }
+
+    /**
+     * Method to get the chunk holding a game's record
+     */
+    private ByteBuffer chunk(int game){
+        return this.chunks.get(game / GAMES_PER_CHUNK);
+    }
+
+    /**
+     * Method to get the offset of a game's record in its chunk
+     */
+    private int base(int game){
+        return (game % GAMES_PER_CHUNK) * this.recordBytes;
+    }
+}
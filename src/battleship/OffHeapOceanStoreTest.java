@@ -0,0 +1,91 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapOceanStoreTest {
+
+    /**
+     * Checks that a game in the store and an ocean hold the same game
+     */
+    private void assertSameGame(OffHeapOceanStore store, int game, Ocean ocean) {
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                assertEquals(ocean.isOccupied(r, c), store.isOccupied(game, r, c));
+                assertEquals(ocean.isShotAt(r, c), store.isShotAt(game, r, c));
+            }
+        }
+        assertEquals(ocean.getShotsFired(), store.getShotsFired(game));
+        assertEquals(ocean.getHitCount(), store.getHitCount(game));
+        assertEquals(ocean.getShipsSunk(), store.getShipsSunk(game));
+        assertEquals(ocean.isGameOver(), store.isGameOver(game));
+    }
+
+    @Test
+    void testPlaysLikeOcean() {
+        OffHeapOceanStore store = new OffHeapOceanStore();
+        SplittableRandom random = new SplittableRandom(591);
+        assertEquals(88, store.getRecordBytes());
+
+        for (int i = 0; i < 200; i++){
+            int game = store.add();
+            store.placeAllShipsRandomly(game, random);
+            Ocean ocean = store.toOcean(game);
+            assertSameGame(store, game, ocean);
+
+            // random shots, many of them repeats, until the game is over
+            while (!ocean.isGameOver()){
+                int r = random.nextInt(10);
+                int c = random.nextInt(10);
+                assertEquals(ocean.shootAt(r, c), store.shootAt(game, r, c));
+            }
+            assertSameGame(store, game, ocean);
+            assertTrue(store.isGameOver(game));
+        }
+        assertEquals(200, store.size());
+    }
+
+    @Test
+    void testSaveAndRestore() {
+        OffHeapOceanStore store = new OffHeapOceanStore();
+        Ocean ocean = new Ocean();
+        ocean.placeAllShipsRandomly();
+        for (int cell = 0; cell < 100; cell += 3){
+            ocean.shootAt(cell / 10, cell % 10);
+            ocean.shootAt(cell / 10, cell % 10);
+        }
+
+        int game = store.add();
+        store.save(game, ocean);
+        assertSameGame(store, game, ocean);
+
+        // the rebuilt ocean has the same ships, hits and counts
+        Ocean restored = store.toOcean(game);
+        assertSameGame(store, game, restored);
+        for (int r = 0; r < 10; r++){
+            for (int c = 0; c < 10; c++){
+                assertEquals(ocean.getShipAt(r, c).getShipType(), restored.getShipAt(r, c).getShipType());
+                assertEquals(ocean.getShipAt(r, c).toString(), restored.getShipAt(r, c).toString());
+            }
+        }
+
+        // a game is released once, and its record comes back empty
+        store.release(game);
+        assertThrows(IllegalArgumentException.class, () -> store.release(game));
+        assertThrows(IllegalArgumentException.class, () -> store.release(game + 1));
+        assertEquals(0, store.size());
+        assertEquals(game, store.add());
+        assertEquals(0, store.getShotsFired(game));
+        assertFalse(store.isOccupied(game, ocean.getShipAt(0, 0).getBowRow(), 0));
+
+        // oceans of another size or fleet are rejected
+        assertThrows(IllegalArgumentException.class, () -> store.save(game, new Ocean(new BoardConfig(8, 8, new int[]{1}))));
+        Ocean smallFleet = new Ocean(new BoardConfig(10, 10, new int[]{1}));
+        smallFleet.placeAllShipsRandomly();
+        assertThrows(IllegalArgumentException.class, () -> store.save(game, smallFleet));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapOceanStore(new BoardConfig(12, 12, new int[]{1})));
+    }
+}
@@ -0,0 +1,392 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Precomputed list of every position a ship of a given length can take on an empty board.
+ * Each position (a "footprint") is stored as two-long masks of the cells the ship covers and
+ * of its halo: those cells plus every cell touching them (vertically, horizontally or
+ * diagonally). Two ships may share a board exactly when neither one's cells meet the other's
+ * halo, which is the rule from Ship.okToPlaceShipAt, so checking a placement is one AND per word.
+ *
+ * Only boards of up to 128 cells fit in two longs, which covers the standard 10 x 10 ocean.
+ */
+final class PlacementTable {
+
+    /**
+     * Table for the standard 10 x 10 ocean and ships up to length 4
+     */
+    static final PlacementTable STANDARD = new PlacementTable(10, 10, 4);
+
+    /**
+     * Largest board the two-long masks can describe
+     */
+    static final int MAX_CELLS = 128;
+
+    /**
+     * How many times drawLayout() starts a layout again before deciding the fleet cannot fit
+     */
+    static final int MAX_RESTARTS = 100_000;
+
+    /**
+     * Number of rows on the board
+     */
+    private final int rows;
+
+    /**
+     * Number of columns on the board
+     */
+    private final int columns;
+
+    /**
+     * Per ship length, the bow cell index of every footprint
+     */
+    private final int[][] bows;
+
+    /**
+     * Per ship length, the orientation of every footprint
+     */
+    private final boolean[][] horizontal;
+
+    /**
+     * Per ship length, the footprint number of each bow cell and orientation, at index
+     * 2 * bow for horizontal and 2 * bow + 1 for vertical, or -1 if the ship doesn't fit there
+     */
+    private final int[][] byBow;
+
+    /**
+     * Per ship length and cell, the footprints that cover that cell
+     */
+    private final int[][][] through;
+
+    /**
+     * Per ship length, cells 0-63 covered by every footprint
+     */
+    private final long[][] cellsLo;
+
+    /**
+     * Per ship length, cells 64-127 covered by every footprint
+     */
+    private final long[][] cellsHi;
+
+    /**
+     * Per ship length, cells 0-63 covered by every footprint or touching it
+     */
+    private final long[][] haloLo;
+
+    /**
+     * Per ship length, cells 64-127 covered by every footprint or touching it
+     */
+    private final long[][] haloHi;
+
+    /**
+     * Builds the table for a board of the given size
+     * @param rows number of rows on the board
+     * @param columns number of columns on the board
+     * @param maxLength length of the longest ship that will be looked up
+     */
+    PlacementTable(int rows, int columns, int maxLength){
+
+        if (rows * columns > MAX_CELLS){
+            throw new IllegalArgumentException("placement masks only cover boards of up to 128 cells");
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.bows = new int[maxLength + 1][];
+        this.horizontal = new boolean[maxLength + 1][];
+        this.byBow = new int[maxLength + 1][];
+        this.through = new int[maxLength + 1][][];
+        this.cellsLo = new long[maxLength + 1][];
+        this.cellsHi = new long[maxLength + 1][];
+        this.haloLo = new long[maxLength + 1][];
+        this.haloHi = new long[maxLength + 1][];
+
+        for (int length = 1; length <= maxLength; length++){
+
+            // a submarine looks the same either way round, so only list it once
+            int orientations = length == 1 ? 1 : 2;
+            int capacity = rows * columns * orientations;
+            int[] lengthBows = new int[capacity];
+            boolean[] lengthHorizontal = new boolean[capacity];
+            long[] lengthCells = new long[2 * capacity];
+            long[] lengthHalo = new long[2 * capacity];
+            int count = 0;
+
+            for (int o = 0; o < orientations; o++){
+                boolean isHorizontal = o == 0;
+                for (int row = 0; row < rows; row++){
+                    for (int column = 0; column < columns; column++){
+
+                        // horizontal ships extend West of the bow, vertical ships North of it
+                        int sternRow = isHorizontal ? row : row - length + 1;
+                        int sternColumn = isHorizontal ? column - length + 1 : column;
+                        if (sternRow < 0 || sternColumn < 0){
+                            continue;
+                        }
+
+                        // cells of the ship, then the surrounding rectangle clipped to the board
+                        setRectangle(lengthCells, 2 * count, sternRow, sternColumn, row, column);
+                        setRectangle(lengthHalo, 2 * count,
+                                Math.max(sternRow - 1, 0), Math.max(sternColumn - 1, 0),
+                                Math.min(row + 1, rows - 1), Math.min(column + 1, columns - 1));
+
+                        lengthBows[count] = Bitboard.index(row, column, columns);
+                        lengthHorizontal[count] = isHorizontal;
+                        count++;
+                    }
+                }
+            }
+
+            // copy everything into arrays of the exact size, and index the footprints by bow
+            this.bows[length] = Arrays.copyOf(lengthBows, count);
+            this.horizontal[length] = Arrays.copyOf(lengthHorizontal, count);
+            this.cellsLo[length] = new long[count];
+            this.cellsHi[length] = new long[count];
+            this.haloLo[length] = new long[count];
+            this.haloHi[length] = new long[count];
+            this.byBow[length] = new int[2 * rows * columns];
+            Arrays.fill(this.byBow[length], -1);
+            for (int i = 0; i < count; i++){
+                int bow = lengthBows[i];
+                this.byBow[length][lengthHorizontal[i] ? 2 * bow : 2 * bow + 1] = i;
+
+                // a submarine is the same both ways, so either orientation finds it
+                if (length == 1){
+                    this.byBow[length][2 * bow + 1] = i;
+                }
+                this.cellsLo[length][i] = lengthCells[2 * i];
+                this.cellsHi[length][i] = lengthCells[2 * i + 1];
+                this.haloLo[length][i] = lengthHalo[2 * i];
+                this.haloHi[length][i] = lengthHalo[2 * i + 1];
+            }
+
+            // list, for every cell, the footprints covering it
+            this.through[length] = new int[rows * columns][];
+            for (int cell = 0; cell < rows * columns; cell++){
+                long bit = 1L << cell;
+                int covering = 0;
+                int[] list = new int[2 * length];
+                for (int i = 0; i < count; i++){
+                    long cells = cell < 64 ? this.cellsLo[length][i] : this.cellsHi[length][i];
+                    if ((cells & bit) != 0){
+                        list[covering++] = i;
+                    }
+                }
+                this.through[length][cell] = Arrays.copyOf(list, covering);
+            }
+        }
+    }
+
+    /**
+     * Sets the bits of every cell in a rectangle in an interleaved (low, high) mask pair
+     */
+    private void setRectangle(long[] masks, int offset, int top, int left, int bottom, int right){
+        for (int row = top; row <= bottom; row++){
+            for (int column = left; column <= right; column++){
+                int index = Bitboard.index(row, column, this.columns);
+                masks[offset + (index >>> 6)] |= 1L << index;
+            }
+        }
+    }
+
+    /**
+     * Method to get the number of rows on the board
+     * @return the number of rows
+     */
+    int getRows(){
+        return this.rows;
+    }
+
+    /**
+     * Method to get the number of columns on the board
+     * @return the number of columns
+     */
+    int getColumns(){
+        return this.columns;
+    }
+
+    /**
+     * Method to get the number of footprints of a ship length on an empty board
+     * @param length ship length
+     * @return the number of footprints
+     */
+    int footprints(int length){
+        return this.bows[length].length;
+    }
+
+    /**
+     * Method to get the largest number of footprints of any ship length, which is the size
+     * a scratch array passed to fitting() or drawLayout() needs to be
+     * @return the largest footprints(length)
+     */
+    int maxFootprints(){
+        int max = 0;
+        for (int length = 1; length < this.bows.length; length++){
+            max = Math.max(max, this.bows[length].length);
+        }
+        return max;
+    }
+
+    /**
+     * Method to find the footprint of a ship from its bow and orientation
+     * @param length ship length
+     * @param bowRow row of the bow
+     * @param bowColumn column of the bow
+     * @param horizontal true if the ship is horizontal, false if vertical
+     * @return the footprint number, or -1 if the ship would stick out of the board
+     */
+    int footprintAt(int length, int bowRow, int bowColumn, boolean horizontal){
+        int bow = Bitboard.index(bowRow, bowColumn, this.columns);
+        return this.byBow[length][horizontal ? 2 * bow : 2 * bow + 1];
+    }
+
+    /**
+     * Method to get the footprints of a ship length that cover a cell. The returned array is
+     * shared and must not be changed.
+     * @param length ship length
+     * @param cell cell index
+     * @return the footprint numbers
+     */
+    int[] footprintsThrough(int length, int cell){
+        return this.through[length][cell];
+    }
+
+    /**
+     * Method to get the row of the bow of a footprint
+     * @param length ship length
+     * @param footprint footprint number
+     * @return the bow row
+     */
+    int bowRow(int length, int footprint){
+        return this.bows[length][footprint] / this.columns;
+    }
+
+    /**
+     * Method to get the column of the bow of a footprint
+     * @param length ship length
+     * @param footprint footprint number
+     * @return the bow column
+     */
+    int bowColumn(int length, int footprint){
+        return this.bows[length][footprint] % this.columns;
+    }
+
+    /**
+     * Method to check the orientation of a footprint
+     * @param length ship length
+     * @param footprint footprint number
+     * @return true if the footprint is horizontal, false if vertical
+     */
+    boolean isHorizontal(int length, int footprint){
+        return this.horizontal[length][footprint];
+    }
+
+    /**
+     * Method to get the cells 0-63 covered by a footprint
+     * @param length ship length
+     * @param footprint footprint number
+     * @return the low word of the footprint mask
+     */
+    long cellsLo(int length, int footprint){
+        return this.cellsLo[length][footprint];
+    }
+
+    /**
+     * Method to get the cells 64-127 covered by a footprint
+     * @param length ship length
+     * @param footprint footprint number
+     * @return the high word of the footprint mask
+     */
+    long cellsHi(int length, int footprint){
+        return this.cellsHi[length][footprint];
+    }
+
+    /**
+     * Method to get the cells 0-63 covered by a footprint or touching it
+     * @param length ship length
+     * @param footprint footprint number
+     * @return the low word of the halo mask
+     */
+    long haloLo(int length, int footprint){
+        return this.haloLo[length][footprint];
+    }
+
+    /**
+     * Method to get the cells 64-127 covered by a footprint or touching it
+     * @param length ship length
+     * @param footprint footprint number
+     * @return the high word of the halo mask
+     */
+    long haloHi(int length, int footprint){
+        return this.haloHi[length][footprint];
+    }
+
+    /**
+     * Collects every footprint of a ship length that does not cover a blocked cell.
+     *
+     * @param length ship length
+     * @param blockedLo blocked cells 0-63 (placed ships and their halos)
+     * @param blockedHi blocked cells 64-127
+     * @param out array to receive the footprint numbers, at least footprints(length) long
+     * @return the number of footprints written to out
+     */
+    int fitting(int length, long blockedLo, long blockedHi, int[] out){
+        long[] lo = this.cellsLo[length];
+        long[] hi = this.cellsHi[length];
+        int count = 0;
+        for (int i = 0; i < lo.length; i++){
+            if ((lo[i] & blockedLo) == 0 && (hi[i] & blockedHi) == 0){
+                out[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Draws a random layout of a fleet. Each ship, in the given order, is put on one of the
+     * footprints that still fit next to the ships before it, chosen uniformly. If some ship has
+     * nowhere left to go the whole layout is started again; with the standard fleet on the
+     * standard board, largest ship first, that almost never happens. A fleet that does not
+     * fit at all is given up on after MAX_RESTARTS attempts.
+     *
+     * @param lengths lengths of the ships to place, in placement order
+     * @param random source of randomness
+     * @param scratch work array, at least maxFootprints() long
+     * @param layout receives the chosen footprint number for each ship
+     * @throws IllegalStateException if no layout was found in MAX_RESTARTS attempts
+     */
+    void drawLayout(int[] lengths, RandomGenerator random, int[] scratch, int[] layout){
+        for (int restart = 0; restart < MAX_RESTARTS; restart++){
+            if (tryDrawLayout(lengths, random, scratch, layout)){
+                return;
+            }
+
+            // a ship had no room left, start over with an empty board
+        }
+        throw new IllegalStateException("Could not fit a fleet of " + lengths.length + " ships into a "
+                + this.rows + " x " + this.columns + " board");
+    }
+
+    /**
+     * One attempt of drawLayout()
+     * @return true if every ship was placed, false if some ship had no room left
+     */
+    private boolean tryDrawLayout(int[] lengths, RandomGenerator random, int[] scratch, int[] layout){
+        long blockedLo = 0;
+        long blockedHi = 0;
+        for (int ship = 0; ship < lengths.length; ship++){
+            int length = lengths[ship];
+            int count = fitting(length, blockedLo, blockedHi, scratch);
+            if (count == 0){
+                return false;
+            }
+            int footprint = scratch[random.nextInt(count)];
+            layout[ship] = footprint;
+            blockedLo |= this.haloLo[length][footprint];
+            blockedHi |= this.haloHi[length][footprint];
+        }
+        return true;
+    }
+}
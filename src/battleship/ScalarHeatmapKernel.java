@@ -0,0 +1,50 @@
+package battleship;
+
+/**
+ * HeatmapKernel in plain Java, used when the Vector API is not available
+ */
+final class ScalarHeatmapKernel implements HeatmapKernel {
+
+    @Override
+    public void accumulate(long[] density, long[] cellsLo, long[] cellsHi, long[] weights, int count){
+        for (int i = 0; i < count; i++){
+            long weight = weights[i];
+            for (long cells = cellsLo[i]; cells != 0; cells &= cells - 1){
+                density[Long.numberOfTrailingZeros(cells)] += weight;
+            }
+            for (long cells = cellsHi[i]; cells != 0; cells &= cells - 1){
+                density[64 + Long.numberOfTrailingZeros(cells)] += weight;
+            }
+        }
+    }
+
+    @Override
+    public void add(long[] total, long[] tally){
+        for (int cell = 0; cell < 128; cell++){
+            total[cell] += tally[cell];
+        }
+    }
+
+    @Override
+    public void maskShots(long[] density, long shotLo, long shotHi){
+        for (long cells = shotLo; cells != 0; cells &= cells - 1){
+            density[Long.numberOfTrailingZeros(cells)] = -1;
+        }
+        for (long cells = shotHi; cells != 0; cells &= cells - 1){
+            density[64 + Long.numberOfTrailingZeros(cells)] = -1;
+        }
+    }
+
+    @Override
+    public int argmax(long[] density, int cells){
+        int best = -1;
+        long bestWeight = -1;
+        for (int cell = 0; cell < cells; cell++){
+            if (density[cell] > bestWeight){
+                best = cell;
+                bestWeight = density[cell];
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,281 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * What a player firing at a standard 10 x 10 ocean knows about it: which cells have been fired
+ * upon, which shots hit a ship that is still afloat, which cells belong to sunk ships, and how
+ * many ships of each length are left. Computer shooters decide their moves from this alone.
+ *
+ * All sets of cells are kept as two-long masks (cells 0-63 and 64-127, cell = row * 10 + column)
+ * so shooters can combine them with the footprint masks in PlacementTable.
+ */
+final class SeaChart {
+
+    /**
+     * Number of rows and columns in the ocean
+     */
+    static final int SIZE = 10;
+
+    /**
+     * Footprints used to look up the cells and halo of a sunk ship
+     */
+    private final PlacementTable table = PlacementTable.STANDARD;
+
+    /**
+     * Cells 0-63 that have been fired upon
+     */
+    private long shotLo;
+
+    /**
+     * Cells 64-127 that have been fired upon
+     */
+    private long shotHi;
+
+    /**
+     * Cells 0-63 where a shot hit a ship that has not been sunk yet
+     */
+    private long hitLo;
+
+    /**
+     * Cells 64-127 where a shot hit a ship that has not been sunk yet
+     */
+    private long hitHi;
+
+    /**
+     * Cells 0-63 that belong to sunk ships
+     */
+    private long sunkLo;
+
+    /**
+     * Cells 64-127 that belong to sunk ships
+     */
+    private long sunkHi;
+
+    /**
+     * Cells 0-63 that no ship still afloat can cover: misses, plus sunk ships and the cells around them
+     */
+    private long blockedLo;
+
+    /**
+     * Cells 64-127 that no ship still afloat can cover
+     */
+    private long blockedHi;
+
+    /**
+     * Number of ships of each length still afloat
+     */
+    private final int[] remaining = new int[5];
+
+    /**
+     * Number of ships still afloat
+     */
+    private int shipsLeft;
+
+    /**
+     * Zobrist hash of the chart, the same as Ocean.getStateHash() of the ocean fired at
+     */
+    private long stateHash;
+
+    /**
+     * Creates a chart of an ocean that hasn't been fired upon, holding the standard fleet
+     */
+    SeaChart(){
+        reset();
+    }
+
+    /**
+     * Clears the chart for a new game against the standard fleet
+     */
+    void reset(){
+        this.shotLo = 0;
+        this.shotHi = 0;
+        this.hitLo = 0;
+        this.hitHi = 0;
+        this.sunkLo = 0;
+        this.sunkHi = 0;
+        this.blockedLo = 0;
+        this.blockedHi = 0;
+        Arrays.fill(this.remaining, 0);
+        for (int length : Ocean.FLEET_LENGTHS){
+            this.remaining[length] += 1;
+        }
+        this.shipsLeft = Ocean.FLEET_LENGTHS.length;
+        this.stateHash = 0;
+    }
+
+    /**
+     * Fires at the ocean and records the result. If the shot sinks a ship, its position is
+     * read from the Ocean, the same way BattleshipGame tells the player what was sunk.
+     *
+     * @param ocean ocean to fire at
+     * @param cell index of the cell to fire at
+     * @return true if the shot hit a ship that was afloat, false otherwise
+     */
+    boolean fireAt(Ocean ocean, int cell){
+        int row = cell / SIZE;
+        int column = cell % SIZE;
+        boolean hit = ocean.shootAt(row, column);
+
+        int sunkFootprint = -1;
+        int sunkLength = 0;
+        if (hit){
+            Ship ship = ocean.getShipAt(row, column);
+            if (ship.isSunk()){
+                sunkLength = ship.getLength();
+                sunkFootprint = this.table.footprintAt(sunkLength, ship.getBowRow(), ship.getBowColumn(),
+                        ship.isHorizontal());
+            }
+        }
+
+        record(cell, hit, sunkLength, sunkFootprint);
+        return hit;
+    }
+
+    /**
+     * Records the result of a shot
+     * @param cell index of the cell fired upon
+     * @param hit true if the shot hit a ship that was afloat
+     * @param sunkLength length of the ship the shot sank, or 0 if it sank nothing
+     * @param sunkFootprint footprint (in PlacementTable.STANDARD) of the sunk ship, or -1
+     */
+    void record(int cell, boolean hit, int sunkLength, int sunkFootprint){
+        if (!isShot(cell)){
+            this.stateHash ^= Zobrist.shot(cell, hit);
+        }
+
+        long bitLo = cell < 64 ? 1L << cell : 0;
+        long bitHi = cell < 64 ? 0 : 1L << cell;
+        this.shotLo |= bitLo;
+        this.shotHi |= bitHi;
+
+        if (!hit){
+            // no ship that is still afloat can cover this cell
+            this.blockedLo |= bitLo;
+            this.blockedHi |= bitHi;
+            return;
+        }
+
+        this.hitLo |= bitLo;
+        this.hitHi |= bitHi;
+
+        if (sunkLength > 0){
+            long cellsLo = this.table.cellsLo(sunkLength, sunkFootprint);
+            long cellsHi = this.table.cellsHi(sunkLength, sunkFootprint);
+
+            // the sunk ship's hits are accounted for, and no other ship can touch it
+            this.hitLo &= ~cellsLo;
+            this.hitHi &= ~cellsHi;
+            this.sunkLo |= cellsLo;
+            this.sunkHi |= cellsHi;
+            this.blockedLo |= this.table.haloLo(sunkLength, sunkFootprint);
+            this.blockedHi |= this.table.haloHi(sunkLength, sunkFootprint);
+
+            // the hash keys the sinking by where the ship lay
+            int bow = this.table.bowRow(sunkLength, sunkFootprint) * SIZE
+                    + this.table.bowColumn(sunkLength, sunkFootprint);
+            this.stateHash ^= Zobrist.sunk(sunkLength, bow, this.table.isHorizontal(sunkLength, sunkFootprint));
+            this.remaining[sunkLength] -= 1;
+            this.shipsLeft -= 1;
+        }
+    }
+
+    /**
+     * Method to check if a cell has been fired upon
+     * @param cell cell index
+     * @return true if the cell has been fired upon
+     */
+    boolean isShot(int cell){
+        return cell < 64 ? (this.shotLo & (1L << cell)) != 0 : (this.shotHi & (1L << cell)) != 0;
+    }
+
+    /**
+     * Method to get the number of ships of a given length still afloat
+     * @param length ship length
+     * @return the number of ships of that length that have not been sunk
+     */
+    int remaining(int length){
+        return this.remaining[length];
+    }
+
+    /**
+     * Method to get the Zobrist hash of the chart: the cells fired upon, whether each first
+     * shot hit or missed, and the ships sunk and where they lay
+     * @return the hash, 0 before the first shot
+     */
+    long getStateHash(){
+        return this.stateHash;
+    }
+
+    /**
+     * Method to get the number of ships still afloat
+     * @return the number of ships that have not been sunk
+     */
+    int shipsLeft(){
+        return this.shipsLeft;
+    }
+
+    /**
+     * Method to get the cells 0-63 fired upon
+     * @return the low word of the mask
+     */
+    long shotLo(){
+        return this.shotLo;
+    }
+
+    /**
+     * Method to get the cells 64-127 fired upon
+     * @return the high word of the mask
+     */
+    long shotHi(){
+        return this.shotHi;
+    }
+
+    /**
+     * Method to get the cells 0-63 hit on ships that are still afloat
+     * @return the low word of the mask
+     */
+    long hitLo(){
+        return this.hitLo;
+    }
+
+    /**
+     * Method to get the cells 64-127 hit on ships that are still afloat
+     * @return the high word of the mask
+     */
+    long hitHi(){
+        return this.hitHi;
+    }
+
+    /**
+     * Method to get the cells 0-63 of sunk ships
+     * @return the low word of the mask
+     */
+    long sunkLo(){
+        return this.sunkLo;
+    }
+
+    /**
+     * Method to get the cells 64-127 of sunk ships
+     * @return the high word of the mask
+     */
+    long sunkHi(){
+        return this.sunkHi;
+    }
+
+    /**
+     * Method to get the cells 0-63 no ship still afloat can cover
+     * @return the low word of the mask
+     */
+    long blockedLo(){
+        return this.blockedLo;
+    }
+
+    /**
+     * Method to get the cells 64-127 no ship still afloat can cover
+     * @return the high word of the mask
+     */
+    long blockedHi(){
+        return this.blockedHi;
+    }
+}
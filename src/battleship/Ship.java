@@ -1,6 +1,6 @@
 package battleship;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This abstract class describes the characteristics common to all ships
@@ -32,6 +32,11 @@ public abstract class Ship {
      */
     private boolean[] hit;
 
+    /**
+     * The number of parts of the ship that have not been hit yet. The ship is sunk when this reaches 0.
+     */
+    private int remainingHits;
+
     // default constructor
     /**
      * The constructor sets the length property of the particular ship and initializes the hit array based on that length
@@ -39,6 +44,7 @@ public abstract class Ship {
     public Ship (int length){
         this.length = length;
         this.hit = new boolean[length];
+        this.remainingHits = length;
     }
 
     /**
@@ -113,53 +119,6 @@ public abstract class Ship {
     public abstract String getShipType();
 
 
-    /**
-     * This method checks is attempted placement is out of bounds and returns valid ship coordinates of an attempted ship placement.
-     * If ship goes out of bounds, it will return null.
-     *
-     * @param row row of the starting coordinate
-     * @param column column of the starting coordinate
-     * @param horizontal orientation of the ship, true if horizontal, false if vertical
-     * @return an arraylist of coordinates of the ship if valid, null otherwise
-     */
-    private ArrayList<int[]> calculateShipCoords(int row, int column, boolean horizontal) {
-
-        // ArrayList to hold coordinates of each part of ship
-        ArrayList<int[]> shipCoords = new ArrayList<>();
-
-        // iterate over length of ship and add coordinates to array if valid
-        for (int i = 0; i < this.length; i++){
-
-            // horizontal ships are added East to West
-            if (horizontal){
-
-                // if ship goes out of bounds, return null
-                if (column - i < 0){
-                    return null;
-                }
-
-                // if valid, add next coordinate
-                int[] currentCoords = {row, column - i};
-                shipCoords.add(currentCoords);
-
-            }else{  // vertical ships are place south to north
-
-                // if ship goes out of bounds, return null
-                if (row - i < 0){
-                    return null;
-                }
-
-                // if valid, add next coordinate
-                int[] currentCoords = {row - i, column};
-                shipCoords.add(currentCoords);
-            }
-        }
-
-        // return the ArrayList of coordinates for the ship
-        return shipCoords;
-    }
-
-
     /**
      * Based on the given row, column, and orientation, returns true if it is okay to put a
      * ship of this length with its bow in this location; false otherwise. The ship must not
@@ -175,44 +134,26 @@ public abstract class Ship {
      */
     boolean okToPlaceShipAt(int row, int column, boolean horizontal, Ocean ocean){
 
-        // ArrayList to hold coordinates of each part of ship
-        ArrayList<int[]> shipCoords = calculateShipCoords(row, column, horizontal);
+        // horizontal ships extend West of the bow, vertical ships extend North of it
+        int sternRow = horizontal ? row : row - this.length + 1;
+        int sternColumn = horizontal ? column - this.length + 1 : column;
 
-        // if null was returned or row or column is out of bounds, attempted placement is out of bounds and returns false
-        if (shipCoords == null || row < 0 || row > 9 || column < 0 || column > 9){
+        // if the bow or the stern is out of bounds, the attempted placement is out of bounds
+        if (row >= ocean.getRows() || column >= ocean.getColumns() || sternRow < 0 || sternColumn < 0){
             return false;
         }
 
-        // iterate through ship coordinates and make sure none are illegal placements
-        for (int[] coord : shipCoords) {
-
-            // set row and columns
-            int currentRow = coord[0];
-            int currentColumn = coord[1];
-
-            // create array of coordinates + adjacent coordinates to check (8-connectivity)
-            int[][] adjacentCoords = {
-            		{currentRow, currentColumn},
-                    {currentRow,currentColumn +1},
-                    {currentRow,currentColumn -1},
-                    {currentRow +1,currentColumn},
-                    {currentRow +1,currentColumn +1},
-                    {currentRow +1,currentColumn -1},
-                    {currentRow -1,currentColumn},
-                    {currentRow -1,currentColumn +1},
-                    {currentRow -1,currentColumn -1},};
-
-            // iterate through adjacent coordinates
-            for (int[] coords : adjacentCoords) {
-
-                if ((0 <= coords[0] && coords[0] <= 9) && (0 <= coords[1] && coords[1] <= 9)){
-                    // set row and columns
-                    int adjecentRow = coords[0];
-                    int adjecentColumn = coords[1];
-                    // check if the position is occupied
-                    if (ocean.isOccupied(adjecentRow, adjecentColumn)) {
-                        return false;
-                    }
+        // the ship plus one cell all the way round it (8-connectivity), clipped to the ocean
+        int top = Math.max(sternRow - 1, 0);
+        int left = Math.max(sternColumn - 1, 0);
+        int bottom = Math.min(row + 1, ocean.getRows() - 1);
+        int right = Math.min(column + 1, ocean.getColumns() - 1);
+
+        // no cell in that rectangle may be occupied
+        for (int currentRow = top; currentRow <= bottom; currentRow++){
+            for (int currentColumn = left; currentColumn <= right; currentColumn++){
+                if (ocean.isOccupied(currentRow, currentColumn)){
+                    return false;
                 }
             }
         }
@@ -248,22 +189,8 @@ public abstract class Ship {
         this.setBowColumn(column);
         this.setHorizontal(horizontal);
 
-        // get coordinates of the full ship
-        ArrayList<int[]> shipCoords = calculateShipCoords(row, column, horizontal);
-
-        // get shipArray from ocean
-        Ship[][] shipArray = ocean.getShipArray();
-
-        // iterate through coordinates of our ship
-        for (int[] coord : shipCoords) {
-            // set current row and column
-            int currentRow = coord[0];
-            int currentColumn = coord[1];
-
-            // put a reference to "this" ship in proper coordinates
-            shipArray[currentRow][currentColumn] = this;
-        }
-
+        // let the ocean record the ship in every cell it covers
+        ocean.placeShip(this);
     }
 
     /**
@@ -277,28 +204,40 @@ public abstract class Ship {
      */
     boolean shootAt (int row, int column){
 
-        // get ship coordinates
-        ArrayList<int[]> shipCoords = calculateShipCoords(this.getBowRow(), this.getBowColumn(), this.isHorizontal());
-
-        // array to hold shot coordinates
-        int[] shotCoords = {row, column};
-
-        // iterate for length of ship coordinates
-        for (int i = 0; i < shipCoords.size(); i++) {
+        // horizontal ships extend West of the bow and vertical ships North of it,
+        // so the distance from the bow along the ship is the index in the hit array
+        int position;
+        if (this.horizontal){
+            if (row != this.bowRow){
+                return false;
+            }
+            position = this.bowColumn - column;
+        }else{
+            if (column != this.bowColumn){
+                return false;
+            }
+            position = this.bowRow - row;
+        }
 
-            // store coordinates at current index
-            int[] currentCoords = shipCoords.get(i);
+        // if the shot is not on the ship or the ship is already sunk, it's a miss
+        if (position < 0 || position >= this.length || this.isSunk()){
+            return false;
+        }
 
-            // check if the shot coordinates match the ship coordinates at the current index and the ship is not sunk
-            if (shotCoords[0] == currentCoords[0] && shotCoords[1] == currentCoords[1] && !this.isSunk()) {
-                // set proper index in hit to true and return true
-                this.hit[i] = true;
-                return true;
-            }
+        // count each part only once, hitting the same part again is still a hit
+        if (!this.hit[position]){
+            this.hit[position] = true;
+            this.remainingHits -= 1;
         }
+        return true;
+    }
 
-        // if not a hit or ship is sunk return false
-        return false;
+    /**
+     * Marks every part of the ship as not hit, so the ship can be used in another game
+     */
+    void resetHits(){
+        Arrays.fill(this.hit, false);
+        this.remainingHits = this.length;
     }
 
     /**
@@ -306,20 +245,7 @@ public abstract class Ship {
      * @return true if every part of the ship has been hit, false otherwise
      */
     boolean isSunk(){
-
-        // flag starts off as true to indicate that ship is sunk
-        boolean sunk = true;
-        // if any location in hit Array is false set sunk flag to false and escape loop
-        for (boolean location : hit) {
-            if (!location) {
-                sunk = false;
-                break;
-            }
-        }
-
-        // if the sunk flag is still true it means every part of ship was hit so return true
-        // otherwise return false as the ship is not sunk
-        return sunk;
+        return this.remainingHits == 0;
     }
 
     /**
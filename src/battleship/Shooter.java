@@ -0,0 +1,30 @@
+package battleship;
+
+/**
+ * A computer player that decides where to fire next. It only sees what a human player would:
+ * the SeaChart of shots fired so far and their results.
+ */
+interface Shooter {
+
+    /**
+     * Chooses the next cell to fire at
+     * @param chart what is known about the ocean so far
+     * @return index (row * 10 + column) of a cell that has not been fired upon
+     */
+    int nextShot(SeaChart chart);
+
+    /**
+     * Forgets everything about the previous game, so the shooter can be used for a new one
+     */
+    void reset();
+
+    /**
+     * Forgets everything about the previous game and seeds the shooter's random choices, so
+     * that a shooter reset with the same seed fires the same shots at the same ocean. A shooter
+     * that makes no random choices only needs reset().
+     * @param seed seed for the new game's random choices
+     */
+    default void reset(long seed){
+        reset();
+    }
+}
@@ -0,0 +1,103 @@
+package battleship;
+
+/**
+ * Counts how many games took each number of shots to finish. Each simulation worker fills its
+ * own histogram and the results are combined with merge(), so workers never share one.
+ */
+final class ShotHistogram {
+
+    /**
+     * Largest number of shots a game on a 10 x 10 ocean takes if no cell is fired on twice
+     */
+    static final int MAX_SHOTS = 100;
+
+    /**
+     * counts[n] is the number of games that took n shots; longer games are counted in the last slot
+     */
+    private final long[] counts = new long[MAX_SHOTS + 2];
+
+    /**
+     * Number of games recorded
+     */
+    private long games;
+
+    /**
+     * Sum of the shots of every game recorded
+     */
+    private long totalShots;
+
+    /**
+     * Records one finished game
+     * @param shots number of shots the game took
+     */
+    void record(int shots){
+        this.counts[Math.min(shots, MAX_SHOTS + 1)] += 1;
+        this.games += 1;
+        this.totalShots += shots;
+    }
+
+    /**
+     * Adds every game recorded in another histogram to this one
+     * @param other histogram to add
+     */
+    void merge(ShotHistogram other){
+        for (int i = 0; i < this.counts.length; i++){
+            this.counts[i] += other.counts[i];
+        }
+        this.games += other.games;
+        this.totalShots += other.totalShots;
+    }
+
+    /**
+     * Method to get the number of games recorded
+     * @return the number of games
+     */
+    long getGames(){
+        return this.games;
+    }
+
+    /**
+     * Method to get the number of games that took a given number of shots
+     * @param shots number of shots
+     * @return the number of games
+     */
+    long getCount(int shots){
+        return this.counts[Math.min(shots, MAX_SHOTS + 1)];
+    }
+
+    /**
+     * Method to get the average number of shots per game
+     * @return the mean, or 0 if no game was recorded
+     */
+    double mean(){
+        return this.games == 0 ? 0 : (double) this.totalShots / this.games;
+    }
+
+    /**
+     * Method to get the smallest number of shots that at least the given fraction of games
+     * finished within
+     * @param fraction between 0 and 1, e.g. 0.5 for the median
+     * @return the number of shots, or 0 if no game was recorded
+     */
+    int percentile(double fraction){
+        long needed = (long) Math.ceil(fraction * this.games);
+        long seen = 0;
+        for (int shots = 0; shots < this.counts.length; shots++){
+            seen += this.counts[shots];
+            if (seen >= needed && seen > 0){
+                return shots;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a short summary: number of games, mean and a few percentiles
+     */
+    @Override
+    public String toString(){
+        return String.format("%d games, mean %.2f shots, min %d, p10 %d, median %d, p90 %d, max %d",
+                this.games, mean(), percentile(0), percentile(0.1), percentile(0.5),
+                percentile(0.9), percentile(1));
+    }
+}
@@ -0,0 +1,63 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ShotHistogramTest {
+
+    @Test
+    void testMerge() {
+
+        ShotHistogram first = new ShotHistogram();
+        first.record(40);
+        first.record(50);
+        first.record(60);
+        ShotHistogram second = new ShotHistogram();
+        second.record(50);
+        second.record(70);
+        second.record(150);
+
+        // the merged histogram has every game of both, the other one is left as it was
+        first.merge(second);
+        assertEquals(6, first.getGames());
+        assertEquals(1, first.getCount(40));
+        assertEquals(2, first.getCount(50));
+        assertEquals(0, first.getCount(55));
+        assertEquals(420 / 6.0, first.mean(), 1e-9);
+        assertEquals(3, second.getGames());
+        assertEquals(1, second.getCount(50));
+
+        // games longer than MAX_SHOTS share the last slot, but count in full in the mean
+        assertEquals(1, first.getCount(ShotHistogram.MAX_SHOTS + 1));
+        assertEquals(1, first.getCount(150));
+
+        // merging an empty histogram changes nothing
+        first.merge(new ShotHistogram());
+        assertEquals(6, first.getGames());
+        assertEquals(420 / 6.0, first.mean(), 1e-9);
+    }
+
+    @Test
+    void testPercentile() {
+
+        // no games: every percentile is 0
+        ShotHistogram histogram = new ShotHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(0, histogram.mean(), 1e-9);
+
+        // games of 40, 50, 50, 60, 70 and 150 shots
+        for (int shots : new int[]{50, 150, 40, 70, 50, 60}){
+            histogram.record(shots);
+        }
+        assertEquals(40, histogram.percentile(0));
+        assertEquals(40, histogram.percentile(0.1));
+        assertEquals(50, histogram.percentile(0.5));
+        assertEquals(60, histogram.percentile(0.6));
+        assertEquals(70, histogram.percentile(0.67));
+
+        // the longest games are only known to be longer than MAX_SHOTS
+        assertEquals(ShotHistogram.MAX_SHOTS + 1, histogram.percentile(0.9));
+        assertEquals(ShotHistogram.MAX_SHOTS + 1, histogram.percentile(1));
+    }
+}
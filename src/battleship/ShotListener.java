@@ -0,0 +1,15 @@
+package battleship;
+
+/**
+ * Something to tell about every shot fired in an Ocean, such as a ShotLogWriter
+ */
+interface ShotListener {
+
+    /**
+     * Called by Ocean.shootAt() once the shot's result is known
+     * @param cell index (row * columns + column) of the cell fired at
+     * @param hit true if the shot hit a ship that was afloat
+     * @param sunkLength length of the ship the shot sank, or 0 if it sank nothing
+     */
+    void shotFired(int cell, boolean hit, int sunkLength);
+}
@@ -0,0 +1,119 @@
+package battleship;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Replays a log written by ShotLogWriter, one game at a time, into an Ocean. Nothing is
+ * printed and nothing is allocated per shot, so replaying runs at the speed of
+ * Ocean.shootAt().
+ *
+ * Each replayed shot is checked against the result logged for it, so a log that does not
+ * belong to the game it starts with is caught at the first shot that differs. A log cut off
+ * part way through a record, as a crash may leave it, is read up to the last whole record and
+ * the rest ignored; isTruncated() tells whether that happened.
+ */
+final class ShotLogReader {
+
+    /**
+     * The log, read from its position on
+     */
+    private final ByteBuffer log;
+
+    /**
+     * Whether the log ended part way through a record
+     */
+    private boolean truncated;
+
+    /**
+     * Creates a reader
+     * @param log the log, from its position to its limit; the reader moves the position
+     */
+    ShotLogReader(ByteBuffer log){
+        this.log = log;
+    }
+
+    /**
+     * Method to check if the log was cut off
+     * @return true if the last record read was not whole
+     */
+    boolean isTruncated(){
+        return this.truncated;
+    }
+
+    /**
+     * Replays the next game of the log: rebuilds the ocean from the game's snapshot and fires
+     * every shot logged for it
+     * @param ocean ocean of the same configuration as the logged game; it is reset first
+     * @return the number of shots replayed, or -1 if the log has no more games
+     * @throws IllegalArgumentException if the log is not a ShotLogWriter log, or a shot's
+     *                                  result differs from the one logged
+     */
+    int replayGame(Ocean ocean){
+        ByteBuffer log = this.log;
+        if (!log.hasRemaining() || this.truncated){
+            return -1;
+        }
+
+        // the game's snapshot
+        int start = log.position();
+        try {
+            if (OceanCodec.getVarint(log) != ShotLogWriter.GAME_START){
+                throw new IllegalArgumentException("The log does not start a game at byte " + start);
+            }
+            int length = OceanCodec.getVarint(log);
+            if (length > log.remaining()){
+                throw new BufferUnderflowException();
+            }
+            int end = log.position() + length;
+            int limit = log.limit();
+            log.limit(end);
+            try {
+                OceanCodec.decode(log, ocean);
+            }finally {
+                log.limit(limit);
+            }
+            log.position(end);
+        }catch (BufferUnderflowException e){
+            log.position(start);
+            this.truncated = true;
+            return -1;
+        }
+
+        // and its shots, up to the next game
+        int columns = ocean.getColumns();
+        int cells = ocean.getConfig().getCells();
+        int cell = 0;
+        int shots = 0;
+        while (log.hasRemaining()){
+            int record = log.position();
+            int tag;
+            try {
+                tag = OceanCodec.getVarint(log);
+            }catch (BufferUnderflowException e){
+                log.position(record);
+                this.truncated = true;
+                break;
+            }
+            int result = tag & 7;
+            if (result == ShotLogWriter.GAME_START){
+                log.position(record);
+                break;
+            }
+            int zigzag = tag >>> 3;
+            cell += (zigzag >>> 1) ^ -(zigzag & 1);
+            if (cell < 0 || cell >= cells){
+                throw new IllegalArgumentException("Shot " + shots + " at cell " + cell + " is outside the ocean");
+            }
+            int sunkBefore = ocean.getShipsSunk();
+            boolean hit = ocean.shootAt(cell / columns, cell % columns);
+            boolean sunk = ocean.getShipsSunk() != sunkBefore;
+            if (hit != (result != 0) || sunk != (result > 1)
+                    || sunk && ocean.getShipAt(cell / columns, cell % columns).getLength() != result - 1){
+                throw new IllegalArgumentException("Shot " + shots + " at cell " + cell + " does not match the log");
+            }
+            shots++;
+        }
+        return shots;
+    }
+}
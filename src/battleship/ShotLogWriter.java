@@ -0,0 +1,174 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Append-only log of games, written as they are played: each game starts with a snapshot of
+ * its ocean, and every Ocean.shootAt() after that adds one event. A game is rebuilt by
+ * replaying its log with a ShotLogReader, so a hosted game can be audited or recovered after
+ * a crash without saving the whole ocean on every move.
+ *
+ * The log is a sequence of records, each starting with a varint tag (see OceanCodec):
+ *
+ *   game start     tag GAME_START, then the length of the snapshot as a varint and the
+ *                  ocean as OceanCodec writes it: the fleet's layout, plus any shots fired
+ *                  before logging began
+ *   shot           tag (zigzag(cell - previous cell) << 3) | result, where result is 0 for
+ *                  a miss, 1 for a hit and 1 + length for a hit that sank a ship of that
+ *                  length; the previous cell is 0 at the start of each game
+ *
+ * Shots usually land near the one before, so most events take one or two bytes.
+ *
+ * Records are gathered in a buffer and written to the channel a batch at a time, when the
+ * buffer fills up and on flush() and close(). A crash loses at most the batch not yet
+ * written, and a log cut off part way through a record is read up to the last whole one. A
+ * writer is not thread safe; use one per game, or per thread.
+ */
+final class ShotLogWriter implements ShotListener, Closeable {
+
+    /**
+     * Result code, in the low 3 bits of a tag, of a game start
+     */
+    static final int GAME_START = 7;
+
+    /**
+     * Most cells an ocean may have to be logged, so that a shot's tag fits in 32 bits
+     */
+    static final int MAX_CELLS = 1 << 28;
+
+    /**
+     * Default size of the buffer
+     */
+    static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Where the batches go
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Records not written to the channel yet
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Scratch space for the snapshot of a game, grown as needed
+     */
+    private ByteBuffer snapshot = ByteBuffer.allocate(0);
+
+    /**
+     * Cell of the last shot of the current game
+     */
+    private int previousCell;
+
+    /**
+     * Shots logged so far, across all games
+     */
+    private long events;
+
+    /**
+     * Creates a writer with a 64 KB buffer
+     * @param channel channel to write the log to
+     */
+    ShotLogWriter(WritableByteChannel channel){
+        this(channel, DEFAULT_BUFFER_BYTES);
+    }
+
+    /**
+     * Creates a writer
+     * @param channel channel to write the log to
+     * @param bufferBytes size of the buffer, at least large enough for one game start
+     */
+    ShotLogWriter(WritableByteChannel channel, int bufferBytes){
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    /**
+     * Method to get the number of shots logged
+     * @return the number of shot events logged so far, across all games
+     */
+    long getEvents(){
+        return this.events;
+    }
+
+    /**
+     * Starts logging a game: writes a snapshot of the ocean, and logs every shot fired in it
+     * from now on
+     * @param ocean ocean of the game, usually with its fleet placed and no shots fired, of at
+     *              most MAX_CELLS cells
+     */
+    void startGame(Ocean ocean){
+        if (ocean.getConfig().getCells() > MAX_CELLS){
+            throw new IllegalArgumentException("Only oceans of up to " + MAX_CELLS + " cells can be logged");
+        }
+        int most = OceanCodec.maxEncodedSize(ocean.getConfig());
+        if (most + 10 > this.buffer.capacity()){
+            throw new IllegalArgumentException("The buffer is too small for a game of " + ocean.getConfig());
+        }
+        if (this.snapshot.capacity() < most){
+            this.snapshot = ByteBuffer.allocate(most);
+        }
+
+        // the snapshot's length goes first, so it is written aside
+        this.snapshot.clear();
+        OceanCodec.encode(ocean, this.snapshot);
+        this.snapshot.flip();
+        room(most + 10);
+        OceanCodec.putVarint(this.buffer, GAME_START);
+        OceanCodec.putVarint(this.buffer, this.snapshot.remaining());
+        this.buffer.put(this.snapshot);
+
+        this.previousCell = 0;
+        ocean.setShotListener(this);
+    }
+
+    @Override
+    public void shotFired(int cell, boolean hit, int sunkLength){
+        room(5);
+        int delta = cell - this.previousCell;
+        int result = sunkLength > 0 ? 1 + sunkLength : hit ? 1 : 0;
+        OceanCodec.putVarint(this.buffer, ((delta << 1) ^ (delta >> 31)) << 3 | result);
+        this.previousCell = cell;
+        this.events++;
+    }
+
+    /**
+     * Writes the buffered records to the channel
+     * @throws IOException if the channel fails
+     */
+    void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()){
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records and closes the channel
+     * @throws IOException if the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        this.channel.close();
+    }
+
+    /**
+     * Makes sure the buffer has room for a record, writing out the batch if not
+     */
+    private void room(int bytes){
+        if (this.buffer.remaining() < bytes){
+            try {
+                flush();
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
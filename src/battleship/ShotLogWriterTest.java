@@ -0,0 +1,127 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ShotLogWriterTest {
+
+    /**
+     * Plays games with random shots, repeats included, logging them with a small buffer so the
+     * log is written in many batches
+     * @return the log
+     */
+    private byte[] playAndLog(Ocean[] games, Random random) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ShotLogWriter writer = new ShotLogWriter(Channels.newChannel(out), 256)){
+            long shots = 0;
+            for (int i = 0; i < games.length; i++){
+                games[i] = new Ocean();
+                games[i].placeAllShipsRandomly();
+                writer.startGame(games[i]);
+                while (!games[i].isGameOver()){
+                    games[i].shootAt(random.nextInt(10), random.nextInt(10));
+                    shots++;
+                }
+            }
+            assertEquals(shots, writer.getEvents());
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void testReplaysEveryGame() throws IOException {
+
+        Ocean[] games = new Ocean[20];
+        byte[] log = playAndLog(games, new Random(591));
+
+        ShotLogReader reader = new ShotLogReader(ByteBuffer.wrap(log));
+        Ocean replayed = new Ocean();
+        for (Ocean game : games){
+            assertEquals(game.getShotsFired(), reader.replayGame(replayed));
+            assertEquals(game.getShotsFired(), replayed.getShotsFired());
+            assertEquals(game.getHitCount(), replayed.getHitCount());
+            assertEquals(game.getStateHash(), replayed.getStateHash());
+            assertTrue(replayed.isGameOver());
+            for (int r = 0; r < 10; r++){
+                for (int c = 0; c < 10; c++){
+                    assertEquals(game.isOccupied(r, c), replayed.isOccupied(r, c));
+                }
+            }
+        }
+        assertEquals(-1, reader.replayGame(replayed));
+        assertFalse(reader.isTruncated());
+    }
+
+    @Test
+    void testCutOffAndForeignLogs() throws IOException {
+
+        Ocean[] games = new Ocean[2];
+        byte[] log = playAndLog(games, new Random(7));
+        ByteBuffer buffer = ByteBuffer.wrap(log);
+        new ShotLogReader(buffer).replayGame(new Ocean());
+        int secondGame = buffer.position();
+
+        // a log cut off part way through the second game's snapshot keeps the first game
+        ShotLogReader reader = new ShotLogReader(ByteBuffer.wrap(log, 0, secondGame + 10));
+        Ocean replayed = new Ocean();
+        assertEquals(games[0].getShotsFired(), reader.replayGame(replayed));
+        assertEquals(-1, reader.replayGame(replayed));
+        assertTrue(reader.isTruncated());
+
+        // the first game's shots after the second game's snapshot do not match
+        int snapshot = 2 + log[1];
+        ByteBuffer foreign = ByteBuffer.allocate(secondGame);
+        foreign.put(log, secondGame, snapshot).put(log, snapshot, secondGame - snapshot).flip();
+        assertThrows(IllegalArgumentException.class, () -> new ShotLogReader(foreign).replayGame(new Ocean()));
+    }
+
+    @Test
+    void testResetEndsLogging() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ShotLogWriter writer = new ShotLogWriter(Channels.newChannel(out))){
+            Ocean ocean = new Ocean();
+            ocean.placeAllShipsRandomly();
+            writer.startGame(ocean);
+            ocean.shootAt(0, 0);
+            ocean.shootAt(9, 9);
+            assertEquals(2, writer.getEvents());
+
+            // the next game in the same ocean is not logged unless it is started
+            ocean.reset();
+            ocean.placeAllShipsRandomly();
+            ocean.shootAt(5, 5);
+            assertEquals(2, writer.getEvents());
+            writer.startGame(ocean);
+            ocean.shootAt(5, 6);
+            assertEquals(3, writer.getEvents());
+        }
+    }
+
+    @Test
+    void testRejectsBadRecords() throws IOException {
+
+        Ocean[] games = new Ocean[1];
+        byte[] log = playAndLog(games, new Random(3));
+
+        // a well-formed record of a shot 500 cells past the last one
+        ByteBuffer outside = ByteBuffer.allocate(log.length + 5);
+        outside.put(log);
+        OceanCodec.putVarint(outside, 500 << 1 << 3);
+        outside.flip();
+        assertThrows(IllegalArgumentException.class, () -> new ShotLogReader(outside).replayGame(new Ocean()));
+
+        // a snapshot that does not decode leaves the log's limit where it was
+        ByteBuffer corrupt = ByteBuffer.wrap(log.clone());
+        corrupt.put(2, (byte) 9);
+        assertThrows(IllegalArgumentException.class, () -> new ShotLogReader(corrupt).replayGame(new Ocean()));
+        assertEquals(log.length, corrupt.limit());
+    }
+}
@@ -0,0 +1,190 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays many complete games without a user, a computer shooter against oceans filled by
+ * placeAllShipsRandomly, and reports how many shots each game took. This is how shooting
+ * strategies are compared.
+ *
+ * The games are shared between worker threads. Each worker keeps one Ocean, one SeaChart and
+ * one shooter for all its games and resets them between games instead of building new ones,
+ * and counts its results in its own ShotHistogram. The histograms are merged once every worker
+ * is done, so the workers share nothing while playing. The one exception is density:cached,
+ * whose shooters share a TranspositionTable of the shots chosen for each chart.
+ *
+ * Every game draws its fleet and its shooter's random choices from its own generator, seeded
+ * from the run's seed and the game's number, so a run repeated with the same seed plays the
+ * same games whatever the number of threads. The seed is printed so any run can be repeated;
+ * only shooters given a time budget, or sharing a cache, may still differ from run to run.
+ *
+ * Usage: SimulationRunner games [density | density:cached | endgame | montecarlo:samples | entropy:samples] [threads] [seed]
+ */
+public class SimulationRunner {
+
+    /**
+     * Plays a number of games, with an unseeded run
+     * @param games number of games to play
+     * @param shooters makes one shooter per worker
+     * @param threads number of worker threads
+     * @return the number of shots every game took
+     */
+    static ShotHistogram run(long games, Supplier<Shooter> shooters, int threads) throws InterruptedException {
+        return run(games, shooters, threads, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Plays a number of games
+     * @param games number of games to play
+     * @param shooters makes one shooter per worker
+     * @param threads number of worker threads
+     * @param seed seed of the run; the same seed plays the same games
+     * @return the number of shots every game took
+     */
+    static ShotHistogram run(long games, Supplier<Shooter> shooters, int threads, long seed) throws InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<ShotHistogram>> workers = new ArrayList<>();
+
+        long first = 0;
+        for (int t = 0; t < threads; t++){
+
+            // every worker gets its share of the games, numbered on from the last worker's
+            long share = games / threads + (t < games % threads ? 1 : 0);
+            long start = first;
+            workers.add(pool.submit(() -> play(start, share, shooters.get(), seed)));
+            first += share;
+        }
+
+        pool.shutdown();
+        ShotHistogram total = new ShotHistogram();
+        try {
+            for (Future<ShotHistogram> worker : workers){
+                total.merge(worker.get());
+            }
+        }catch (ExecutionException e){
+            throw new IllegalStateException(e.getCause());
+        }finally {
+            pool.shutdownNow();
+        }
+        return total;
+    }
+
+    /**
+     * Plays games one after the other on the calling thread, reusing the same objects
+     * @param first number of the first game, within the run
+     * @param games number of games to play
+     * @param shooter shooter to play them with
+     * @param seed seed of the run
+     * @return the number of shots every game took
+     */
+    static ShotHistogram play(long first, long games, Shooter shooter, long seed){
+        ShotHistogram histogram = new ShotHistogram();
+        Ocean ocean = OceanPool.acquire();
+        SeaChart chart = new SeaChart();
+
+        for (long game = 0; game < games; game++){
+            if (game > 0){
+                ocean.reset();
+                chart.reset();
+            }
+            SplittableRandom random = gameRandom(seed, first + game);
+            ocean.placeAllShipsRandomly(random);
+            shooter.reset(random.nextLong());
+            while (!ocean.isGameOver()){
+                chart.fireAt(ocean, shooter.nextShot(chart));
+            }
+            histogram.record(ocean.getShotsFired());
+        }
+        OceanPool.release(ocean);
+        return histogram;
+    }
+
+    /**
+     * Method to get the random number generator of a game of a run. Its seed mixes the run's
+     * seed and the game's number, so the games' streams are unrelated to each other, unlike
+     * streams of consecutive seeds, which SplittableRandom makes overlap.
+     * @param seed seed of the run
+     * @param game number of the game within the run
+     * @return a new generator, the same for the same seed and game
+     */
+    static SplittableRandom gameRandom(long seed, long game){
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        if (args.length < 1){
+            System.err.println("Usage: SimulationRunner games [density | density:cached | endgame | montecarlo:samples | entropy:samples] [threads] [seed]");
+            return;
+        }
+
+        long games = Long.parseLong(args[0]);
+        String strategy = args.length < 2 ? "density" : args[1];
+        int threads = args.length < 3 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[2]);
+        long seed = args.length < 4 ? new SplittableRandom().nextLong() : Long.parseLong(args[3]);
+
+        // the games already keep every core busy, so each sampling shooter samples on a pool of
+        // one thread of its own; the pools are kept here to be shut down once the run is over
+        List<ForkJoinPool> samplingPools = Collections.synchronizedList(new ArrayList<>());
+        Supplier<ForkJoinPool> samplingPool = () -> {
+            ForkJoinPool pool = new ForkJoinPool(1);
+            samplingPools.add(pool);
+            return pool;
+        };
+
+        Supplier<Shooter> shooters;
+        if (strategy.startsWith("montecarlo:")){
+            int samples = Integer.parseInt(strategy.substring("montecarlo:".length()));
+            shooters = () -> new MonteCarloShooter(samples, 0, new SplittableRandom(), samplingPool.get());
+        }else if (strategy.startsWith("entropy:")){
+            int samples = Integer.parseInt(strategy.substring("entropy:".length()));
+            shooters = () -> new EntropyShooter(samples, 0, new SplittableRandom(), samplingPool.get());
+        }else if (strategy.equals("density")){
+            shooters = DensityShooter::new;
+        }else if (strategy.equals("density:cached")){
+
+            // every worker's shooter reuses the shots the others chose for the same chart
+            TranspositionTable<Integer> cache = new TranspositionTable<>(1 << 20);
+            shooters = () -> new DensityShooter(cache);
+        }else if (strategy.equals("endgame")){
+            shooters = EndgameShooter::new;
+        }else {
+            System.err.println("Unknown shooter: " + strategy);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ShotHistogram histogram;
+        try {
+            histogram = run(games, shooters, threads, seed);
+        }finally {
+            for (ForkJoinPool pool : samplingPools){
+                pool.shutdown();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Played %d games with %s on %d threads in %.3f s (%.0f games/s)%n",
+                games, strategy, threads, seconds, games / seconds);
+        System.out.println("Seed: " + seed);
+        System.out.println(histogram);
+        for (int shots = 0; shots <= ShotHistogram.MAX_SHOTS + 1; shots++){
+            if (histogram.getCount(shots) > 0){
+                System.out.printf("%4d shots: %d%n", shots, histogram.getCount(shots));
+            }
+        }
+    }
+}
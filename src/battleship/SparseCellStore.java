@@ -0,0 +1,82 @@
+package battleship;
+
+import java.util.Arrays;
+
+/**
+ * A CellStore that only has entries for occupied cells, kept in a LongLongHashMap from cell to
+ * ship, plus a bit per cell for the shots. Apart from that bit its size depends on the number
+ * of ship cells, not on the size of the ocean.
+ */
+final class SparseCellStore implements CellStore {
+
+    /**
+     * Maps one more than the cell index (key 0 is reserved by the map) to the ship's position
+     */
+    private final LongLongHashMap ships;
+
+    /**
+     * Cells that have been fired upon at least once
+     */
+    private final Bitboard shots;
+
+    /**
+     * Cells fired upon since the last clear(), so clear() only visits those
+     */
+    private int[] shotCells = new int[16];
+    private int shotCount;
+
+    /**
+     * Creates a store in which every cell is empty
+     * @param cells number of cells in the ocean
+     * @param expectedShipCells number of ship cells the store should hold before it has to grow
+     */
+    SparseCellStore(int cells, int expectedShipCells){
+        this.ships = new LongLongHashMap(expectedShipCells);
+        this.shots = new Bitboard(cells);
+    }
+
+    @Override
+    public int shipAt(int cell){
+        return (int) this.ships.get(cell + 1L, -1);
+    }
+
+    @Override
+    public void put(int cell, int ship){
+        this.ships.put(cell + 1L, ship);
+    }
+
+    @Override
+    public boolean isShot(int cell){
+        return this.shots.get(cell);
+    }
+
+    @Override
+    public void shoot(int cell){
+        if (!this.shots.get(cell)){
+            if (this.shotCount == this.shotCells.length){
+                this.shotCells = Arrays.copyOf(this.shotCells, this.shotCount * 2);
+            }
+            this.shotCells[this.shotCount++] = cell;
+            this.shots.set(cell);
+        }
+    }
+
+    @Override
+    public void clear(){
+
+        // the map's size follows the ship cells, and only the shot cells' bits are cleared
+        this.ships.clear();
+        for (int i = 0; i < this.shotCount; i++){
+            this.shots.clear(this.shotCells[i]);
+        }
+        this.shotCount = 0;
+    }
+
+    /**
+     * Method to get the number of occupied cells
+     * @return the number of cells a ship occupies
+     */
+    int size(){
+        return this.ships.size();
+    }
+}
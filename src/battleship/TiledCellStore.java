@@ -0,0 +1,494 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A CellStore for giant maps that splits the ocean into square tiles of 32 x 32 cells. A tile
+ * is only created when a ship is placed in it or a shot lands in it; asking about a cell of a
+ * tile that doesn't exist simply answers "empty, not shot". Each tile holds an int per cell for
+ * the ships and a bit per cell for the shots, like DenseCellStore.
+ *
+ * At most a fixed number of tiles are kept in the heap. When another one is needed the least
+ * recently used tile is written to a memory-mapped spill file (if it changed since it was last
+ * written) and its memory is reused; the tile is read back when it is next used. So the heap
+ * holds only the part of the map that is active, however large the map is.
+ *
+ * A store is used by one ocean on one thread. close() releases the spill file.
+ */
+final class TiledCellStore implements CellStore, AutoCloseable {
+
+    /**
+     * Number of rows and columns of a tile, as a power of two
+     */
+    private static final int TILE_SHIFT = 5;
+
+    /**
+     * Number of rows and columns of a tile
+     */
+    static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    /**
+     * Number of cells in a tile
+     */
+    private static final int TILE_CELLS = TILE_SIZE * TILE_SIZE;
+
+    /**
+     * Number of longs holding the shot bits of a tile
+     */
+    private static final int SHOT_WORDS = TILE_CELLS / 64;
+
+    /**
+     * Bytes a tile takes in the spill file: the ship ints, then the shot longs
+     */
+    private static final int RECORD_BYTES = TILE_CELLS * Integer.BYTES + SHOT_WORDS * Long.BYTES;
+
+    /**
+     * Number of tile records in each mapped chunk of the spill file
+     */
+    private static final int RECORDS_PER_CHUNK = 256;
+
+    /**
+     * Number of columns of the ocean
+     */
+    private final int columns;
+
+    /**
+     * Number of tiles across the ocean
+     */
+    private final int tileColumns;
+
+    /**
+     * Largest number of tiles kept in the heap
+     */
+    private final int maxResident;
+
+    /**
+     * Per slot, one more than the position in the fleet of the ship in each cell of the tile
+     * held in the slot, or 0 for an empty cell; created when the slot is first used
+     */
+    private final int[][] slotShips;
+
+    /**
+     * Per slot, the shot bits of the tile held in the slot
+     */
+    private final long[][] slotShots;
+
+    /**
+     * Per slot, the tile it holds, or -1 if it holds none
+     */
+    private final int[] slotTile;
+
+    /**
+     * Per slot, whether its tile changed since it was last written to the spill file
+     */
+    private final boolean[] slotDirty;
+
+    /**
+     * Per slot, the slot used just before it, or -1 (the list of resident tiles in LRU order)
+     */
+    private final int[] newer;
+
+    /**
+     * Per slot, the slot used just after it, or -1
+     */
+    private final int[] older;
+
+    /**
+     * The most recently used slot, or -1 when no tile is resident
+     */
+    private int newest = -1;
+
+    /**
+     * The least recently used slot, or -1 when no tile is resident
+     */
+    private int oldest = -1;
+
+    /**
+     * Number of slots that have had their arrays created
+     */
+    private int slotsCreated;
+
+    /**
+     * Slots whose arrays exist but hold no tile
+     */
+    private final int[] freeSlots;
+
+    /**
+     * Number of entries in freeSlots
+     */
+    private int freeCount;
+
+    /**
+     * Maps one more than a tile index to the slot holding it
+     */
+    private final LongLongHashMap resident;
+
+    /**
+     * Maps one more than a tile index to its record in the spill file, for every tile that has
+     * been spilled at least once
+     */
+    private final LongLongHashMap records;
+
+    /**
+     * Number of records used in the spill file
+     */
+    private int recordCount;
+
+    /**
+     * The tile of the last lookup, so runs of accesses to one tile skip the map
+     */
+    private int lastTile = -1;
+
+    /**
+     * The slot of the last lookup
+     */
+    private int lastSlot = -1;
+
+    /**
+     * Where spilled tiles are written
+     */
+    private final Path spillPath;
+
+    /**
+     * Channel of the spill file
+     */
+    private final FileChannel spill;
+
+    /**
+     * The mapped chunks of the spill file, as ints for the ship entries
+     */
+    private final List<IntBuffer> chunkInts = new ArrayList<>();
+
+    /**
+     * The mapped chunks of the spill file, as longs for the shot bits
+     */
+    private final List<LongBuffer> chunkLongs = new ArrayList<>();
+
+    /**
+     * Number of tiles written to the spill file so far
+     */
+    private long spills;
+
+    /**
+     * Number of tiles read back from the spill file so far
+     */
+    private long loads;
+
+    /**
+     * Creates a store in which every cell is empty, spilling to a temporary file that is
+     * deleted when the store is closed
+     * @param rows number of rows in the ocean
+     * @param columns number of columns in the ocean
+     * @param maxResident largest number of tiles to keep in the heap, at least 1
+     */
+    TiledCellStore(int rows, int columns, int maxResident){
+        this(rows, columns, maxResident, createSpillFile());
+    }
+
+    /**
+     * Creates a store in which every cell is empty
+     * @param rows number of rows in the ocean
+     * @param columns number of columns in the ocean
+     * @param maxResident largest number of tiles to keep in the heap, at least 1
+     * @param spillPath file to spill tiles to; it is overwritten, and deleted by close()
+     */
+    TiledCellStore(int rows, int columns, int maxResident, Path spillPath){
+        if (maxResident < 1){
+            throw new IllegalArgumentException("At least one tile must fit in the heap");
+        }
+        this.columns = columns;
+        this.tileColumns = (columns + TILE_SIZE - 1) >>> TILE_SHIFT;
+        this.maxResident = maxResident;
+        this.slotShips = new int[maxResident][];
+        this.slotShots = new long[maxResident][];
+        this.slotTile = new int[maxResident];
+        this.slotDirty = new boolean[maxResident];
+        this.newer = new int[maxResident];
+        this.older = new int[maxResident];
+        this.freeSlots = new int[maxResident];
+        this.resident = new LongLongHashMap(maxResident);
+        this.records = new LongLongHashMap(16);
+        this.spillPath = spillPath;
+        try {
+            this.spill = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a temporary file to spill tiles to
+     */
+    private static Path createSpillFile(){
+        try {
+            Path path = Files.createTempFile("ocean-tiles", ".bin");
+            path.toFile().deleteOnExit();
+            return path;
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int shipAt(int cell){
+        int slot = slotFor(tileOf(cell), false);
+        return slot < 0 ? -1 : this.slotShips[slot][offsetOf(cell)] - 1;
+    }
+
+    @Override
+    public void put(int cell, int ship){
+        int slot = slotFor(tileOf(cell), true);
+        this.slotShips[slot][offsetOf(cell)] = ship + 1;
+        this.slotDirty[slot] = true;
+    }
+
+    @Override
+    public boolean isShot(int cell){
+        int slot = slotFor(tileOf(cell), false);
+        int offset = offsetOf(cell);
+        return slot >= 0 && (this.slotShots[slot][offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    @Override
+    public void shoot(int cell){
+        int slot = slotFor(tileOf(cell), true);
+        int offset = offsetOf(cell);
+        this.slotShots[slot][offset >>> 6] |= 1L << offset;
+        this.slotDirty[slot] = true;
+    }
+
+    @Override
+    public void clear(){
+
+        // every slot becomes free and every record in the spill file can be overwritten
+        for (int slot = this.newest; slot >= 0; slot = this.older[slot]){
+            this.slotTile[slot] = -1;
+            this.freeSlots[this.freeCount++] = slot;
+        }
+        this.newest = -1;
+        this.oldest = -1;
+        this.resident.clear();
+        this.records.clear();
+        this.recordCount = 0;
+        this.lastTile = -1;
+        this.lastSlot = -1;
+    }
+
+    /**
+     * Method to get the number of tiles in the heap
+     * @return the number of resident tiles
+     */
+    int residentTiles(){
+        return this.resident.size();
+    }
+
+    /**
+     * Method to get the number of times a tile was written to the spill file
+     * @return the number of spills
+     */
+    long getSpills(){
+        return this.spills;
+    }
+
+    /**
+     * Method to get the number of times a tile was read back from the spill file
+     * @return the number of loads
+     */
+    long getLoads(){
+        return this.loads;
+    }
+
+    /**
+     * Closes and deletes the spill file. The store must not be used afterwards.
+     */
+    @Override
+    public void close(){
+        try {
+            this.spill.close();
+            Files.deleteIfExists(this.spillPath);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to get the tile a cell belongs to
+     */
+    private int tileOf(int cell){
+        int row = cell / this.columns;
+        int column = cell - row * this.columns;
+        return (row >>> TILE_SHIFT) * this.tileColumns + (column >>> TILE_SHIFT);
+    }
+
+    /**
+     * Method to get the position of a cell within its tile
+     */
+    private int offsetOf(int cell){
+        int row = cell / this.columns;
+        int column = cell - row * this.columns;
+        return ((row & (TILE_SIZE - 1)) << TILE_SHIFT) | (column & (TILE_SIZE - 1));
+    }
+
+    /**
+     * Finds the slot holding a tile, reading the tile back from the spill file or creating it
+     * if needed, and marks it as the most recently used
+     * @param tile tile index
+     * @param create true to create the tile if it doesn't exist yet
+     * @return the slot, or -1 if the tile doesn't exist and create is false
+     */
+    private int slotFor(int tile, boolean create){
+        if (tile == this.lastTile){
+            return this.lastSlot;
+        }
+
+        int slot = (int) this.resident.get(tile + 1L, -1);
+        if (slot >= 0){
+            unlink(slot);
+        }else {
+            int record = (int) this.records.get(tile + 1L, -1);
+            if (record < 0 && !create){
+                return -1;
+            }
+            slot = takeSlot();
+            if (record >= 0){
+                read(record, slot);
+                this.slotDirty[slot] = false;
+                this.loads++;
+            }else {
+                Arrays.fill(this.slotShips[slot], 0);
+                Arrays.fill(this.slotShots[slot], 0);
+                this.slotDirty[slot] = true;
+            }
+            this.slotTile[slot] = tile;
+            this.resident.put(tile + 1L, slot);
+        }
+
+        linkNewest(slot);
+        this.lastTile = tile;
+        this.lastSlot = slot;
+        return slot;
+    }
+
+    /**
+     * Method to get a slot for a tile: a free one, a new one, or the least recently used one
+     * after spilling its tile
+     */
+    private int takeSlot(){
+        if (this.freeCount > 0){
+            return this.freeSlots[--this.freeCount];
+        }
+        if (this.slotsCreated < this.maxResident){
+            int slot = this.slotsCreated++;
+            this.slotShips[slot] = new int[TILE_CELLS];
+            this.slotShots[slot] = new long[SHOT_WORDS];
+            return slot;
+        }
+
+        // evict the least recently used tile, writing it out if it changed
+        int slot = this.oldest;
+        unlink(slot);
+        int tile = this.slotTile[slot];
+        if (this.slotDirty[slot]){
+            int record = (int) this.records.get(tile + 1L, -1);
+            if (record < 0){
+                record = this.recordCount++;
+                this.records.put(tile + 1L, record);
+            }
+            write(slot, record);
+            this.spills++;
+        }
+        this.resident.remove(tile + 1L);
+        if (this.lastSlot == slot){
+            this.lastTile = -1;
+            this.lastSlot = -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Takes a slot out of the LRU list
+     */
+    private void unlink(int slot){
+        int before = this.newer[slot];
+        int after = this.older[slot];
+        if (before >= 0){
+            this.older[before] = after;
+        }else {
+            this.newest = after;
+        }
+        if (after >= 0){
+            this.newer[after] = before;
+        }else {
+            this.oldest = before;
+        }
+    }
+
+    /**
+     * Puts a slot at the most recently used end of the LRU list
+     */
+    private void linkNewest(int slot){
+        this.newer[slot] = -1;
+        this.older[slot] = this.newest;
+        if (this.newest >= 0){
+            this.newer[this.newest] = slot;
+        }
+        this.newest = slot;
+        if (this.oldest < 0){
+            this.oldest = slot;
+        }
+    }
+
+    /**
+     * Writes the tile held in a slot to a record of the spill file
+     */
+    private void write(int slot, int record){
+        int chunk = record / RECORDS_PER_CHUNK;
+        int start = (record % RECORDS_PER_CHUNK) * RECORD_BYTES;
+        mapChunk(chunk);
+        this.chunkInts.get(chunk).put(start / Integer.BYTES, this.slotShips[slot], 0, TILE_CELLS);
+        this.chunkLongs.get(chunk).put((start + TILE_CELLS * Integer.BYTES) / Long.BYTES,
+                this.slotShots[slot], 0, SHOT_WORDS);
+    }
+
+    /**
+     * Reads a record of the spill file into a slot
+     */
+    private void read(int record, int slot){
+        int chunk = record / RECORDS_PER_CHUNK;
+        int start = (record % RECORDS_PER_CHUNK) * RECORD_BYTES;
+        this.chunkInts.get(chunk).get(start / Integer.BYTES, this.slotShips[slot], 0, TILE_CELLS);
+        this.chunkLongs.get(chunk).get((start + TILE_CELLS * Integer.BYTES) / Long.BYTES,
+                this.slotShots[slot], 0, SHOT_WORDS);
+    }
+
+    /**
+     * Maps chunks of the spill file up to the given one, growing the file as needed
+     */
+    private void mapChunk(int chunk){
+        long chunkBytes = (long) RECORDS_PER_CHUNK * RECORD_BYTES;
+        try {
+            while (this.chunkInts.size() <= chunk){
+                MappedByteBuffer buffer = this.spill.map(FileChannel.MapMode.READ_WRITE,
+                        this.chunkInts.size() * chunkBytes, chunkBytes);
+                buffer.order(ByteOrder.nativeOrder());
+                this.chunkInts.add(buffer.asIntBuffer());
+                this.chunkLongs.add(buffer.asLongBuffer());
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+}
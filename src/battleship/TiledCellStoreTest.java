@@ -0,0 +1,69 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TiledCellStoreTest {
+
+    @Test
+    void testUntouchedTilesAreNotCreated() {
+        try (TiledCellStore store = new TiledCellStore(1000, 1000, 4)){
+
+            // reading anywhere makes no tile
+            for (int cell = 0; cell < 1000 * 1000; cell += 997){
+                assertEquals(-1, store.shipAt(cell));
+                assertFalse(store.isShot(cell));
+            }
+            assertEquals(0, store.residentTiles());
+
+            // writing makes only the tile written to
+            store.put(999_999, 3);
+            store.shoot(999_999);
+            assertEquals(1, store.residentTiles());
+            assertEquals(3, store.shipAt(999_999));
+            assertTrue(store.isShot(999_999));
+            assertEquals(-1, store.shipAt(999_998));
+        }
+    }
+
+    @Test
+    void testSpilledTilesComeBack() {
+        int size = 300;
+        int[] ships = new int[size * size];
+        boolean[] shots = new boolean[size * size];
+        Random random = new Random(591);
+
+        // only 3 of the 100 tiles fit in memory, so most writes evict a tile to the file
+        try (TiledCellStore store = new TiledCellStore(size, size, 3)){
+            for (int i = 0; i < 20_000; i++){
+                int cell = random.nextInt(size * size);
+                if (random.nextBoolean()){
+                    store.put(cell, i);
+                    ships[cell] = i + 1;
+                }else {
+                    store.shoot(cell);
+                    shots[cell] = true;
+                }
+            }
+            assertTrue(store.residentTiles() <= 3);
+            assertTrue(store.getSpills() > 0);
+
+            for (int cell = 0; cell < size * size; cell++){
+                assertEquals(ships[cell] - 1, store.shipAt(cell));
+                assertEquals(shots[cell], store.isShot(cell));
+            }
+            assertTrue(store.getLoads() > 0);
+
+            // after clearing, nothing is left in memory or in the file
+            store.clear();
+            assertEquals(0, store.residentTiles());
+            for (int cell = 0; cell < size * size; cell += 7){
+                assertEquals(-1, store.shipAt(cell));
+                assertFalse(store.isShot(cell));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package battleship;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache from game-state hashes (see Zobrist) to whatever a solver worked out for
+ * that state, e.g. the next shot or a table of probabilities, shared by any number of threads
+ * without locks.
+ *
+ * The table has a fixed number of buckets of two entries, and the bucket of a state is chosen
+ * by its hash. The first entry of a bucket keeps the most costly result (the one that would
+ * take longest to work out again); a new result goes there if it cost at least as much, or if
+ * the entry there was stored before the last newGeneration(). Otherwise it goes in the second
+ * entry, which always takes the newest result. Entries are immutable and written with a
+ * single volatile store, so a reader sees either a whole entry or none; two threads storing
+ * into the same entry at once just leave one of the two results.
+ *
+ * @param <V> type of the cached results, which should be immutable or not changed once stored
+ */
+final class TranspositionTable<V> {
+
+    /**
+     * One cached result
+     */
+    private static final class Entry<V> {
+        final long hash;
+        final int cost;
+        final int generation;
+        final V value;
+
+        Entry(long hash, int cost, int generation, V value){
+            this.hash = hash;
+            this.cost = cost;
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The entries, two per bucket
+     */
+    private final AtomicReferenceArray<Entry<V>> entries;
+
+    /**
+     * Number of buckets minus one, the number of buckets being a power of two
+     */
+    private final int bucketMask;
+
+    /**
+     * Generation new entries are stored with
+     */
+    private volatile int generation;
+
+    /**
+     * Creates an empty table
+     * @param capacity largest number of results to keep, rounded up to a power of two (at least 2)
+     */
+    TranspositionTable(int capacity){
+        if (capacity < 1 || capacity > 1 << 30){
+            throw new IllegalArgumentException("Unsupported capacity " + capacity);
+        }
+        int buckets = 1;
+        while (2 * buckets < capacity){
+            buckets <<= 1;
+        }
+        this.entries = new AtomicReferenceArray<>(2 * buckets);
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Method to get the number of results the table can hold
+     * @return twice the number of buckets
+     */
+    int capacity(){
+        return this.entries.length();
+    }
+
+    /**
+     * Looks up the result stored for a state
+     * @param hash hash of the state
+     * @return the result, or null if none is stored
+     */
+    V get(long hash){
+        int first = bucket(hash);
+        Entry<V> entry = this.entries.get(first);
+        if (entry != null && entry.hash == hash){
+            return entry.value;
+        }
+        entry = this.entries.get(first + 1);
+        if (entry != null && entry.hash == hash){
+            return entry.value;
+        }
+        return null;
+    }
+
+    /**
+     * Stores the result for a state, possibly pushing out another result of the same bucket
+     * @param hash hash of the state
+     * @param value the result
+     * @param cost how much the result cost to work out, e.g. samples drawn or nodes searched;
+     *             costly results are kept over cheap ones
+     */
+    void put(long hash, V value, int cost){
+        int first = bucket(hash);
+        int generation = this.generation;
+        Entry<V> entry = new Entry<>(hash, cost, generation, value);
+
+        Entry<V> kept = this.entries.get(first);
+        if (kept == null || kept.hash == hash || kept.generation != generation || kept.cost <= cost){
+            this.entries.set(first, entry);
+        }else {
+            this.entries.set(first + 1, entry);
+        }
+    }
+
+    /**
+     * Marks every stored result as old, so new results replace them whatever they cost. They
+     * can still be found until they are replaced.
+     */
+    void newGeneration(){
+        this.generation++;
+    }
+
+    /**
+     * Removes every result
+     */
+    void clear(){
+        for (int i = 0; i < this.entries.length(); i++){
+            this.entries.set(i, null);
+        }
+    }
+
+    /**
+     * Method to get the first entry of a state's bucket
+     */
+    private int bucket(long hash){
+
+        // the hash is already well mixed, fold its two halves together
+        return ((int) (hash >>> 32 ^ hash) & this.bucketMask) << 1;
+    }
+}
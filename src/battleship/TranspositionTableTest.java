@@ -0,0 +1,70 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+
+    @Test
+    void testReplacement() {
+        TranspositionTable<String> table = new TranspositionTable<>(2);
+        assertEquals(2, table.capacity());
+        assertNull(table.get(1));
+
+        // one bucket: a costly result stays, cheaper ones take turns in the other entry
+        table.put(1, "costly", 100);
+        table.put(2, "cheap", 1);
+        assertEquals("costly", table.get(1));
+        assertEquals("cheap", table.get(2));
+        table.put(3, "cheaper", 0);
+        assertEquals("costly", table.get(1));
+        assertNull(table.get(2));
+        assertEquals("cheaper", table.get(3));
+
+        // storing a state again replaces its result
+        table.put(1, "again", 5);
+        assertEquals("again", table.get(1));
+
+        // after a new generation, old results give way whatever they cost
+        table.put(1, "costly", 100);
+        table.newGeneration();
+        table.put(4, "new", 0);
+        assertNull(table.get(1));
+        assertEquals("new", table.get(4));
+
+        table.clear();
+        assertNull(table.get(4));
+    }
+
+    @Test
+    void testSharedBetweenThreads() throws InterruptedException {
+        TranspositionTable<Long> table = new TranspositionTable<>(1 << 10);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++){
+            Thread thread = new Thread(() -> {
+                for (long hash = 1; hash < 100_000; hash++){
+                    table.put(hash * 0x9E3779B97F4A7C15L, hash, (int) (hash & 7));
+
+                    // whatever is found for a hash was stored for that hash
+                    Long found = table.get((hash / 2 + 1) * 0x9E3779B97F4A7C15L);
+                    if (found != null && found != hash / 2 + 1){
+                        synchronized (failures){
+                            failures.add(new AssertionError(found + " for " + (hash / 2 + 1)));
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads){
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+}
@@ -0,0 +1,123 @@
+package battleship;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws fleet layouts exactly uniformly from the set of all legal layouts, where ships of the
+ * same length are interchangeable and no two ships may touch (the rule in Ship.okToPlaceShipAt).
+ *
+ * A layout is built one LayoutCounter decision at a time: at each cell, no ship or one of the
+ * remaining ships starts there, chosen with probability proportional to the number of layouts
+ * that complete each choice. All the counts are computed when the sampler is built;
+ * afterwards they are only read, so one sampler can be shared between threads and each draw
+ * is about a hundred table lookups.
+ */
+final class UniformLayoutSampler {
+
+    /**
+     * Sampler for the standard fleet on the standard 10 x 10 ocean, built the first time it is used
+     */
+    private static UniformLayoutSampler standard;
+
+    /**
+     * Counts of the completions of every state a draw can reach
+     */
+    private final LayoutCounter counter;
+
+    /**
+     * The number of legal layouts of the whole fleet
+     */
+    private final long layoutCount;
+
+    /**
+     * Builds the sampler and counts the layouts. This visits every reachable state once, so it
+     * takes a while for a full fleet; share the result rather than building it per game.
+     *
+     * @param table footprints of the board
+     * @param fleetLengths lengths of the ships in the fleet
+     */
+    UniformLayoutSampler(PlacementTable table, int[] fleetLengths){
+        this.counter = new LayoutCounter(table, fleetLengths);
+        this.layoutCount = this.counter.count(0, this.counter.fullFleet(), 0, 0);
+    }
+
+    /**
+     * Method to get the shared sampler for the standard fleet on the standard ocean
+     * @return the standard sampler
+     */
+    static synchronized UniformLayoutSampler standard(){
+        if (standard == null){
+            standard = new UniformLayoutSampler(PlacementTable.STANDARD, Ocean.FLEET_LENGTHS);
+        }
+        return standard;
+    }
+
+    /**
+     * Method to get the number of legal layouts of the whole fleet
+     * @return the number of layouts
+     */
+    long layoutCount(){
+        return this.layoutCount;
+    }
+
+    /**
+     * Draws a layout uniformly from all legal layouts.
+     *
+     * @param random source of randomness
+     * @param layout receives a footprint number for each ship, in the order of the fleet
+     *               lengths this sampler was built with (the format of PlacementTable.drawLayout)
+     */
+    void draw(RandomGenerator random, int[] layout){
+
+        // which entries of layout have been filled in so far
+        long filled = 0;
+
+        int cell = 0;
+        int fleet = this.counter.fullFleet();
+        long blockedLo = 0;
+        long blockedHi = 0;
+
+        while (fleet != 0){
+
+            // skip blocked cells, same as LayoutCounter.count() does
+            while (LayoutCounter.isSet(cell, blockedLo, blockedHi)){
+                cell++;
+            }
+
+            // pick one of the completions of this state, then find the decision it follows from
+            long pick = random.nextLong(this.counter.count(cell, fleet, blockedLo, blockedHi));
+
+            long none = this.counter.count(cell + 1, fleet, blockedLo, blockedHi);
+            if (pick < none){
+                cell++;
+                continue;
+            }
+            pick -= none;
+
+            search:
+            for (int length = 1; length <= this.counter.maxLength(); length++){
+                if (this.counter.remaining(fleet, length) == 0){
+                    continue;
+                }
+                for (int k = 0; k < 2; k++){
+                    int footprint = this.counter.startingAt(length, cell, k);
+                    if (footprint < 0 || !this.counter.fits(length, footprint, blockedLo, blockedHi)){
+                        continue;
+                    }
+                    long nextLo = blockedLo | this.counter.table().haloLo(length, footprint);
+                    long nextHi = blockedHi | this.counter.table().haloHi(length, footprint);
+                    long ways = this.counter.count(cell + 1, fleet - this.counter.unit(length), nextLo, nextHi);
+                    if (pick < ways){
+                        filled = this.counter.assign(length, footprint, filled, layout);
+                        fleet -= this.counter.unit(length);
+                        blockedLo = nextLo;
+                        blockedHi = nextHi;
+                        break search;
+                    }
+                    pick -= ways;
+                }
+            }
+            cell++;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package battleship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class UniformLayoutSamplerTest {
+
+    @Test
+    void testLayoutCountSmallBoards() {
+
+        // two submarines on a 3 x 3 board: 36 pairs of cells, 20 of which touch
+        UniformLayoutSampler twoSubs = new UniformLayoutSampler(new PlacementTable(3, 3, 1), new int[]{1, 1});
+        assertEquals(16, twoSubs.layoutCount());
+
+        // a single destroyer on a 3 x 3 board: 6 horizontal and 6 vertical positions
+        UniformLayoutSampler destroyer = new UniformLayoutSampler(new PlacementTable(3, 3, 2), new int[]{2});
+        assertEquals(12, destroyer.layoutCount());
+
+        // a cruiser and a submarine on a 3 x 3 board: the cruiser must lie along an edge
+        // (4 positions) and the submarine then has the 3 cells of the opposite edge
+        UniformLayoutSampler cruiserAndSub = new UniformLayoutSampler(new PlacementTable(3, 3, 3), new int[]{3, 1});
+        assertEquals(12, cruiserAndSub.layoutCount());
+    }
+
+    @Test
+    void testDrawIsLegalAndUniform() {
+
+        PlacementTable table = new PlacementTable(3, 3, 1);
+        UniformLayoutSampler sampler = new UniformLayoutSampler(table, new int[]{1, 1});
+        SplittableRandom random = new SplittableRandom(591);
+        int[] layout = new int[2];
+
+        // count how often each (unordered) pair of cells comes up
+        Map<Long, Integer> seen = new HashMap<>();
+        int draws = 16000;
+        for (int i = 0; i < draws; i++){
+            sampler.draw(random, layout);
+
+            long first = table.cellsLo(1, layout[0]);
+            long second = table.cellsLo(1, layout[1]);
+            long halo = table.haloLo(1, layout[0]);
+            assertEquals(0, halo & second, "submarines must not touch");
+
+            seen.merge(first | second, 1, Integer::sum);
+        }
+
+        // every one of the 16 layouts should turn up about 1000 times
+        assertEquals(16, seen.size());
+        for (int times : seen.values()){
+            assertTrue(times > 850 && times < 1150, "layout drawn " + times + " times");
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package battleship;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * HeatmapKernel written with the incubating Vector API, using the widest vectors of the
+ * machine (4 longs with AVX2, 8 with AVX-512). The bits of a mask of cells that fall in one
+ * vector are looked up in a table of lanes that are all 0 or all 1 bits, so a footprint is
+ * added, or the shots masked, one vector of cells at a time with AND, OR and ADD. (The table
+ * stands in for VectorMask.fromLong(), which JDK 17 does not compile to vector instructions
+ * and which allocates.)
+ *
+ * The module has to be added both to compile this class and to run it:
+ * javac/java --add-modules jdk.incubator.vector. Without it at run time, HeatmapKernels
+ * never loads this class and uses ScalarHeatmapKernel.
+ */
+final class VectorHeatmapKernel implements HeatmapKernel {
+
+    /**
+     * Longs in each vector
+     */
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Number of lanes
+     */
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * A mask with a bit for every lane
+     */
+    private static final long LANE_BITS = (1L << LANES) - 1;
+
+    /**
+     * For every pattern of lane bits, LANES longs that are -1 where the bit is set and 0
+     * where it is not
+     */
+    private static final long[] LANE_MASKS = new long[LANES << LANES];
+
+    static {
+        for (int bits = 0; bits < 1 << LANES; bits++){
+            for (int lane = 0; lane < LANES; lane++){
+                LANE_MASKS[bits * LANES + lane] = -((bits >>> lane) & 1L);
+            }
+        }
+    }
+
+    @Override
+    public void accumulate(long[] density, long[] cellsLo, long[] cellsHi, long[] weights, int count){
+        for (int i = 0; i < count; i++){
+            addMasked(density, 0, cellsLo[i], weights[i]);
+            addMasked(density, 64, cellsHi[i], weights[i]);
+        }
+    }
+
+    /**
+     * Adds a weight to the cells of one word of a mask, a vector at a time, skipping the
+     * vectors with no cell in the mask
+     */
+    private static void addMasked(long[] density, int firstCell, long cells, long weight){
+        while (cells != 0){
+            int lane = Long.numberOfTrailingZeros(cells) & -LANES;
+            long bits = (cells >>> lane) & LANE_BITS;
+            LongVector lanes = LongVector.fromArray(SPECIES, LANE_MASKS, (int) bits * LANES);
+            LongVector.fromArray(SPECIES, density, firstCell + lane)
+                    .add(lanes.and(weight))
+                    .intoArray(density, firstCell + lane);
+            cells &= ~(LANE_BITS << lane);
+        }
+    }
+
+    @Override
+    public void add(long[] total, long[] tally){
+        for (int cell = 0; cell < 128; cell += LANES){
+            LongVector.fromArray(SPECIES, total, cell)
+                    .add(LongVector.fromArray(SPECIES, tally, cell))
+                    .intoArray(total, cell);
+        }
+    }
+
+    @Override
+    public void maskShots(long[] density, long shotLo, long shotHi){
+        for (int cell = 0; cell < 128; cell += LANES){
+            long bits = ((cell < 64 ? shotLo : shotHi) >>> (cell & 63)) & LANE_BITS;
+            if (bits != 0){
+                LongVector.fromArray(SPECIES, density, cell)
+                        .or(LongVector.fromArray(SPECIES, LANE_MASKS, (int) bits * LANES))
+                        .intoArray(density, cell);
+            }
+        }
+    }
+
+    @Override
+    public int argmax(long[] density, int cells){
+        int bound = SPECIES.loopBound(cells);
+
+        // the highest weight, a vector at a time and then the cells left over
+        long best = -1;
+        if (bound > 0){
+            LongVector max = LongVector.fromArray(SPECIES, density, 0);
+            for (int cell = LANES; cell < bound; cell += LANES){
+                max = max.max(LongVector.fromArray(SPECIES, density, cell));
+            }
+            best = Math.max(best, max.reduceLanes(VectorOperators.MAX));
+        }
+        for (int cell = bound; cell < cells; cell++){
+            best = Math.max(best, density[cell]);
+        }
+        if (best < 0){
+            return -1;
+        }
+
+        // the first cell that has it
+        for (int cell = 0; ; cell++){
+            if (density[cell] == best){
+                return cell;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package battleship;
+
+/**
+ * Zobrist keys for the observable state of a game: which cells have been fired upon and
+ * whether each first shot there hit or missed, and which ships have been sunk, by length and
+ * position, as the player is told where a sunk ship lay. The hash of a state is the XOR of the
+ * keys of its parts, so it is updated with one XOR per change and does not depend on the order
+ * of the shots; the state before any shot hashes to 0. Ocean and SeaChart keep the hash of the
+ * same game equal.
+ *
+ * Keys are fixed (derived from the cell or ship with the SplitMix64 finalizer), so hashes are
+ * the same from one run to the next and can be stored. Keys of the cells of boards up to 128
+ * cells are kept in a table; larger boards compute them.
+ */
+final class Zobrist {
+
+    /**
+     * Added to a shot's number before mixing, so shot and sinking keys differ
+     */
+    private static final long SHOT_SEED = 0x5EA5_C4A7_0F5B_0A75L;
+
+    /**
+     * Added to a sinking's number before mixing
+     */
+    private static final long SUNK_SEED = 0x9E37_79B9_7F4A_7C15L;
+
+    /**
+     * Keys of a miss and a hit in each cell of boards up to 128 cells, at 2 * cell and 2 * cell + 1
+     */
+    private static final long[] SHOT_KEYS = new long[2 * PlacementTable.MAX_CELLS];
+
+    static {
+        for (int i = 0; i < SHOT_KEYS.length; i++){
+            SHOT_KEYS[i] = mix(i + SHOT_SEED);
+        }
+    }
+
+    private Zobrist(){
+    }
+
+    /**
+     * Method to get the key of the first shot at a cell
+     * @param cell index of the cell, row * columns + column
+     * @param hit true if the shot hit a ship that was afloat
+     * @return the key
+     */
+    static long shot(int cell, boolean hit){
+        long index = 2L * cell + (hit ? 1 : 0);
+        return index < SHOT_KEYS.length ? SHOT_KEYS[(int) index] : mix(index + SHOT_SEED);
+    }
+
+    /**
+     * Method to get the key of a sinking. Two charts with the same shots but ships sunk in
+     * different places block different cells, so where the ship lay is part of the key.
+     * @param length length of the ship sunk
+     * @param bowCell index of the ship's bow, row * columns + column
+     * @param horizontal true if the ship lay horizontally
+     * @return the key
+     */
+    static long sunk(int length, int bowCell, boolean horizontal){
+        return mix(((2L * bowCell + (horizontal ? 1 : 0)) << 3 | length) + SUNK_SEED);
+    }
+
+    /**
+     * The SplitMix64 finalizer, which spreads every input bit over the whole output
+     */
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}